@@ -0,0 +1,57 @@
+package com.mrhabibi.autonomousdialog.benchmark;
+
+import com.mrhabibi.autonomousdialog.utils.ChoiceIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of searching a large option list with ChoiceIndex, typing a query from scratch and
+ * narrowing the previous result while typing
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ChoiceIndexBenchmark {
+
+    private static final int OPTIONS = 50000;
+    private static final String[] WORDS = {"north", "south", "river", "lake", "hill", "port", "saint", "new", "old", "green"};
+
+    private ChoiceIndex index;
+    private int[] previous;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        CharSequence[] options = new CharSequence[OPTIONS];
+        for (int i = 0; i < OPTIONS; i++) {
+            options[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+        }
+        index = new ChoiceIndex(options);
+        previous = index.search("ri");
+    }
+
+    /**
+     * Search the whole index for a two-token query
+     */
+    @Benchmark
+    public int[] search() {
+        return index.search("river sa");
+    }
+
+    /**
+     * Narrow the result of the previous keystroke
+     */
+    @Benchmark
+    public int[] narrow() {
+        return index.narrow(previous, "riv");
+    }
+}
@@ -0,0 +1,41 @@
+package com.mrhabibi.autonomousdialog.benchmark;
+
+import com.mrhabibi.autonomousdialog.DialogOutcome;
+import com.mrhabibi.autonomousdialog.DialogResultCodes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of decoding dialog result codes into outcomes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class DialogOutcomeBenchmark {
+
+    private final int[] resultCodes = {
+            DialogResultCodes.RESULT_DIALOG_CANCELLED,
+            DialogResultCodes.RESULT_DIALOG_SINGLE_CHOICE,
+            DialogResultCodes.RESULT_DIALOG_MULTI_CHOICES,
+            DialogResultCodes.RESULT_DIALOG_PLAIN_CHOICE,
+            DialogResultCodes.RESULT_DIALOG_POSITIVE_BUTTON,
+            DialogResultCodes.RESULT_DIALOG_NEGATIVE_BUTTON,
+            DialogResultCodes.RESULT_DIALOG_NEUTRAL_BUTTON,
+            1234
+    };
+
+    private int index;
+
+    @Benchmark
+    public DialogOutcome decode() {
+        index = (index + 1) & 7;
+        return DialogOutcome.fromResultCode(resultCodes[index]);
+    }
+}
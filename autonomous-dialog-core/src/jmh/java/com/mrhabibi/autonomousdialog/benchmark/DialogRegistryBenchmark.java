@@ -0,0 +1,81 @@
+package com.mrhabibi.autonomousdialog.benchmark;
+
+import com.mrhabibi.autonomousdialog.DialogHost;
+import com.mrhabibi.autonomousdialog.utils.DialogRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of the show & dismiss bookkeeping done by DialogRegistry for a single dialog
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DialogRegistryBenchmark {
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Dialog implements DialogHost {
+        String identifier;
+
+        @Setup
+        public void setup() {
+            identifier = "benchmark_" + threadCounter.incrementAndGet();
+        }
+
+        @Override
+        public void dismissHost() {
+        }
+    }
+
+    /**
+     * Show, attach, user dismissal and destroy of the host
+     */
+    @Benchmark
+    public boolean showAndFinish(Dialog dialog) {
+        boolean shown = DialogRegistry.requestShow(dialog.identifier);
+        shown &= DialogRegistry.attach(dialog.identifier, dialog);
+        DialogRegistry.detach(dialog.identifier, dialog, true);
+        return shown;
+    }
+
+    /**
+     * Show, attach, remote dismissal and destroy of the host
+     */
+    @Benchmark
+    public DialogHost showAndDismissRemotely(Dialog dialog) {
+        DialogRegistry.requestShow(dialog.identifier);
+        DialogRegistry.attach(dialog.identifier, dialog);
+        DialogHost host = DialogRegistry.dismiss(dialog.identifier);
+        DialogRegistry.detach(dialog.identifier, dialog, true);
+        return host;
+    }
+
+    /**
+     * Same as showAndDismissRemotely but with other threads doing the same to other identifiers
+     */
+    @Benchmark
+    @Threads(4)
+    public DialogHost showAndDismissRemotelyContended(Dialog dialog) {
+        return showAndDismissRemotely(dialog);
+    }
+
+    /**
+     * Duplicated show request of an identifier that is showing
+     */
+    @Benchmark
+    public boolean duplicatedShow(Dialog dialog) {
+        DialogRegistry.requestShow(dialog.identifier);
+        return DialogRegistry.requestShow(dialog.identifier);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mrhabibi.autonomousdialog.benchmark;
+
+import com.mrhabibi.autonomousdialog.utils.DialogScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of queueing a burst of dialogs in DialogScheduler and draining it one by one
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class DialogSchedulerBenchmark {
+
+    private static final int BURST = 32;
+    private static final String[] GROUPS = {"sync", "push", "promo", "error"};
+
+    private DialogScheduler scheduler;
+    private long lastTicket;
+
+    private final DialogScheduler.Task task = new DialogScheduler.Task() {
+        @Override
+        public boolean show(long ticket) {
+            lastTicket = ticket;
+            return true;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        scheduler = new DialogScheduler();
+    }
+
+    /**
+     * A burst of distinct dialogs with mixed priorities, shown one after another
+     */
+    @Benchmark
+    public long burstAndDrain() {
+        for (int i = 0; i < BURST; i++) {
+            scheduler.enqueue(null, null, i % 3, task);
+        }
+        for (int i = 0; i <= BURST; i++) {
+            scheduler.finish(lastTicket);
+        }
+        return scheduler.getDispatchedCount();
+    }
+
+    /**
+     * A burst of dialogs coalesced into a few groups, shown one after another
+     */
+    @Benchmark
+    public long coalescedBurstAndDrain() {
+        for (int i = 0; i < BURST; i++) {
+            scheduler.enqueue(null, GROUPS[i % GROUPS.length], DialogScheduler.PRIORITY_DEFAULT, task);
+        }
+        for (int i = 0; i <= GROUPS.length; i++) {
+            scheduler.finish(lastTicket);
+        }
+        return scheduler.getDispatchedCount();
+    }
+}
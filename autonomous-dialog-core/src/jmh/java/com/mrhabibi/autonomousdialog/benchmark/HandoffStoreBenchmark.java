@@ -0,0 +1,54 @@
+package com.mrhabibi.autonomousdialog.benchmark;
+
+import com.mrhabibi.autonomousdialog.utils.HandoffStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of handing an object over through HandoffStore, like FragmentPasser does
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HandoffStoreBenchmark {
+
+    @Param({"false", "true"})
+    public boolean weakValues;
+
+    private HandoffStore<Object> store;
+    private final Object value = new Object();
+
+    @Setup
+    public void setup() {
+        store = new HandoffStore<>(32, 60 * 1000L, weakValues);
+    }
+
+    @Benchmark
+    public Object putAndTake() {
+        return store.take(store.put("AlertDialog_", value));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object putAndTakeContended() {
+        return store.take(store.put("AlertDialog_", value));
+    }
+
+    /**
+     * Put that is never taken, so every put has to evict the oldest entry
+     */
+    @Benchmark
+    public String putAndEvict() {
+        return store.put("AlertDialog_", value);
+    }
+}
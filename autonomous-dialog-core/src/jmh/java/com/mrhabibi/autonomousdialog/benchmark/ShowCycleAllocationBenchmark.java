@@ -0,0 +1,107 @@
+package com.mrhabibi.autonomousdialog.benchmark;
+
+import com.mrhabibi.autonomousdialog.DialogHost;
+import com.mrhabibi.autonomousdialog.DialogMetrics;
+import com.mrhabibi.autonomousdialog.utils.DialogRegistry;
+import com.mrhabibi.autonomousdialog.utils.DialogScheduler;
+import com.mrhabibi.autonomousdialog.utils.MetricsReporter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocations of the bookkeeping done for every show, rotation and dismissal of a queued dialog,
+ * run with the gc profiler and read gc.alloc.rate.norm, it should stay the same per show and grow
+ * only by a fixed amount per rotation. Building the dialog needs Android, its allocations are
+ * counted by DialogBuildAllocationTest of autonomous-dialog
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ShowCycleAllocationBenchmark {
+
+    private static final String IDENTIFIER = "allocation_benchmark";
+
+    @Param({"0", "1", "4"})
+    public int rotations;
+
+    private DialogScheduler scheduler;
+    private long shownTicket;
+    private long events;
+
+    private final DialogHost[] hosts = {new Host(), new Host()};
+
+    private final DialogScheduler.Task task = new DialogScheduler.Task() {
+        @Override
+        public boolean show(long ticket) {
+            shownTicket = ticket;
+            return DialogRegistry.requestShow(IDENTIFIER);
+        }
+    };
+
+    @Setup
+    public void setup() {
+        scheduler = new DialogScheduler();
+        MetricsReporter.setMetrics(new DialogMetrics() {
+            @Override
+            public void onEvent(int event, String identifier, int resultCode, long timestampNanos) {
+                events++;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        MetricsReporter.setMetrics(null);
+    }
+
+    /**
+     * Queue, show, attach, rotate, dismiss remotely and finish a dialog, like the host does
+     */
+    @Benchmark
+    public long showRotateDismiss() {
+        scheduler.enqueue(IDENTIFIER, null, DialogScheduler.PRIORITY_DEFAULT, task);
+        MetricsReporter.report(DialogMetrics.EVENT_SHOW_REQUESTED, IDENTIFIER);
+
+        DialogHost host = hosts[0];
+        DialogRegistry.onHostCreated();
+        DialogRegistry.attach(IDENTIFIER, host);
+        scheduler.attached(shownTicket);
+        MetricsReporter.report(DialogMetrics.EVENT_HOST_CREATED, IDENTIFIER);
+
+        /*
+         * Every rotation attaches the new host before the old one is gone
+         */
+        for (int i = 0; i < rotations; i++) {
+            DialogHost rotated = hosts[(i + 1) % hosts.length];
+            DialogRegistry.onHostCreated();
+            DialogRegistry.attach(IDENTIFIER, rotated);
+            DialogRegistry.detach(IDENTIFIER, host, false);
+            DialogRegistry.onHostDestroyed();
+            host = rotated;
+        }
+
+        DialogRegistry.dismiss(IDENTIFIER);
+        DialogRegistry.detach(IDENTIFIER, host, true);
+        DialogRegistry.onHostDestroyed();
+        MetricsReporter.report(DialogMetrics.EVENT_DISMISSED, IDENTIFIER);
+        scheduler.finish(shownTicket);
+        return events;
+    }
+
+    private static class Host implements DialogHost {
+
+        @Override
+        public void dismissHost() {
+        }
+    }
+}
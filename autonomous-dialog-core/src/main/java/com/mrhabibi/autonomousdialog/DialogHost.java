@@ -0,0 +1,15 @@
+package com.mrhabibi.autonomousdialog;
+
+/**
+ * This interface is implemented by everything that hosts a live dialog, like DialogActivity and
+ * DialogHostFragment, so the dialog can be dismissed remotely by its identifier
+ */
+
+public interface DialogHost {
+
+    /**
+     * Dismiss the hosted dialog and destroy the host, always called on the main thread
+     */
+    void dismissHost();
+
+}
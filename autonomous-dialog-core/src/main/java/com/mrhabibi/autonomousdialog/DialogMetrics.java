@@ -0,0 +1,92 @@
+package com.mrhabibi.autonomousdialog;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Pluggable metrics listener of dialog lifecycle, every event is reported with the identifier and
+ * System.nanoTime timestamp, so latency per identifier can be measured without parsing logcat.
+ * The events are reported on the thread where they happen, mostly the main thread, so keep the
+ * implementation cheap
+ */
+
+public interface DialogMetrics {
+
+    /**
+     * AutonomousDialog.Builder.show is called
+     */
+    int EVENT_SHOW_REQUESTED = 1;
+
+    /**
+     * The host of the dialog is created for the first time
+     */
+    int EVENT_HOST_CREATED = 2;
+
+    /**
+     * The dialog is shown for the first time
+     */
+    int EVENT_DIALOG_SHOWN = 3;
+
+    /**
+     * A button or a choice is chosen, the result code tells which one
+     */
+    int EVENT_BUTTON_CHOSEN = 4;
+
+    /**
+     * The dialog is dismissed for real, not because of config changes
+     */
+    int EVENT_DISMISSED = 5;
+
+    /**
+     * The result is delivered, the result code tells the final result
+     */
+    int EVENT_RESULT_DELIVERED = 6;
+
+    /**
+     * The show request is dropped because the dialog with the same identifier is shown
+     */
+    int EVENT_DUPLICATE_SUPPRESSED = 7;
+
+    /**
+     * The host is destroyed right after created because the dialog has been dismissed
+     */
+    int EVENT_RACE_CONDITION_DISMISSED = 8;
+
+    /**
+     * The host is destroyed right after created because the passed fragment is gone
+     */
+    int EVENT_SESSION_EXPIRED = 9;
+
+    /**
+     * The show request is queued by DialogScheduler
+     */
+    int EVENT_ENQUEUED = 10;
+
+    /**
+     * The queued show request is replaced by a newer request with the same group key
+     */
+    int EVENT_COALESCED = 11;
+
+    /**
+     * The queued show request leaves DialogScheduler to be shown, the wait time is the difference
+     * with EVENT_ENQUEUED
+     */
+    int EVENT_DEQUEUED = 12;
+
+    /**
+     * The passed fragment is gone, like after process death, and the restorable content is made
+     * again from its class and arguments instead of dismissing the host
+     */
+    int EVENT_SESSION_RESTORED = 13;
+
+    /**
+     * Called when the event happens
+     *
+     * @param event          The EVENT_ constant
+     * @param identifier     The dialog identifier, null if the dialog has no identifier
+     * @param resultCode     The result code for EVENT_BUTTON_CHOSEN and EVENT_RESULT_DELIVERED,
+     *                       0 for other events
+     * @param timestampNanos The System.nanoTime when the event happens
+     */
+    void onEvent(int event, @Nullable String identifier, int resultCode, long timestampNanos);
+
+}
@@ -0,0 +1,60 @@
+package com.mrhabibi.autonomousdialog;
+
+/**
+ * The decoded outcome of a dialog result code, every code that isn't known by the library is
+ * a custom result code set by the dialog callback
+ */
+
+public enum DialogOutcome {
+
+    CANCELLED(DialogResultCodes.RESULT_DIALOG_CANCELLED),
+    SINGLE_CHOICE(DialogResultCodes.RESULT_DIALOG_SINGLE_CHOICE),
+    MULTI_CHOICES(DialogResultCodes.RESULT_DIALOG_MULTI_CHOICES),
+    PLAIN_CHOICE(DialogResultCodes.RESULT_DIALOG_PLAIN_CHOICE),
+    POSITIVE(DialogResultCodes.RESULT_DIALOG_POSITIVE_BUTTON),
+    NEGATIVE(DialogResultCodes.RESULT_DIALOG_NEGATIVE_BUTTON),
+    NEUTRAL(DialogResultCodes.RESULT_DIALOG_NEUTRAL_BUTTON),
+    CUSTOM(-1);
+
+    private final int resultCode;
+
+    DialogOutcome(int resultCode) {
+        this.resultCode = resultCode;
+    }
+
+    /**
+     * Get the result code of the outcome
+     *
+     * @return The result code, -1 for custom outcome
+     */
+    public int getResultCode() {
+        return resultCode;
+    }
+
+    /**
+     * Decode the result code
+     *
+     * @param resultCode The activity result code
+     * @return The outcome
+     */
+    public static DialogOutcome fromResultCode(int resultCode) {
+        switch (resultCode) {
+            case DialogResultCodes.RESULT_DIALOG_CANCELLED:
+                return CANCELLED;
+            case DialogResultCodes.RESULT_DIALOG_SINGLE_CHOICE:
+                return SINGLE_CHOICE;
+            case DialogResultCodes.RESULT_DIALOG_MULTI_CHOICES:
+                return MULTI_CHOICES;
+            case DialogResultCodes.RESULT_DIALOG_PLAIN_CHOICE:
+                return PLAIN_CHOICE;
+            case DialogResultCodes.RESULT_DIALOG_POSITIVE_BUTTON:
+                return POSITIVE;
+            case DialogResultCodes.RESULT_DIALOG_NEGATIVE_BUTTON:
+                return NEGATIVE;
+            case DialogResultCodes.RESULT_DIALOG_NEUTRAL_BUTTON:
+                return NEUTRAL;
+            default:
+                return CUSTOM;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mrhabibi.autonomousdialog;
+
+/**
+ * The request and result codes used by dialog hosts, kept free from Android classes so the result
+ * decoding can be used and benchmarked on plain JVM, DialogResult exposes the same constants
+ */
+
+public final class DialogResultCodes {
+
+    /**
+     * Dialog activity request
+     */
+    public final static int REQUEST_DIALOG = 8800;
+
+    /**
+     * Dialog activity result
+     */
+    public final static int RESULT_DIALOG_SINGLE_CHOICE = 8801;
+    public final static int RESULT_DIALOG_MULTI_CHOICES = 8802;
+    public final static int RESULT_DIALOG_PLAIN_CHOICE = 8803;
+
+    public final static int RESULT_DIALOG_POSITIVE_BUTTON = 8804;
+    public final static int RESULT_DIALOG_NEGATIVE_BUTTON = 8805;
+    public final static int RESULT_DIALOG_NEUTRAL_BUTTON = 8806;
+
+    public final static int RESULT_DIALOG_CANCELLED = 0;
+
+    private DialogResultCodes() {
+    }
+}
@@ -0,0 +1,26 @@
+package com.mrhabibi.autonomousdialog.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Field of a dialog wrapper that is set by the builder, read from the arguments and kept in the
+ * saved state. With autonomous-dialog-processor the builder and the codes to read and write the
+ * field are generated in the WrapperName_DialogCodec class, the field must not be private
+ *
+ * <pre>
+ * &#64;DialogArg
+ * int mMaxStars;
+ * </pre>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface DialogArg {
+
+    /**
+     * @return The bundle key, the field name without the m prefix if empty
+     */
+    String value() default "";
+}
@@ -0,0 +1,20 @@
+package com.mrhabibi.autonomousdialog.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Field of a dialog wrapper that is passed in the responses of the result, the codes are
+ * generated in the WrapperName_DialogCodec class, the field must not be private
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface DialogResponseExtra {
+
+    /**
+     * @return The responses key, the field name without the m prefix if empty
+     */
+    String value() default "";
+}
@@ -0,0 +1,20 @@
+package com.mrhabibi.autonomousdialog.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Field of a dialog wrapper that is only kept in the saved state, like what the user has typed,
+ * the codes are generated in the WrapperName_DialogCodec class, the field must not be private
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface DialogState {
+
+    /**
+     * @return The bundle key, the field name without the m prefix if empty
+     */
+    String value() default "";
+}
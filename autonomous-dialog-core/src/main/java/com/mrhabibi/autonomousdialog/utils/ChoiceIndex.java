@@ -0,0 +1,255 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Search index of choice options, the options are split into lower case tokens of letters and
+ * digits, and an option matches the query when every query token is a prefix of one of its
+ * tokens. The sorted tokens make the lookup a binary search instead of scanning every option, it
+ * takes a while to build for very large lists, so build it on a background thread. The instance
+ * is immutable and can be searched from any thread
+ */
+public class ChoiceIndex {
+
+    private static final int[] NO_INDICES = new int[0];
+
+    private final int mSize;
+
+    /**
+     * All tokens in ascending order, and the option of each of them
+     */
+    private final String[] mTokens;
+    private final int[] mTokenOptions;
+
+    /**
+     * The tokens of each option, used to check the candidates
+     */
+    private final String[][] mOptionTokens;
+
+    public ChoiceIndex(@NonNull CharSequence[] options) {
+        this.mSize = options.length;
+        this.mOptionTokens = new String[options.length][];
+
+        int tokenCount = 0;
+        for (int i = 0; i < options.length; i++) {
+            mOptionTokens[i] = tokenize(options[i]);
+            tokenCount += mOptionTokens[i].length;
+        }
+
+        /*
+         * Sort the token positions instead of the tokens, so the option of each token is kept
+         */
+        final String[] tokens = new String[tokenCount];
+        final int[] tokenOptions = new int[tokenCount];
+        Integer[] order = new Integer[tokenCount];
+        int position = 0;
+        for (int i = 0; i < options.length; i++) {
+            for (String token : mOptionTokens[i]) {
+                tokens[position] = token;
+                tokenOptions[position] = i;
+                order[position] = position;
+                position++;
+            }
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer left, Integer right) {
+                return tokens[left].compareTo(tokens[right]);
+            }
+        });
+
+        this.mTokens = new String[tokenCount];
+        this.mTokenOptions = new int[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            mTokens[i] = tokens[order[i]];
+            mTokenOptions[i] = tokenOptions[order[i]];
+        }
+    }
+
+    /**
+     * @return The count of options
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Find the options matching the query
+     *
+     * @param query The query, all options match the empty one
+     * @return The original indices of the matching options in ascending order
+     */
+    @NonNull
+    public int[] search(@Nullable CharSequence query) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0) {
+            return allIndices();
+        }
+
+        /*
+         * Take the candidates from the query token with the fewest matching tokens, then check
+         * the other query tokens on each candidate
+         */
+        int bestFrom = 0;
+        int bestTo = -1;
+        int bestToken = -1;
+        for (int i = 0; i < queryTokens.length; i++) {
+            int from = lowerBound(queryTokens[i]);
+            int to = prefixEnd(queryTokens[i], from);
+            if (bestToken == -1 || to - from < bestTo - bestFrom) {
+                bestFrom = from;
+                bestTo = to;
+                bestToken = i;
+            }
+        }
+        if (bestTo == bestFrom) {
+            return NO_INDICES;
+        }
+
+        /*
+         * Collect in a bitset, so the options are in ascending order and the ones that have
+         * several matching tokens are taken once
+         */
+        long[] words = new long[((mSize - 1) >> 6) + 1];
+        for (int i = bestFrom; i < bestTo; i++) {
+            int option = mTokenOptions[i];
+            words[option >> 6] |= 1L << option;
+        }
+
+        int[] indices = new int[bestTo - bestFrom];
+        int count = 0;
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                int option = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (queryTokens.length == 1 || matches(option, queryTokens, bestToken)) {
+                    indices[count++] = option;
+                }
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Narrow the previous result down to the options matching the query, used while the user
+     * keeps typing, the query has to start with the query of the previous result
+     *
+     * @param candidates The previous result
+     * @param query      The longer query
+     * @return The original indices of the matching options in ascending order
+     */
+    @NonNull
+    public int[] narrow(@NonNull int[] candidates, @Nullable CharSequence query) {
+        String[] queryTokens = tokenize(query);
+        if (queryTokens.length == 0) {
+            return candidates;
+        }
+
+        int[] indices = new int[candidates.length];
+        int count = 0;
+        for (int option : candidates) {
+            if (matches(option, queryTokens, -1)) {
+                indices[count++] = option;
+            }
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Split the text into lower case tokens of letters and digits
+     *
+     * @param text The text
+     * @return The tokens
+     */
+    @NonNull
+    public static String[] tokenize(@Nullable CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return new String[0];
+        }
+
+        ArrayList<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens.toArray(new String[tokens.size()]);
+    }
+
+    /**
+     * Check if every query token, except the one already matched, is a prefix of an option token
+     */
+    private boolean matches(int option, String[] queryTokens, int matchedToken) {
+        String[] optionTokens = mOptionTokens[option];
+        for (int i = 0; i < queryTokens.length; i++) {
+            if (i == matchedToken) {
+                continue;
+            }
+            boolean found = false;
+            for (String optionToken : optionTokens) {
+                if (optionToken.startsWith(queryTokens[i])) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first token that is not less than the query token
+     */
+    private int lowerBound(String queryToken) {
+        int low = 0;
+        int high = mTokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mTokens[middle].compareTo(queryToken) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the end of the tokens starting with the query token, they're all next to each other
+     * from the lower bound
+     */
+    private int prefixEnd(String queryToken, int from) {
+        int low = from;
+        int high = mTokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mTokens[middle].startsWith(queryToken)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int[] allIndices() {
+        int[] indices = new int[mSize];
+        for (int i = 0; i < mSize; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,280 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.DialogHost;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry that keeps the lifecycle state and the live host of each dialog identifier inside this
+ * process. Every identifier moves through PENDING -> SHOWN -> DISMISSING -> GONE using atomic
+ * transitions only, so showing and dismissing are safe from any thread without locking, and
+ * dismissing dialog remotely is just a map lookup instead of a system-wide broadcast
+ */
+public class DialogRegistry {
+
+    /**
+     * Dialog is requested to be shown, but the host is not created yet
+     */
+    public static final int STATE_PENDING = 0;
+
+    /**
+     * Dialog host is created and the dialog is showing
+     */
+    public static final int STATE_SHOWN = 1;
+
+    /**
+     * Dialog is requested to be dismissed, the host will be destroyed soon
+     */
+    public static final int STATE_DISMISSING = 2;
+
+    /**
+     * Dialog host is destroyed, the identifier can be shown again
+     */
+    public static final int STATE_GONE = 3;
+
+    /**
+     * How long a dialog dismissed before its host is created waits for the host, in milliseconds
+     */
+    public static final long DEFAULT_DISMISS_TIMEOUT = 5000;
+
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Count of every live host, including the ones without identifier
+     */
+    private static final AtomicInteger liveHosts = new AtomicInteger();
+
+    private static volatile long dismissTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DISMISS_TIMEOUT);
+
+    /**
+     * Request to show dialog with the identifier, only one of concurrent requests wins
+     *
+     * @param identifier The dialog identifier
+     * @return True if the dialog can be shown, false if it's a duplication
+     */
+    public static boolean requestShow(@NonNull String identifier) {
+        Entry newEntry = new Entry();
+        while (true) {
+            Entry entry = entries.putIfAbsent(identifier, newEntry);
+            if (entry == null) {
+                return true;
+            }
+            if (!entry.isAbandoned()) {
+                return false;
+            }
+
+            /*
+             * The dialog was dismissed before its host was created and the host never came, like
+             * a launch that was dropped, so it doesn't block the identifier forever
+             */
+            if (entries.replace(identifier, entry, newEntry)) {
+                entry.state.set(STATE_GONE);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Attach the live host of the identifier, called by the host every time it's created,
+     * including the recreation after config changes
+     *
+     * @param identifier The dialog identifier
+     * @param host       The dialog host
+     * @return True if the host can show the dialog, false if the dialog has been dismissed and
+     * the host has to destroy itself
+     */
+    public static boolean attach(@Nullable String identifier, @NonNull DialogHost host) {
+        if (identifier == null || identifier.length() == 0) {
+            return true;
+        }
+
+        Entry entry = entries.get(identifier);
+        if (entry == null) {
+
+            /*
+             * The host is restored without requesting, like after process death
+             */
+            Entry newEntry = new Entry();
+            entry = entries.putIfAbsent(identifier, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+
+        /*
+         * Publish the host first, so the dismissal either finds this host or is seen below
+         */
+        entry.host.set(host);
+        entry.attached = true;
+
+        while (true) {
+            int state = entry.state.get();
+            if (state == STATE_SHOWN) {
+                return true;
+            }
+            if (state != STATE_PENDING) {
+                return false;
+            }
+            if (entry.state.compareAndSet(STATE_PENDING, STATE_SHOWN)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Detach the host of the identifier, called by the host when it's destroyed
+     *
+     * @param identifier The dialog identifier
+     * @param host       The dialog host
+     * @param finishing  Is the host really going away, false if it's destroyed by config changes
+     */
+    public static void detach(@Nullable String identifier, @NonNull DialogHost host, boolean finishing) {
+        if (identifier == null || identifier.length() == 0) {
+            return;
+        }
+
+        Entry entry = entries.get(identifier);
+        if (entry == null) {
+            return;
+        }
+
+        boolean detached = entry.host.compareAndSet(host, null);
+        if (finishing && (detached || entry.host.get() == null)) {
+            entry.state.set(STATE_GONE);
+            entries.remove(identifier, entry);
+        }
+    }
+
+    /**
+     * Request to dismiss dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     * @return The live host that has to be dismissed, or null if there's no live host, the host
+     * that is not created yet will dismiss itself when attached, if it's not attached within the
+     * dismiss timeout the identifier can be shown again
+     */
+    @Nullable
+    public static DialogHost dismiss(@NonNull String identifier) {
+        Entry entry = entries.get(identifier);
+        if (entry == null) {
+            return null;
+        }
+
+        /*
+         * Stamp it before the transition, so the dismissing entry is never seen without the time
+         */
+        entry.dismissedAt = System.nanoTime();
+        while (true) {
+            int state = entry.state.get();
+            if (state != STATE_PENDING && state != STATE_SHOWN) {
+                return null;
+            }
+            if (entry.state.compareAndSet(state, STATE_DISMISSING)) {
+                return entry.host.get();
+            }
+        }
+    }
+
+    /**
+     * Forget the identifier, so dialog with the identifier can be shown again immediately
+     *
+     * @param identifier The dialog identifier
+     */
+    public static void remove(@NonNull String identifier) {
+        Entry entry = entries.remove(identifier);
+        if (entry != null) {
+            entry.state.set(STATE_GONE);
+        }
+    }
+
+    /**
+     * Set how long a dialog dismissed before its host is created waits for the host, after that
+     * the identifier can be shown again
+     *
+     * @param timeoutMillis The timeout in milliseconds, the default is DEFAULT_DISMISS_TIMEOUT
+     */
+    public static void setDismissTimeout(long timeoutMillis) {
+        dismissTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+    }
+
+    /**
+     * Get the current state of the identifier
+     *
+     * @param identifier The dialog identifier
+     * @return The state, STATE_GONE if the identifier is unknown
+     */
+    public static int getState(@NonNull String identifier) {
+        Entry entry = entries.get(identifier);
+        return entry != null ? entry.state.get() : STATE_GONE;
+    }
+
+    /**
+     * Get the live host of the identifier
+     *
+     * @param identifier The dialog identifier
+     * @return The live host, or null if there's no live host
+     */
+    @Nullable
+    public static DialogHost getHost(@NonNull String identifier) {
+        Entry entry = entries.get(identifier);
+        return entry != null ? entry.host.get() : null;
+    }
+
+    /**
+     * Called by every host when it's created, to keep track of live hosts
+     */
+    public static void onHostCreated() {
+        liveHosts.incrementAndGet();
+    }
+
+    /**
+     * Called by every host when it's destroyed, to keep track of live hosts
+     */
+    public static void onHostDestroyed() {
+        liveHosts.decrementAndGet();
+    }
+
+    /**
+     * Get the count of live hosts, used to check if hosts are leaking
+     *
+     * @return The count of created hosts that are not destroyed yet
+     */
+    public static int getLiveHostCount() {
+        return liveHosts.get();
+    }
+
+    /**
+     * Get the count of identifiers that are not gone yet, used to check if identifiers are leaking
+     *
+     * @return The count of pending, shown and dismissing identifiers
+     */
+    public static int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+        final AtomicReference<DialogHost> host = new AtomicReference<>();
+
+        /**
+         * Flag to indicate that a host has been attached at least once
+         */
+        volatile boolean attached;
+        volatile long dismissedAt;
+
+        /**
+         * Check if the dialog was dismissed before any host was attached and the host is late
+         * for longer than the dismiss timeout
+         */
+        boolean isAbandoned() {
+            return state.get() == STATE_DISMISSING && !attached
+                    && System.nanoTime() - dismissedAt >= dismissTimeoutNanos;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.DialogMetrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of dialog show requests, so bursts of dialogs are shown one after another instead of
+ * stacking hosts on top of each other. Requests are ordered by priority then by arrival, requests
+ * that share a group key are coalesced into the newest one, and only a limited number of
+ * dialogs are on screen at once, the next one is shown after the shown one finishes.
+ * The queue is bounded, and a shown request whose host doesn't attach within the launch timeout
+ * gives its slot back, so a lost launch doesn't stall the queue
+ */
+public class DialogScheduler {
+
+    public static final int PRIORITY_LOW = -10;
+    public static final int PRIORITY_DEFAULT = 0;
+    public static final int PRIORITY_HIGH = 10;
+
+    public static final int DEFAULT_MAX_CONCURRENT = 1;
+    public static final int DEFAULT_MAX_QUEUED = 32;
+
+    /**
+     * How long the shown request waits for its host to attach before its slot is freed, in
+     * milliseconds
+     */
+    public static final long DEFAULT_LAUNCH_TIMEOUT = 10000;
+
+    /**
+     * Ticket id of dialog that is not shown by the scheduler
+     */
+    public static final long NO_TICKET = 0;
+
+    /**
+     * The scheduled show action
+     */
+    public interface Task {
+
+        /**
+         * Show the dialog, the host has to call attached with the ticket when it's created and
+         * finish when the dialog is gone
+         *
+         * @param ticket The ticket id of the request
+         * @return True if the dialog is shown, false if it's dropped, like a duplication, the
+         * ticket is finished immediately in that case
+         */
+        boolean show(long ticket);
+    }
+
+    private final PriorityQueue<Request> mQueue = new PriorityQueue<>(11, new Comparator<Request>() {
+        @Override
+        public int compare(Request left, Request right) {
+            if (left.priority != right.priority) {
+                return left.priority > right.priority ? -1 : 1;
+            }
+            return left.sequence < right.sequence ? -1 : (left.sequence == right.sequence ? 0 : 1);
+        }
+    });
+
+    private final HashMap<String, Request> mGroups = new HashMap<>();
+
+    /**
+     * The shown tickets and the time they're shown, the attached ones are removed from the time
+     */
+    private final HashMap<Long, Long> mActiveTickets = new HashMap<>();
+
+    private int mMaxConcurrent;
+    private int mMaxQueued = DEFAULT_MAX_QUEUED;
+    private long mLaunchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LAUNCH_TIMEOUT);
+    private long mSequence;
+
+    /**
+     * Random high bits of every ticket, so a ticket restored from a previous process never
+     * matches a ticket of this scheduler
+     */
+    private final long mTicketBase = (long) (new Random().nextInt(Integer.MAX_VALUE) + 1) << 32;
+
+    private long mDispatchedCount;
+    private long mLastWaitNanos;
+    private long mMaxWaitNanos;
+    private long mTotalWaitNanos;
+
+    public DialogScheduler() {
+        this(DEFAULT_MAX_CONCURRENT);
+    }
+
+    public DialogScheduler(int maxConcurrent) {
+        this.mMaxConcurrent = Math.max(1, maxConcurrent);
+    }
+
+    /**
+     * Queue the show request, it's shown immediately if there's a free slot. When the queue is
+     * full, the lowest request is dropped, which is this one if nothing queued is lower
+     *
+     * @param identifier The dialog identifier, only used for metrics
+     * @param groupKey   The group key, the queued request with the same key is replaced by this one
+     * @param priority   The priority, higher is shown first
+     * @param task       The show action
+     * @return The ticket id of the request, or NO_TICKET if it's dropped because the queue is full
+     */
+    public long enqueue(@Nullable String identifier, @Nullable String groupKey, int priority, @NonNull Task task) {
+        long ticket;
+        synchronized (this) {
+            Request request = groupKey != null ? mGroups.get(groupKey) : null;
+            if (request != null) {
+
+                /*
+                 * Coalesce into the queued request, the newest content wins but the request keeps
+                 * its place in the queue unless the new priority is higher
+                 */
+                MetricsReporter.report(DialogMetrics.EVENT_COALESCED, request.identifier);
+                request.identifier = identifier;
+                request.task = task;
+                if (priority > request.priority) {
+                    mQueue.remove(request);
+                    request.priority = priority;
+                    mQueue.add(request);
+                }
+            } else {
+                if (mQueue.size() >= mMaxQueued) {
+                    Request lowest = findLowest();
+                    if (lowest.priority >= priority) {
+                        return NO_TICKET;
+                    }
+                    drop(lowest);
+                }
+                long sequence = ++mSequence;
+                request = new Request(sequence, mTicketBase + sequence, identifier, groupKey, priority, task, System.nanoTime());
+                mQueue.add(request);
+                if (groupKey != null) {
+                    mGroups.put(groupKey, request);
+                }
+                MetricsReporter.report(DialogMetrics.EVENT_ENQUEUED, identifier);
+            }
+            ticket = request.ticket;
+        }
+        drain();
+        return ticket;
+    }
+
+    /**
+     * Tell that the host of the shown dialog is created, so its slot is kept until finish
+     *
+     * @param ticket The ticket id of the request
+     */
+    public synchronized void attached(long ticket) {
+        if (mActiveTickets.containsKey(ticket)) {
+            mActiveTickets.put(ticket, null);
+        }
+    }
+
+    /**
+     * Free the slot of the shown dialog if its host is not attached within the launch timeout,
+     * called once the timeout has passed
+     *
+     * @param ticket The ticket id of the request
+     */
+    public void expire(long ticket) {
+        synchronized (this) {
+            if (!isExpired(ticket, System.nanoTime())) {
+                return;
+            }
+            mActiveTickets.remove(ticket);
+        }
+        drain();
+    }
+
+    /**
+     * Free the slot of the shown dialog and show the next one, safe to be called more than once
+     *
+     * @param ticket The ticket id of the request
+     */
+    public void finish(long ticket) {
+        if (ticket == NO_TICKET) {
+            return;
+        }
+        synchronized (this) {
+            if (!mActiveTickets.containsKey(ticket)) {
+                return;
+            }
+            mActiveTickets.remove(ticket);
+        }
+        drain();
+    }
+
+    /**
+     * Drop the queued request of the group key
+     *
+     * @param groupKey The group key
+     * @return True if there's a dropped request
+     */
+    public synchronized boolean cancel(@NonNull String groupKey) {
+        Request request = mGroups.remove(groupKey);
+        return request != null && mQueue.remove(request);
+    }
+
+    /**
+     * Drop all queued requests, the shown dialogs are not affected
+     */
+    public synchronized void clear() {
+        mQueue.clear();
+        mGroups.clear();
+    }
+
+    /**
+     * Set the maximum dialogs shown at once
+     *
+     * @param maxConcurrent The maximum dialogs, at least 1
+     */
+    public void setMaxConcurrent(int maxConcurrent) {
+        synchronized (this) {
+            mMaxConcurrent = Math.max(1, maxConcurrent);
+        }
+        drain();
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return mMaxConcurrent;
+    }
+
+    /**
+     * Set the maximum requests waiting to be shown, the lowest ones are dropped when exceeded
+     *
+     * @param maxQueued The maximum requests, at least 1
+     */
+    public synchronized void setMaxQueued(int maxQueued) {
+        mMaxQueued = Math.max(1, maxQueued);
+        while (mQueue.size() > mMaxQueued) {
+            drop(findLowest());
+        }
+    }
+
+    public synchronized int getMaxQueued() {
+        return mMaxQueued;
+    }
+
+    /**
+     * Set how long the shown request waits for its host to attach before its slot is freed
+     *
+     * @param timeoutMillis The timeout in milliseconds
+     */
+    public synchronized void setLaunchTimeout(long timeoutMillis) {
+        mLaunchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+    }
+
+    public synchronized long getLaunchTimeout() {
+        return TimeUnit.NANOSECONDS.toMillis(mLaunchTimeoutNanos);
+    }
+
+    /**
+     * @return The count of requests waiting to be shown
+     */
+    public synchronized int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * @return The count of dialogs shown by the scheduler that are not finished yet
+     */
+    public synchronized int getActiveCount() {
+        return mActiveTickets.size();
+    }
+
+    public synchronized long getDispatchedCount() {
+        return mDispatchedCount;
+    }
+
+    public synchronized long getLastWaitNanos() {
+        return mLastWaitNanos;
+    }
+
+    public synchronized long getMaxWaitNanos() {
+        return mMaxWaitNanos;
+    }
+
+    public synchronized long getAverageWaitNanos() {
+        return mDispatchedCount > 0 ? mTotalWaitNanos / mDispatchedCount : 0;
+    }
+
+    /**
+     * Show the queued requests while there are free slots, the tasks are run outside the lock
+     * so they can queue or finish other requests
+     */
+    private void drain() {
+        while (true) {
+            Request request;
+            synchronized (this) {
+                if (mQueue.isEmpty()) {
+                    return;
+                }
+                long now = System.nanoTime();
+                if (mActiveTickets.size() >= mMaxConcurrent) {
+                    reclaimExpired(now);
+                    if (mActiveTickets.size() >= mMaxConcurrent) {
+                        return;
+                    }
+                }
+                request = mQueue.poll();
+                if (request.groupKey != null) {
+                    mGroups.remove(request.groupKey);
+                }
+                mActiveTickets.put(request.ticket, now);
+
+                long waitNanos = now - request.enqueuedNanos;
+                mDispatchedCount++;
+                mLastWaitNanos = waitNanos;
+                mTotalWaitNanos += waitNanos;
+                if (waitNanos > mMaxWaitNanos) {
+                    mMaxWaitNanos = waitNanos;
+                }
+            }
+
+            MetricsReporter.report(DialogMetrics.EVENT_DEQUEUED, request.identifier);
+
+            /*
+             * Don't keep the task of the shown request, it may hold the caller
+             */
+            Task task = request.task;
+            request.task = null;
+
+            boolean shown = false;
+            try {
+                shown = task.show(request.ticket);
+            } finally {
+                if (!shown) {
+                    synchronized (this) {
+                        mActiveTickets.remove(request.ticket);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the ticket is shown but its host is not attached within the launch timeout
+     */
+    private boolean isExpired(long ticket, long now) {
+        Long shownNanos = mActiveTickets.get(ticket);
+        return shownNanos != null && now - shownNanos >= mLaunchTimeoutNanos;
+    }
+
+    private void reclaimExpired(long now) {
+        Iterator<Map.Entry<Long, Long>> iterator = mActiveTickets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Long shownNanos = iterator.next().getValue();
+            if (shownNanos != null && now - shownNanos >= mLaunchTimeoutNanos) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Find the queued request that would be shown last, the queue must not be empty
+     */
+    private Request findLowest() {
+        Request lowest = null;
+        for (Request request : mQueue) {
+            if (lowest == null || mQueue.comparator().compare(request, lowest) > 0) {
+                lowest = request;
+            }
+        }
+        return lowest;
+    }
+
+    private void drop(Request request) {
+        mQueue.remove(request);
+        if (request.groupKey != null) {
+            mGroups.remove(request.groupKey);
+        }
+    }
+
+    private static final class Request {
+        final long sequence;
+        final long ticket;
+        final String groupKey;
+        final long enqueuedNanos;
+        String identifier;
+        int priority;
+        Task task;
+
+        Request(long sequence, long ticket, String identifier, String groupKey, int priority, Task task, long enqueuedNanos) {
+            this.sequence = sequence;
+            this.ticket = ticket;
+            this.identifier = identifier;
+            this.groupKey = groupKey;
+            this.priority = priority;
+            this.task = task;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
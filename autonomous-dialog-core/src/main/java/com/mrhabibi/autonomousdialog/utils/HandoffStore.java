@@ -0,0 +1,160 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded and concurrent store that hands an object over from one place to another once, like
+ * the fragment from AutonomousDialog builder to the created host. Entries that are never taken,
+ * because the launch is cancelled for example, are evicted when they're older than the time to
+ * live or when the store is full, so they can't stay in memory forever
+ *
+ * @param <T> The handed over object type
+ */
+public class HandoffStore<T> {
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * Ids in put order, ids are monotonic so the head is always the oldest entry
+     */
+    private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Random part of every id after the prefix, so an id redelivered to a new process, or kept
+     * from a store that's reconfigured, never matches an id of this store
+     */
+    private final String idBase = Long.toHexString(new Random().nextLong() & Long.MAX_VALUE) + "_";
+
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final boolean weakValues;
+
+    /**
+     * HandoffStore's constructor
+     *
+     * @param maxSize    Maximum entries kept at once, the oldest is evicted when exceeded
+     * @param ttlMillis  Time to live of an entry in milliseconds
+     * @param weakValues Keep the objects weakly, so the store never keeps them alive by itself
+     */
+    public HandoffStore(int maxSize, long ttlMillis, boolean weakValues) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size of HandoffStore must be positive!");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1000000L;
+        this.weakValues = weakValues;
+    }
+
+    /**
+     * Keep the object to be taken once later
+     *
+     * @param prefix The id prefix
+     * @param value  The object
+     * @return The id used to take the object
+     */
+    @NonNull
+    public String put(@NonNull String prefix, @NonNull T value) {
+        String id = prefix + idBase + counter.incrementAndGet();
+        slots.put(id, new Slot(weakValues ? new WeakReference<>(value) : value, System.nanoTime()));
+        order.offer(id);
+        evict();
+        return id;
+    }
+
+    /**
+     * Take the object and remove it from the store
+     *
+     * @param id The id returned by put
+     * @return The object, or null if it's already taken, evicted or collected
+     */
+    @Nullable
+    public T take(@Nullable String id) {
+        Slot slot = id != null ? slots.remove(id) : null;
+        if (slot == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        T value = slot.get();
+        if (value == null || isExpired(slot, System.nanoTime())) {
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return value;
+    }
+
+    /**
+     * Evict the entries that are expired or collected, or the oldest ones when the store is full
+     */
+    public void evict() {
+        long now = System.nanoTime();
+        String id;
+        while ((id = order.peek()) != null) {
+            Slot slot = slots.get(id);
+            if (slot != null && !isExpired(slot, now) && slot.get() != null && slots.size() <= maxSize) {
+                return;
+            }
+            if (order.remove(id) && slot != null && slots.remove(id, slot)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void clear() {
+        order.clear();
+        slots.clear();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private boolean isExpired(Slot slot, long now) {
+        return now - slot.createdAt > ttlNanos;
+    }
+
+    private final class Slot {
+        final Object value;
+        final long createdAt;
+
+        Slot(Object value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get() {
+            return weakValues ? ((WeakReference<T>) value).get() : (T) value;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.DialogMetrics;
+
+/**
+ * Holds the process-wide dialog metrics listener and reports the events to it, reporting costs
+ * nothing more than a volatile read when there's no listener
+ */
+public class MetricsReporter {
+
+    private static volatile DialogMetrics metrics;
+
+    public static void setMetrics(@Nullable DialogMetrics dialogMetrics) {
+        metrics = dialogMetrics;
+    }
+
+    public static boolean isEnabled() {
+        return metrics != null;
+    }
+
+    public static void report(int event, @Nullable String identifier) {
+        report(event, identifier, 0);
+    }
+
+    public static void report(int event, @Nullable String identifier, int resultCode) {
+        DialogMetrics dialogMetrics = metrics;
+        if (dialogMetrics != null) {
+            dialogMetrics.onEvent(event, identifier, resultCode, System.nanoTime());
+        }
+    }
+}
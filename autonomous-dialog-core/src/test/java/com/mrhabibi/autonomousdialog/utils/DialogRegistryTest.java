@@ -0,0 +1,202 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import com.mrhabibi.autonomousdialog.DialogHost;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress tests of the show, dismiss and attach races, every test uses its own identifiers since
+ * the registry is process-wide
+ */
+public class DialogRegistryTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2000;
+
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(THREADS);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        DialogRegistry.setDismissTimeout(DialogRegistry.DEFAULT_DISMISS_TIMEOUT);
+        mExecutor.shutdownNow();
+        mExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void concurrentShowRequestsOnlyOneWins() throws Exception {
+        for (int round = 0; round < ROUNDS / 10; round++) {
+            final String identifier = "show-" + round;
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicInteger winners = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(mExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        if (DialogRegistry.requestShow(identifier)) {
+                            winners.incrementAndGet();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            waitAll(futures);
+
+            assertEquals(1, winners.get());
+            DialogRegistry.remove(identifier);
+        }
+    }
+
+    @Test
+    public void dismissRacingAttachIsNeverLost() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final String identifier = "race-" + round;
+            final TestHost host = new TestHost();
+            assertTrue(DialogRegistry.requestShow(identifier));
+
+            final CountDownLatch start = new CountDownLatch(1);
+            Future<Boolean> attached = mExecutor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    start.await();
+                    return DialogRegistry.attach(identifier, host);
+                }
+            });
+            Future<DialogHost> dismissed = mExecutor.submit(new Callable<DialogHost>() {
+                @Override
+                public DialogHost call() throws Exception {
+                    start.await();
+                    return DialogRegistry.dismiss(identifier);
+                }
+            });
+            start.countDown();
+
+            /*
+             * Either the dismissal finds the host, or the host sees the dismissal when attaching
+             */
+            DialogHost dismissedHost = dismissed.get();
+            if (attached.get()) {
+                assertSame(host, dismissedHost);
+            } else {
+                assertTrue(dismissedHost == null || dismissedHost == host);
+            }
+            assertEquals(DialogRegistry.STATE_DISMISSING, DialogRegistry.getState(identifier));
+
+            DialogRegistry.detach(identifier, host, true);
+            assertEquals(DialogRegistry.STATE_GONE, DialogRegistry.getState(identifier));
+        }
+    }
+
+    @Test
+    public void showDismissCyclesDontLeakEntries() throws Exception {
+        final int baseSize = DialogRegistry.size();
+        final int baseHosts = DialogRegistry.getLiveHostCount();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(mExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        String identifier = "cycle-" + thread + "-" + (round % 4);
+                        if (!DialogRegistry.requestShow(identifier)) {
+                            continue;
+                        }
+                        TestHost host = new TestHost();
+                        DialogRegistry.onHostCreated();
+                        DialogRegistry.attach(identifier, host);
+
+                        /*
+                         * Rotate once, the old host is detached without finishing
+                         */
+                        TestHost rotated = new TestHost();
+                        DialogRegistry.onHostCreated();
+                        DialogRegistry.attach(identifier, rotated);
+                        DialogRegistry.detach(identifier, host, false);
+                        DialogRegistry.onHostDestroyed();
+
+                        DialogRegistry.dismiss(identifier);
+                        DialogRegistry.detach(identifier, rotated, true);
+                        DialogRegistry.onHostDestroyed();
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        waitAll(futures);
+
+        assertEquals(baseSize, DialogRegistry.size());
+        assertEquals(baseHosts, DialogRegistry.getLiveHostCount());
+    }
+
+    @Test
+    public void dismissedDialogWithoutHostExpires() throws Exception {
+        String identifier = "abandoned";
+        assertTrue(DialogRegistry.requestShow(identifier));
+        assertNull(DialogRegistry.dismiss(identifier));
+        assertEquals(DialogRegistry.STATE_DISMISSING, DialogRegistry.getState(identifier));
+
+        /*
+         * Still waiting for the host
+         */
+        assertFalse(DialogRegistry.requestShow(identifier));
+
+        DialogRegistry.setDismissTimeout(0);
+        assertTrue(DialogRegistry.requestShow(identifier));
+        assertEquals(DialogRegistry.STATE_PENDING, DialogRegistry.getState(identifier));
+        DialogRegistry.remove(identifier);
+    }
+
+    @Test
+    public void dismissedDialogWithHostDoesntExpire() throws Exception {
+        String identifier = "attached";
+        TestHost host = new TestHost();
+        assertTrue(DialogRegistry.requestShow(identifier));
+        assertTrue(DialogRegistry.attach(identifier, host));
+        assertSame(host, DialogRegistry.dismiss(identifier));
+
+        /*
+         * The host is finishing, the identifier is released by its detach
+         */
+        DialogRegistry.setDismissTimeout(0);
+        assertFalse(DialogRegistry.requestShow(identifier));
+        DialogRegistry.detach(identifier, host, true);
+        assertTrue(DialogRegistry.requestShow(identifier));
+        DialogRegistry.remove(identifier);
+    }
+
+    private static void waitAll(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static class TestHost implements DialogHost {
+
+        @Override
+        public void dismissHost() {
+        }
+    }
+}
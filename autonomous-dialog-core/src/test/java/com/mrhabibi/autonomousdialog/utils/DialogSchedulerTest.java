@@ -0,0 +1,141 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DialogSchedulerTest {
+
+    @Test
+    public void queuedDialogsAreShownOneByOne() {
+        DialogScheduler scheduler = new DialogScheduler();
+        RecordingTask first = new RecordingTask();
+        RecordingTask second = new RecordingTask();
+
+        long firstTicket = scheduler.enqueue("first", null, DialogScheduler.PRIORITY_DEFAULT, first);
+        scheduler.enqueue("second", null, DialogScheduler.PRIORITY_DEFAULT, second);
+        assertEquals(1, first.shown.size());
+        assertTrue(second.shown.isEmpty());
+
+        scheduler.attached(firstTicket);
+        scheduler.finish(firstTicket);
+        assertEquals(1, second.shown.size());
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    public void slotWithoutAttachedHostExpires() {
+        DialogScheduler scheduler = new DialogScheduler();
+        scheduler.setLaunchTimeout(0);
+        RecordingTask lost = new RecordingTask();
+        RecordingTask next = new RecordingTask();
+
+        long lostTicket = scheduler.enqueue("lost", null, DialogScheduler.PRIORITY_DEFAULT, lost);
+        assertEquals(1, scheduler.getActiveCount());
+
+        /*
+         * The host of the first dialog never comes, the timeout frees its slot
+         */
+        scheduler.expire(lostTicket);
+        assertEquals(0, scheduler.getActiveCount());
+
+        scheduler.enqueue("next", null, DialogScheduler.PRIORITY_DEFAULT, next);
+        assertEquals(1, next.shown.size());
+    }
+
+    @Test
+    public void expiredSlotIsReclaimedByTheNextRequest() {
+        DialogScheduler scheduler = new DialogScheduler();
+        scheduler.setLaunchTimeout(0);
+        RecordingTask next = new RecordingTask();
+
+        scheduler.enqueue("lost", null, DialogScheduler.PRIORITY_DEFAULT, new RecordingTask());
+        scheduler.enqueue("next", null, DialogScheduler.PRIORITY_DEFAULT, next);
+        assertEquals(1, next.shown.size());
+    }
+
+    @Test
+    public void attachedSlotDoesntExpire() {
+        DialogScheduler scheduler = new DialogScheduler();
+        scheduler.setLaunchTimeout(0);
+        RecordingTask next = new RecordingTask();
+
+        long ticket = scheduler.enqueue("shown", null, DialogScheduler.PRIORITY_DEFAULT, new RecordingTask());
+        scheduler.attached(ticket);
+        scheduler.expire(ticket);
+        scheduler.enqueue("next", null, DialogScheduler.PRIORITY_DEFAULT, next);
+
+        assertEquals(1, scheduler.getActiveCount());
+        assertTrue(next.shown.isEmpty());
+    }
+
+    @Test
+    public void fullQueueDropsTheLowestRequest() {
+        DialogScheduler scheduler = new DialogScheduler();
+        scheduler.setMaxQueued(2);
+        scheduler.enqueue("shown", null, DialogScheduler.PRIORITY_DEFAULT, new RecordingTask());
+
+        RecordingTask low = new RecordingTask();
+        RecordingTask normal = new RecordingTask();
+        RecordingTask high = new RecordingTask();
+        assertTrue(scheduler.enqueue("low", null, DialogScheduler.PRIORITY_LOW, low) != DialogScheduler.NO_TICKET);
+        assertTrue(scheduler.enqueue("normal", null, DialogScheduler.PRIORITY_DEFAULT, normal) != DialogScheduler.NO_TICKET);
+
+        /*
+         * No room for another low one, the high one takes the room of the low one
+         */
+        assertEquals(DialogScheduler.NO_TICKET, scheduler.enqueue("low2", null, DialogScheduler.PRIORITY_LOW, new RecordingTask()));
+        assertTrue(scheduler.enqueue("high", null, DialogScheduler.PRIORITY_HIGH, high) != DialogScheduler.NO_TICKET);
+        assertEquals(2, scheduler.getQueueDepth());
+
+        scheduler.clear();
+        assertTrue(low.shown.isEmpty());
+    }
+
+    @Test
+    public void ticketOfAnotherSchedulerFreesNothing() {
+        DialogScheduler previous = new DialogScheduler();
+        long staleTicket = previous.enqueue("stale", null, DialogScheduler.PRIORITY_DEFAULT, new RecordingTask());
+
+        /*
+         * Like the scheduler of the new process after process death, same sequence
+         */
+        DialogScheduler scheduler = new DialogScheduler();
+        long ticket = scheduler.enqueue("shown", null, DialogScheduler.PRIORITY_DEFAULT, new RecordingTask());
+        scheduler.attached(ticket);
+
+        assertFalse(staleTicket == ticket);
+        scheduler.finish(staleTicket);
+        assertEquals(1, scheduler.getActiveCount());
+    }
+
+    @Test
+    public void droppedTaskFreesItsSlot() {
+        DialogScheduler scheduler = new DialogScheduler();
+        RecordingTask next = new RecordingTask();
+        scheduler.enqueue("dropped", null, DialogScheduler.PRIORITY_DEFAULT, new DialogScheduler.Task() {
+            @Override
+            public boolean show(long ticket) {
+                return false;
+            }
+        });
+        scheduler.enqueue("next", null, DialogScheduler.PRIORITY_DEFAULT, next);
+        assertEquals(1, next.shown.size());
+    }
+
+    private static class RecordingTask implements DialogScheduler.Task {
+
+        final List<Long> shown = new ArrayList<>();
+
+        @Override
+        public boolean show(long ticket) {
+            shown.add(ticket);
+            return true;
+        }
+    }
+}
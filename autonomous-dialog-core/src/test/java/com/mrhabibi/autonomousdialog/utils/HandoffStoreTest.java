@@ -0,0 +1,54 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HandoffStoreTest {
+
+    @Test
+    public void objectIsTakenOnce() {
+        HandoffStore<Object> store = new HandoffStore<>(4, 60 * 1000L, false);
+        Object value = new Object();
+
+        String id = store.put("AlertDialog_", value);
+        assertTrue(id.startsWith("AlertDialog_"));
+        assertEquals(1, store.size());
+
+        assertSame(value, store.take(id));
+        assertNull(store.take(id));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void idsOfAnotherStoreAreNotTaken() {
+        /*
+         * Like an id redelivered after process death, the new store counts from the start again
+         */
+        HandoffStore<Object> previous = new HandoffStore<>(4, 60 * 1000L, false);
+        HandoffStore<Object> current = new HandoffStore<>(4, 60 * 1000L, false);
+
+        String previousId = previous.put("AlertDialog_", new Object());
+        String currentId = current.put("AlertDialog_", new Object());
+
+        assertNotEquals(previousId, currentId);
+        assertNull(current.take(previousId));
+        assertEquals(1, current.size());
+    }
+
+    @Test
+    public void oldestIsEvictedWhenFull() {
+        HandoffStore<Object> store = new HandoffStore<>(2, 60 * 1000L, false);
+        String first = store.put("DialogFragment_", new Object());
+        store.put("DialogFragment_", new Object());
+        store.put("DialogFragment_", new Object());
+
+        assertEquals(2, store.size());
+        assertNull(store.take(first));
+        assertEquals(1, store.getEvictions());
+    }
+}
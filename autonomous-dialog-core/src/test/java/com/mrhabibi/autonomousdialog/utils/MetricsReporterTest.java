@@ -0,0 +1,138 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import com.mrhabibi.autonomousdialog.DialogMetrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsReporterTest {
+
+    @After
+    public void tearDown() {
+        MetricsReporter.setMetrics(null);
+    }
+
+    @Test
+    public void reportingWithoutListenerDoesNothing() {
+        MetricsReporter.setMetrics(null);
+        assertFalse(MetricsReporter.isEnabled());
+        MetricsReporter.report(DialogMetrics.EVENT_SHOW_REQUESTED, "none");
+    }
+
+    @Test
+    public void eventsAreReportedWithTimestamps() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        MetricsReporter.setMetrics(metrics);
+        assertTrue(MetricsReporter.isEnabled());
+
+        long before = System.nanoTime();
+        MetricsReporter.report(DialogMetrics.EVENT_SHOW_REQUESTED, "dialog");
+        MetricsReporter.report(DialogMetrics.EVENT_RESULT_DELIVERED, "dialog", -1);
+        MetricsReporter.report(DialogMetrics.EVENT_DISMISSED, null);
+        long after = System.nanoTime();
+
+        assertEquals(3, metrics.events.size());
+
+        Event shown = metrics.events.get(0);
+        assertEquals(DialogMetrics.EVENT_SHOW_REQUESTED, shown.event);
+        assertEquals("dialog", shown.identifier);
+        assertEquals(0, shown.resultCode);
+
+        Event delivered = metrics.events.get(1);
+        assertEquals(DialogMetrics.EVENT_RESULT_DELIVERED, delivered.event);
+        assertEquals(-1, delivered.resultCode);
+
+        Event dismissed = metrics.events.get(2);
+        assertNull(dismissed.identifier);
+
+        /*
+         * Timestamps are taken when reported, in order
+         */
+        assertTrue(shown.timestampNanos >= before);
+        assertTrue(delivered.timestampNanos >= shown.timestampNanos);
+        assertTrue(dismissed.timestampNanos >= delivered.timestampNanos);
+        assertTrue(dismissed.timestampNanos <= after);
+    }
+
+    @Test
+    public void removedListenerGetsNothing() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        MetricsReporter.setMetrics(metrics);
+        MetricsReporter.report(DialogMetrics.EVENT_SHOW_REQUESTED, "dialog");
+        MetricsReporter.setMetrics(null);
+        MetricsReporter.report(DialogMetrics.EVENT_DISMISSED, "dialog");
+
+        assertEquals(1, metrics.events.size());
+    }
+
+    @Test
+    public void everyEventFromEveryThreadIsReported() throws Exception {
+        final int threads = 8;
+        final int events = 5000;
+        final AtomicInteger count = new AtomicInteger();
+        MetricsReporter.setMetrics(new DialogMetrics() {
+            @Override
+            public void onEvent(int event, String identifier, int resultCode, long timestampNanos) {
+                count.incrementAndGet();
+            }
+        });
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int event = 0; event < events; event++) {
+                            MetricsReporter.report(DialogMetrics.EVENT_BUTTON_CHOSEN, "dialog", event);
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertEquals(threads * events, count.get());
+    }
+
+    private static class RecordingMetrics implements DialogMetrics {
+
+        final List<Event> events = new ArrayList<>();
+
+        @Override
+        public void onEvent(int event, String identifier, int resultCode, long timestampNanos) {
+            events.add(new Event(event, identifier, resultCode, timestampNanos));
+        }
+    }
+
+    private static class Event {
+
+        final int event;
+        final String identifier;
+        final int resultCode;
+        final long timestampNanos;
+
+        Event(int event, String identifier, int resultCode, long timestampNanos) {
+            this.event = event;
+            this.identifier = identifier;
+            this.resultCode = resultCode;
+            this.timestampNanos = timestampNanos;
+        }
+    }
+}
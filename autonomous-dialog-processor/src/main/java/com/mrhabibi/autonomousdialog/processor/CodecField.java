@@ -0,0 +1,99 @@
+package com.mrhabibi.autonomousdialog.processor;
+
+/**
+ * Annotated field of a dialog wrapper and how it's put in a bundle
+ */
+final class CodecField {
+
+    /**
+     * The field name, like mMaxStars
+     */
+    final String mName;
+
+    /**
+     * The bundle key, like maxStars
+     */
+    final String mKey;
+
+    /**
+     * The key constant, like MAX_STARS_LABEL
+     */
+    final String mLabel;
+
+    /**
+     * The builder method, like maxStars
+     */
+    final String mBuilderName;
+
+    /**
+     * The source type of the field
+     */
+    final String mType;
+
+    /**
+     * The erasure of the type, methods with the same erasure can't be overloaded
+     */
+    final String mErasedType;
+
+    /**
+     * The suffix of the Bundle put and get methods, like Int for putInt and getInt
+     */
+    final String mBundleType;
+
+    /**
+     * Flag to indicate that the value of the get method is casted to the field type
+     */
+    final boolean mCast;
+
+    final boolean mArg;
+    final boolean mState;
+    final boolean mResponse;
+
+    CodecField(String name, String key, String type, String erasedType, String bundleType, boolean cast, boolean arg, boolean state, boolean response) {
+        this.mName = name;
+        this.mKey = key;
+        this.mLabel = toConstantName(key) + "_LABEL";
+        this.mBuilderName = toPropertyName(name);
+        this.mType = type;
+        this.mErasedType = erasedType;
+        this.mBundleType = bundleType;
+        this.mCast = cast;
+        this.mArg = arg;
+        this.mState = state;
+        this.mResponse = response;
+    }
+
+    /**
+     * Drop the m prefix of the field name, mMaxStars becomes maxStars
+     *
+     * @param fieldName The field name
+     * @return The property name
+     */
+    static String toPropertyName(String fieldName) {
+        if (fieldName.length() > 1 && fieldName.charAt(0) == 'm' && Character.isUpperCase(fieldName.charAt(1))) {
+            return Character.toLowerCase(fieldName.charAt(1)) + fieldName.substring(2);
+        }
+        return fieldName;
+    }
+
+    /**
+     * Make the constant name of the key, maxStars becomes MAX_STARS
+     *
+     * @param key The key
+     * @return The constant name
+     */
+    static String toConstantName(String key) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(key.charAt(i - 1))) {
+                name.append('_');
+            }
+            name.append(Character.isJavaIdentifierPart(c) ? Character.toUpperCase(c) : '_');
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, '_');
+        }
+        return name.toString();
+    }
+}
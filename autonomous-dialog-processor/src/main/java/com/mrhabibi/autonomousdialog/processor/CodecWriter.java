@@ -0,0 +1,221 @@
+package com.mrhabibi.autonomousdialog.processor;
+
+import java.util.List;
+
+/**
+ * Write the source of the dialog codec class
+ */
+final class CodecWriter {
+
+    private static final String BUNDLE = "android.os.Bundle";
+
+    private final String mPackageName;
+    private final String mCodecName;
+    private final String mWrapperName;
+    private final List<CodecField> mFields;
+
+    /**
+     * The super class of the builder, null if the wrapper has no builder
+     */
+    private final String mBuilderBase;
+    private final List<InheritedMethod> mInheritedMethods;
+
+    private final StringBuilder mOut = new StringBuilder();
+
+    CodecWriter(String packageName, String codecName, String wrapperName, List<CodecField> fields, String builderBase, List<InheritedMethod> inheritedMethods) {
+        this.mPackageName = packageName;
+        this.mCodecName = codecName;
+        this.mWrapperName = wrapperName;
+        this.mFields = fields;
+        this.mBuilderBase = builderBase;
+        this.mInheritedMethods = inheritedMethods;
+    }
+
+    String write() {
+        line(0, "// Generated by autonomous-dialog-processor, don't edit");
+        if (!mPackageName.isEmpty()) {
+            line(0, "package " + mPackageName + ";");
+        }
+        line(0, "");
+        line(0, "/**");
+        line(0, " * Codec of " + mWrapperName + " fields, call restore in onCreate, save in");
+        line(0, " * onSaveInstanceState and bundleResponses in onBundleResponses");
+        line(0, " */");
+        line(0, "public final class " + mCodecName + " {");
+        line(0, "");
+
+        for (CodecField field : mFields) {
+            line(1, "public static final String " + field.mLabel + " = \"" + escape(field.mKey) + "\";");
+        }
+        line(0, "");
+        line(1, "private " + mCodecName + "() {");
+        line(1, "}");
+        line(0, "");
+
+        writeRestore();
+        writeSave();
+        writeBundleResponses();
+        if (mBuilderBase != null) {
+            writeBuilder();
+        }
+
+        line(0, "}");
+        return mOut.toString();
+    }
+
+    private void writeRestore() {
+        line(1, "/**");
+        line(1, " * Read the fields from the arguments, then from the saved state");
+        line(1, " */");
+        if (hasCast()) {
+            line(1, "@SuppressWarnings(\"unchecked\")");
+        }
+        line(1, "public static void restore(" + mWrapperName + " target, " + BUNDLE + " arguments, " + BUNDLE + " savedInstanceState) {");
+        line(2, "if (arguments != null) {");
+        for (CodecField field : mFields) {
+            if (field.mArg) {
+                writeGet(3, field, "arguments");
+            }
+        }
+        line(2, "}");
+        line(2, "if (savedInstanceState != null) {");
+        for (CodecField field : mFields) {
+            if (field.mArg || field.mState) {
+                writeGet(3, field, "savedInstanceState");
+            }
+        }
+        line(2, "}");
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeSave() {
+        line(1, "public static void save(" + mWrapperName + " target, " + BUNDLE + " outState) {");
+        for (CodecField field : mFields) {
+            if (field.mArg || field.mState) {
+                line(2, "outState.put" + field.mBundleType + "(" + field.mLabel + ", target." + field.mName + ");");
+            }
+        }
+        line(1, "}");
+        line(0, "");
+    }
+
+    private void writeBundleResponses() {
+        line(1, "public static void bundleResponses(" + mWrapperName + " target, " + BUNDLE + " responses) {");
+        for (CodecField field : mFields) {
+            if (field.mResponse) {
+                line(2, "responses.put" + field.mBundleType + "(" + field.mLabel + ", target." + field.mName + ");");
+            }
+        }
+        line(1, "}");
+    }
+
+    private void writeBuilder() {
+        line(0, "");
+        line(1, "public static Builder newBuilder() {");
+        line(2, "return new Builder();");
+        line(1, "}");
+        line(0, "");
+        line(1, "public static class Builder extends " + mBuilderBase + " {");
+        for (CodecField field : mFields) {
+            if (!field.mArg) {
+                continue;
+            }
+            line(0, "");
+            line(2, "public Builder " + field.mBuilderName + "(" + field.mType + " value) {");
+            line(3, "arguments.put" + field.mBundleType + "(" + field.mLabel + ", value);");
+            line(3, "return this;");
+            line(2, "}");
+        }
+        for (InheritedMethod method : mInheritedMethods) {
+            if (hasBuilderMethod(method)) {
+                continue;
+            }
+            StringBuilder parameters = new StringBuilder();
+            StringBuilder arguments = new StringBuilder();
+            for (int i = 0; i < method.mParameterTypes.size(); i++) {
+                if (i > 0) {
+                    parameters.append(", ");
+                    arguments.append(", ");
+                }
+                parameters.append(method.mParameterTypes.get(i)).append(' ').append(method.mParameterNames.get(i));
+                arguments.append(method.mParameterNames.get(i));
+            }
+            line(0, "");
+            line(2, "@Override");
+            line(2, "public Builder " + method.mName + "(" + parameters + ") {");
+            line(3, "super." + method.mName + "(" + arguments + ");");
+            line(3, "return this;");
+            line(2, "}");
+        }
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public " + mWrapperName + " build() {");
+        line(3, mWrapperName + " dialogWrapper = new " + mWrapperName + "();");
+        line(3, "dialogWrapper.setArguments(arguments);");
+        line(3, "return dialogWrapper;");
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void writeGet(int indent, CodecField field, String bundle) {
+        line(indent, "if (" + bundle + ".containsKey(" + field.mLabel + ")) {");
+        line(indent + 1, "target." + field.mName + " = " + (field.mCast ? "(" + field.mType + ") " : "") + bundle + ".get" + field.mBundleType + "(" + field.mLabel + ");");
+        line(indent, "}");
+    }
+
+    /**
+     * Check if the inherited method is replaced by the builder method of a field, only when it
+     * takes the same type, an overload of another type must still be overridden
+     */
+    private boolean hasBuilderMethod(InheritedMethod method) {
+        for (CodecField field : mFields) {
+            if (field.mArg && field.mBuilderName.equals(method.mName) && method.mErasedParameterTypes.size() == 1
+                    && field.mErasedType.equals(method.mErasedParameterTypes.get(0))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasCast() {
+        for (CodecField field : mFields) {
+            if (field.mCast) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void line(int indent, String text) {
+        if (!text.isEmpty()) {
+            for (int i = 0; i < indent; i++) {
+                mOut.append("    ");
+            }
+            mOut.append(text);
+        }
+        mOut.append('\n');
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Method of the base builder that returns the builder
+     */
+    static final class InheritedMethod {
+
+        final String mName;
+        final List<String> mParameterTypes;
+        final List<String> mErasedParameterTypes;
+        final List<String> mParameterNames;
+
+        InheritedMethod(String name, List<String> parameterTypes, List<String> erasedParameterTypes, List<String> parameterNames) {
+            this.mName = name;
+            this.mParameterTypes = parameterTypes;
+            this.mErasedParameterTypes = erasedParameterTypes;
+            this.mParameterNames = parameterNames;
+        }
+    }
+}
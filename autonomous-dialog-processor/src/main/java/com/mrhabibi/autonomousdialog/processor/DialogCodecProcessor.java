@@ -0,0 +1,477 @@
+package com.mrhabibi.autonomousdialog.processor;
+
+import com.mrhabibi.autonomousdialog.annotation.DialogArg;
+import com.mrhabibi.autonomousdialog.annotation.DialogResponseExtra;
+import com.mrhabibi.autonomousdialog.annotation.DialogState;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generate the WrapperName_DialogCodec class of every dialog wrapper that has DialogArg,
+ * DialogState or DialogResponseExtra fields. The codec reads and writes the fields from the
+ * arguments, the saved state and the responses in straight codes without reflection, and has the
+ * builder of the wrapper when it's not abstract
+ */
+public class DialogCodecProcessor extends AbstractProcessor {
+
+    static final String CODEC_SUFFIX = "_DialogCodec";
+
+    private static final String DIALOG_WRAPPER = "com.mrhabibi.autonomousdialog.wrapper.DialogWrapper";
+    private static final String BUNDLE = "android.os.Bundle";
+    private static final String PARCELABLE = "android.os.Parcelable";
+
+    private Elements mElements;
+    private Types mTypes;
+    private Messager mMessager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+        mMessager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        types.add(DialogArg.class.getCanonicalName());
+        types.add(DialogState.class.getCanonicalName());
+        types.add(DialogResponseExtra.class.getCanonicalName());
+        return types;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        /*
+         * Group the fields by their wrapper, in the declaration order
+         */
+        Map<TypeElement, Set<VariableElement>> wrappers = new LinkedHashMap<>();
+        collectFields(roundEnv, DialogArg.class, wrappers);
+        collectFields(roundEnv, DialogState.class, wrappers);
+        collectFields(roundEnv, DialogResponseExtra.class, wrappers);
+
+        for (Map.Entry<TypeElement, Set<VariableElement>> entry : wrappers.entrySet()) {
+            List<CodecField> fields = new ArrayList<>();
+            boolean valid = checkWrapper(entry.getKey());
+            for (VariableElement field : sortByDeclaration(entry.getKey(), entry.getValue())) {
+                CodecField codecField = makeField(field);
+                if (codecField == null) {
+                    valid = false;
+                } else {
+                    fields.add(codecField);
+                }
+            }
+            if (valid && checkLabels(entry.getKey(), fields)) {
+                writeCodec(entry.getKey(), fields);
+            }
+        }
+        return true;
+    }
+
+    private void collectFields(RoundEnvironment roundEnv, Class<? extends Annotation> annotation, Map<TypeElement, Set<VariableElement>> wrappers) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            TypeElement wrapper = (TypeElement) element.getEnclosingElement();
+            Set<VariableElement> fields = wrappers.get(wrapper);
+            if (fields == null) {
+                fields = new HashSet<>();
+                wrappers.put(wrapper, fields);
+            }
+            fields.add((VariableElement) element);
+        }
+    }
+
+    private List<VariableElement> sortByDeclaration(TypeElement wrapper, Set<VariableElement> fields) {
+        List<VariableElement> sorted = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(wrapper.getEnclosedElements())) {
+            if (fields.contains(field)) {
+                sorted.add(field);
+            }
+        }
+        return sorted;
+    }
+
+    private boolean checkWrapper(TypeElement wrapper) {
+        TypeElement dialogWrapper = mElements.getTypeElement(DIALOG_WRAPPER);
+        if (dialogWrapper == null || !mTypes.isSubtype(mTypes.erasure(wrapper.asType()), mTypes.erasure(dialogWrapper.asType()))) {
+            error(wrapper, "%s must extend DialogWrapper to have dialog codec fields", wrapper.getSimpleName());
+            return false;
+        }
+        if (!wrapper.getTypeParameters().isEmpty()) {
+            error(wrapper, "%s must not be generic to have dialog codec fields", wrapper.getSimpleName());
+            return false;
+        }
+        if (wrapper.getNestingKind().isNested() && !wrapper.getModifiers().contains(Modifier.STATIC)) {
+            error(wrapper, "%s must be static to have dialog codec fields", wrapper.getSimpleName());
+            return false;
+        }
+        return true;
+    }
+
+    private CodecField makeField(VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+            error(field, "Dialog codec field %s must not be private, static, nor final", field.getSimpleName());
+            return null;
+        }
+
+        DialogArg arg = field.getAnnotation(DialogArg.class);
+        DialogState state = field.getAnnotation(DialogState.class);
+        DialogResponseExtra response = field.getAnnotation(DialogResponseExtra.class);
+
+        /*
+         * The key can be set on any of the annotations, but only once
+         */
+        String key = null;
+        for (String value : new String[]{arg != null ? arg.value() : "", state != null ? state.value() : "", response != null ? response.value() : ""}) {
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (key != null && !key.equals(value)) {
+                error(field, "Dialog codec field %s has different keys \"%s\" and \"%s\"", field.getSimpleName(), key, value);
+                return null;
+            }
+            key = value;
+        }
+        String name = field.getSimpleName().toString();
+        if (key == null) {
+            key = CodecField.toPropertyName(name);
+        }
+
+        TypeMirror type = field.asType();
+        String bundleType = getBundleType(type);
+        if (bundleType == null) {
+            error(field, "Type %s of dialog codec field %s can't be put in a Bundle", type, name);
+            return null;
+        }
+
+        CodecField codecField = new CodecField(name, key, type.toString(), mTypes.erasure(type).toString(), bundleType, bundleType.equals("Serializable"), arg != null, state != null, response != null);
+        if (arg != null && SourceVersion.isKeyword(codecField.mBuilderName)) {
+            error(field, "Builder method of dialog codec field %s can't be the keyword %s", name, codecField.mBuilderName);
+            return null;
+        }
+        return codecField;
+    }
+
+    private boolean checkLabels(TypeElement wrapper, List<CodecField> fields) {
+        Set<String> labels = new HashSet<>();
+        Map<String, String> inheritedKeys = collectInheritedKeys(wrapper);
+        for (CodecField field : fields) {
+            if (!labels.add(field.mLabel)) {
+                error(wrapper, "Dialog codec fields of %s have the same key constant %s", wrapper.getSimpleName(), field.mLabel);
+                return false;
+            }
+            String inheritedKey = inheritedKeys.get(field.mKey);
+            if (inheritedKey != null) {
+                error(wrapper, "Dialog codec field %s of %s has the key \"%s\" of %s", field.mName, wrapper.getSimpleName(), field.mKey, inheritedKey);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collect the string constants of the super classes up to DialogWrapper, like TITLE_LABEL of
+     * BasicDialogWrapper, they're the keys the super classes read from the same bundles
+     *
+     * @param wrapper The wrapper
+     * @return The constant names, like BasicDialogWrapper.TITLE_LABEL, by their values
+     */
+    private Map<String, String> collectInheritedKeys(TypeElement wrapper) {
+        Map<String, String> keys = new HashMap<>();
+        TypeMirror superclass = wrapper.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) mTypes.asElement(superclass);
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                Object value = field.getConstantValue();
+                if (value instanceof String && !keys.containsKey(value)) {
+                    keys.put((String) value, element.getSimpleName() + "." + field.getSimpleName());
+                }
+            }
+            if (element.getQualifiedName().contentEquals(DIALOG_WRAPPER)) {
+                break;
+            }
+            superclass = element.getSuperclass();
+        }
+        return keys;
+    }
+
+    /**
+     * Get the suffix of the Bundle put and get methods of the type
+     *
+     * @param type The field type
+     * @return The suffix, or null if the type can't be put in a Bundle
+     */
+    private String getBundleType(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case CHAR:
+                return "Char";
+            case SHORT:
+                return "Short";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            case ARRAY:
+                TypeMirror component = ((ArrayType) type).getComponentType();
+                if (component.getKind().isPrimitive()) {
+                    return getBundleType(component) + "Array";
+                }
+                if (isType(component, String.class.getName())) {
+                    return "StringArray";
+                }
+                if (isType(component, CharSequence.class.getName())) {
+                    return "CharSequenceArray";
+                }
+                return null;
+            case DECLARED:
+                if (isType(type, String.class.getName())) {
+                    return "String";
+                }
+                if (isType(type, CharSequence.class.getName())) {
+                    return "CharSequence";
+                }
+                if (isType(type, BUNDLE)) {
+                    return "Bundle";
+                }
+                if (isType(mTypes.erasure(type), ArrayList.class.getName())) {
+                    List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+                    if (arguments.size() == 1) {
+                        TypeMirror argument = arguments.get(0);
+                        if (isType(argument, String.class.getName())) {
+                            return "StringArrayList";
+                        }
+                        if (isType(argument, Integer.class.getName())) {
+                            return "IntegerArrayList";
+                        }
+                        if (isType(argument, CharSequence.class.getName())) {
+                            return "CharSequenceArrayList";
+                        }
+                        if (isSubtype(argument, PARCELABLE)) {
+                            return "ParcelableArrayList";
+                        }
+                    }
+                }
+                if (isSubtype(type, PARCELABLE)) {
+                    return "Parcelable";
+                }
+                if (isSubtype(type, java.io.Serializable.class.getName())) {
+                    return "Serializable";
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    private boolean isType(TypeMirror type, String className) {
+        return type.getKind() == TypeKind.DECLARED && ((TypeElement) mTypes.asElement(type)).getQualifiedName().contentEquals(className);
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeElement element = mElements.getTypeElement(className);
+        return element != null && mTypes.isAssignable(type, element.asType());
+    }
+
+    private void writeCodec(TypeElement wrapper, List<CodecField> fields) {
+        String packageName = mElements.getPackageOf(wrapper).getQualifiedName().toString();
+        String codecName = getCodecName(wrapper);
+        String wrapperName = wrapper.getQualifiedName().toString();
+
+        String builderBase = null;
+        List<CodecWriter.InheritedMethod> inheritedMethods = new ArrayList<>();
+        if (hasBuilder(wrapper)) {
+            TypeElement baseBuilder = findBaseBuilder(wrapper);
+            if (baseBuilder != null) {
+                builderBase = baseBuilder.getQualifiedName().toString();
+                collectInheritedMethods(baseBuilder, inheritedMethods);
+                if (!checkBuilderMethods(wrapper, fields, inheritedMethods)) {
+                    return;
+                }
+            } else {
+                builderBase = DIALOG_WRAPPER + ".Builder<" + wrapperName + ">";
+            }
+        }
+
+        CodecWriter writer = new CodecWriter(packageName, codecName, wrapperName, fields, builderBase, inheritedMethods);
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? codecName : packageName + "." + codecName, wrapper);
+            Writer out = file.openWriter();
+            try {
+                out.write(writer.write());
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            error(wrapper, "Failed to write %s: %s", codecName, e.getMessage());
+        }
+    }
+
+    /**
+     * Find the Builder of the nearest super class, like BasicDialogWrapper.Builder, so the
+     * generated builder has the methods of the super class too
+     *
+     * @param wrapper The wrapper
+     * @return The builder, or null to use DialogWrapper.Builder
+     */
+    private TypeElement findBaseBuilder(TypeElement wrapper) {
+        TypeMirror dialogWrapperBuilder = mTypes.erasure(mElements.getTypeElement(DIALOG_WRAPPER + ".Builder").asType());
+        TypeMirror superclass = wrapper.getSuperclass();
+        while (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) mTypes.asElement(superclass);
+            if (element.getQualifiedName().contentEquals(DIALOG_WRAPPER)) {
+                return null;
+            }
+            for (TypeElement member : ElementFilter.typesIn(element.getEnclosedElements())) {
+                if (member.getSimpleName().contentEquals("Builder")
+                        && member.getModifiers().contains(Modifier.PUBLIC)
+                        && member.getModifiers().contains(Modifier.STATIC)
+                        && member.getTypeParameters().isEmpty()
+                        && mTypes.isSubtype(member.asType(), dialogWrapperBuilder)
+                        && hasEmptyConstructor(member)) {
+                    return member;
+                }
+            }
+            superclass = element.getSuperclass();
+        }
+        return null;
+    }
+
+    /**
+     * Collect the methods of the base builder that return the builder, they're overridden to
+     * return the generated builder so the calls can be chained in any order
+     */
+    private void collectInheritedMethods(TypeElement baseBuilder, List<CodecWriter.InheritedMethod> methods) {
+        TypeMirror dialogWrapperBuilder = mTypes.erasure(mElements.getTypeElement(DIALOG_WRAPPER + ".Builder").asType());
+        for (ExecutableElement method : ElementFilter.methodsIn(mElements.getAllMembers(baseBuilder))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            TypeMirror returnType = method.getReturnType();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)
+                    || !method.getTypeParameters().isEmpty()
+                    || returnType.getKind() != TypeKind.DECLARED
+                    || !mTypes.isSubtype(mTypes.erasure(returnType), dialogWrapperBuilder)
+                    || !mTypes.isAssignable(baseBuilder.asType(), returnType)) {
+                continue;
+            }
+            List<String> parameterTypes = new ArrayList<>();
+            List<String> erasedParameterTypes = new ArrayList<>();
+            List<String> parameterNames = new ArrayList<>();
+            for (VariableElement parameter : method.getParameters()) {
+                parameterTypes.add(parameter.asType().toString());
+                erasedParameterTypes.add(mTypes.erasure(parameter.asType()).toString());
+                parameterNames.add(parameter.getSimpleName().toString());
+            }
+            methods.add(new CodecWriter.InheritedMethod(method.getSimpleName().toString(), parameterTypes, erasedParameterTypes, parameterNames));
+        }
+    }
+
+    /**
+     * The builder method of a field can't have the erasure of an inherited method with another
+     * type, like ArrayList of String and ArrayList of Integer, it would neither override nor
+     * overload it
+     */
+    private boolean checkBuilderMethods(TypeElement wrapper, List<CodecField> fields, List<CodecWriter.InheritedMethod> inheritedMethods) {
+        for (CodecField field : fields) {
+            if (!field.mArg) {
+                continue;
+            }
+            for (CodecWriter.InheritedMethod method : inheritedMethods) {
+                if (method.mName.equals(field.mBuilderName) && method.mErasedParameterTypes.size() == 1
+                        && method.mErasedParameterTypes.get(0).equals(field.mErasedType)
+                        && !method.mParameterTypes.get(0).equals(field.mType)) {
+                    error(wrapper, "Builder method %s(%s) of dialog codec field %s clashes with the inherited %s(%s)",
+                            field.mBuilderName, field.mType, field.mName, method.mName, method.mParameterTypes.get(0));
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The builder is made only for the wrappers that can be made with the empty constructor
+     */
+    private boolean hasBuilder(TypeElement wrapper) {
+        if (wrapper.getModifiers().contains(Modifier.ABSTRACT) || !wrapper.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        return hasEmptyConstructor(wrapper);
+    }
+
+    private boolean hasEmptyConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the codec class name, the nested wrapper Outer.Inner has Outer_Inner_DialogCodec
+     *
+     * @param wrapper The wrapper
+     * @return The codec class name
+     */
+    static String getCodecName(TypeElement wrapper) {
+        StringBuilder name = new StringBuilder(wrapper.getSimpleName());
+        Element enclosing = wrapper.getEnclosingElement();
+        while (enclosing instanceof TypeElement) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(CODEC_SUFFIX).toString();
+    }
+
+    private void error(Element element, String format, Object... args) {
+        mMessager.printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+    }
+}
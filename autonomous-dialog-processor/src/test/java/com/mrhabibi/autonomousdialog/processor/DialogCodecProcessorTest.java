@@ -0,0 +1,166 @@
+package com.mrhabibi.autonomousdialog.processor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run javac with the processor on the fixture wrappers of src/test/resources/fixtures, against
+ * the stubs of Bundle and the wrappers of src/test/resources/stubs, and compile the generated
+ * codecs with the classes that use them
+ */
+public class DialogCodecProcessorTest {
+
+    private File mOutput;
+    private String mErrors;
+
+    @Before
+    public void setUp() throws IOException {
+        mOutput = Files.createTempDirectory("dialog-codec").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(mOutput);
+    }
+
+    @Test
+    public void generatedCodecCompiles() throws Exception {
+        assertTrue(mErrors, compile("RatingDialogWrapper", "RatingUsage"));
+
+        String codec = readGenerated("RatingDialogWrapper");
+        assertTrue(codec.contains("public static final String MAX_STARS_LABEL = \"maxStars\";"));
+        assertTrue(codec.contains("public static final String RATING_HINT_LABEL = \"ratingHint\";"));
+        assertTrue(codec.contains("responses.putInt(STARS_LABEL, target.mStars);"));
+    }
+
+    @Test
+    public void inheritedMethodOfAnotherTypeKeepsTheBuilderType() throws Exception {
+        assertTrue(mErrors, compile("TitleResDialogWrapper", "TitleResUsage"));
+
+        String codec = readGenerated("TitleResDialogWrapper");
+        assertTrue(codec.contains("public Builder title(int value) {"));
+        assertTrue(codec.contains("public Builder title(java.lang.CharSequence title) {"));
+    }
+
+    @Test
+    public void inheritedMethodOfTheSameTypeIsReplaced() throws Exception {
+        assertTrue(mErrors, compile("HeadingDialogWrapper"));
+
+        String codec = readGenerated("HeadingDialogWrapper");
+        assertEquals(1, count(codec, "public Builder title("));
+        assertTrue(codec.contains("arguments.putCharSequence(HEADING_LABEL, value);"));
+    }
+
+    @Test
+    public void keyOfTheBaseWrapperIsRejected() throws Exception {
+        assertFalse(compile("TitleKeyDialogWrapper"));
+        assertTrue(mErrors, mErrors.contains("BasicDialogWrapper.TITLE_LABEL"));
+        assertFalse(new File(mOutput, "com/example/TitleKeyDialogWrapper" + DialogCodecProcessor.CODEC_SUFFIX + ".java").exists());
+    }
+
+    @Test
+    public void stateKeyOfDialogWrapperIsRejected() throws Exception {
+        assertFalse(compile("ResultCodeDialogWrapper"));
+        assertTrue(mErrors, mErrors.contains("DialogWrapper.RESULT_CODE_STATE"));
+    }
+
+    /**
+     * Compile the fixtures with the stubs, the generated sources and classes go to the output
+     *
+     * @param fixtures The fixture class names in com.example
+     * @return True if compiled without errors
+     */
+    private boolean compile(String... fixtures) throws URISyntaxException {
+        List<File> sources = new ArrayList<>();
+        collectSources(resource("stubs"), sources);
+        File fixtureDirectory = new File(resource("fixtures"), "com/example");
+        for (String fixture : fixtures) {
+            sources.add(new File(fixtureDirectory, fixture + ".java"));
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.US, null);
+        List<String> options = Arrays.asList(
+                "-d", mOutput.getPath(),
+                "-s", mOutput.getPath(),
+                "-classpath", System.getProperty("java.class.path"));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                fileManager.getJavaFileObjectsFromFiles(sources));
+        task.setProcessors(Collections.singletonList(new DialogCodecProcessor()));
+        boolean success = task.call();
+
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic.getMessage(Locale.US)).append('\n');
+            }
+        }
+        mErrors = errors.toString();
+        return success;
+    }
+
+    private String readGenerated(String wrapper) throws IOException {
+        File file = new File(mOutput, "com/example/" + wrapper + DialogCodecProcessor.CODEC_SUFFIX + ".java");
+        return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+    }
+
+    private static File resource(String name) throws URISyntaxException {
+        return new File(DialogCodecProcessorTest.class.getResource("/" + name).toURI());
+    }
+
+    private static void collectSources(File directory, List<File> sources) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectSources(file, sources);
+            } else if (file.getName().endsWith(".java")) {
+                sources.add(file);
+            }
+        }
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
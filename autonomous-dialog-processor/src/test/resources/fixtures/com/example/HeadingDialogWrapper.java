@@ -0,0 +1,10 @@
+package com.example;
+
+import com.mrhabibi.autonomousdialog.annotation.DialogArg;
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+
+public class HeadingDialogWrapper extends BasicDialogWrapper {
+
+    @DialogArg("heading")
+    CharSequence mTitle;
+}
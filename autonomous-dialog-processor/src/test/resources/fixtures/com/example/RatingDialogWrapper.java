@@ -0,0 +1,33 @@
+package com.example;
+
+import android.os.Bundle;
+
+import com.mrhabibi.autonomousdialog.annotation.DialogArg;
+import com.mrhabibi.autonomousdialog.annotation.DialogResponseExtra;
+import com.mrhabibi.autonomousdialog.annotation.DialogState;
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+
+public class RatingDialogWrapper extends BasicDialogWrapper {
+
+    @DialogArg
+    int mMaxStars;
+
+    @DialogState
+    @DialogResponseExtra
+    int mStars;
+
+    @DialogArg("ratingHint")
+    String mHint;
+
+    public void onCreate(Bundle savedInstanceState) {
+        RatingDialogWrapper_DialogCodec.restore(this, getArguments(), savedInstanceState);
+    }
+
+    public void onSaveInstanceState(Bundle outState) {
+        RatingDialogWrapper_DialogCodec.save(this, outState);
+    }
+
+    public void onBundleResponses(Bundle responses) {
+        RatingDialogWrapper_DialogCodec.bundleResponses(this, responses);
+    }
+}
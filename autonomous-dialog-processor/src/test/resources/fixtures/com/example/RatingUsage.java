@@ -0,0 +1,17 @@
+package com.example;
+
+import android.os.Bundle;
+
+class RatingUsage {
+
+    int rate(Bundle responses) {
+        RatingDialogWrapper dialogWrapper = RatingDialogWrapper_DialogCodec.newBuilder()
+                .title("Rate us")
+                .maxStars(5)
+                .message("How was it?")
+                .hint("Tap a star")
+                .build();
+        dialogWrapper.onCreate(null);
+        return responses.getInt(RatingDialogWrapper_DialogCodec.STARS_LABEL);
+    }
+}
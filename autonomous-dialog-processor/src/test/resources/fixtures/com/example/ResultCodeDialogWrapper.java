@@ -0,0 +1,10 @@
+package com.example;
+
+import com.mrhabibi.autonomousdialog.annotation.DialogState;
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+
+public class ResultCodeDialogWrapper extends BasicDialogWrapper {
+
+    @DialogState
+    int mResultCode;
+}
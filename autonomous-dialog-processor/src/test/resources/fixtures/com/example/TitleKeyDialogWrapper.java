@@ -0,0 +1,10 @@
+package com.example;
+
+import com.mrhabibi.autonomousdialog.annotation.DialogArg;
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+
+public class TitleKeyDialogWrapper extends BasicDialogWrapper {
+
+    @DialogArg
+    int mTitle;
+}
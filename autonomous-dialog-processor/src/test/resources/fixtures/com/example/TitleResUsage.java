@@ -0,0 +1,15 @@
+package com.example;
+
+class TitleResUsage {
+
+    TitleResDialogWrapper build() {
+        /*
+         * The inherited title(CharSequence) must still return the generated builder
+         */
+        return TitleResDialogWrapper_DialogCodec.newBuilder()
+                .title("Rate us")
+                .title(1)
+                .positiveText("OK")
+                .build();
+    }
+}
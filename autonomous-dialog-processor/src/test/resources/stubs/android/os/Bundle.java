@@ -0,0 +1,40 @@
+package android.os;
+
+import java.util.HashMap;
+
+/**
+ * Just the methods of Bundle used by the generated codecs of the fixtures
+ */
+public final class Bundle {
+
+    private final HashMap<String, Object> mValues = new HashMap<>();
+
+    public boolean containsKey(String key) {
+        return mValues.containsKey(key);
+    }
+
+    public void putInt(String key, int value) {
+        mValues.put(key, value);
+    }
+
+    public int getInt(String key) {
+        Object value = mValues.get(key);
+        return value != null ? (Integer) value : 0;
+    }
+
+    public void putCharSequence(String key, CharSequence value) {
+        mValues.put(key, value);
+    }
+
+    public CharSequence getCharSequence(String key) {
+        return (CharSequence) mValues.get(key);
+    }
+
+    public void putString(String key, String value) {
+        mValues.put(key, value);
+    }
+
+    public String getString(String key) {
+        return (String) mValues.get(key);
+    }
+}
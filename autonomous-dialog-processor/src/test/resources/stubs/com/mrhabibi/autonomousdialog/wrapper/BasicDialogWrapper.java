@@ -0,0 +1,42 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+/**
+ * The keys and the builder methods of BasicDialogWrapper the fixtures use
+ */
+public class BasicDialogWrapper extends DialogWrapper {
+
+    public static final String SINGLE_CHOICE_SELECTED_OPTION = "singleChoiceSelectedOption";
+
+    public static final String TITLE_LABEL = "title";
+    public static final String MESSAGE_LABEL = "message";
+    public static final String POSITIVE_TEXT_LABEL = "positiveText";
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder extends DialogWrapper.Builder<BasicDialogWrapper> {
+
+        public Builder title(CharSequence title) {
+            arguments.putCharSequence(TITLE_LABEL, title);
+            return this;
+        }
+
+        public Builder message(CharSequence message) {
+            arguments.putCharSequence(MESSAGE_LABEL, message);
+            return this;
+        }
+
+        public Builder positiveText(CharSequence positiveText) {
+            arguments.putCharSequence(POSITIVE_TEXT_LABEL, positiveText);
+            return this;
+        }
+
+        @Override
+        public BasicDialogWrapper build() {
+            BasicDialogWrapper dialogWrapper = new BasicDialogWrapper();
+            dialogWrapper.setArguments(arguments);
+            return dialogWrapper;
+        }
+    }
+}
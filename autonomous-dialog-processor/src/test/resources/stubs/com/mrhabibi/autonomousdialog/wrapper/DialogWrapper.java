@@ -0,0 +1,36 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.os.Bundle;
+
+/**
+ * The parts of DialogWrapper the processor and the generated codecs use
+ */
+public abstract class DialogWrapper {
+
+    public static final String RESULT_CODE_STATE = "resultCode";
+    public static final String APPLIED_UPDATE_STATE = "appliedUpdate";
+
+    private Bundle mArguments;
+
+    public void setArguments(Bundle arguments) {
+        mArguments = arguments;
+    }
+
+    public Bundle getArguments() {
+        return mArguments;
+    }
+
+    public abstract static class Builder<T extends DialogWrapper> {
+        protected Bundle arguments;
+
+        public Builder() {
+            this.arguments = new Bundle();
+        }
+
+        public abstract T build();
+
+        public Bundle getArguments() {
+            return arguments;
+        }
+    }
+}
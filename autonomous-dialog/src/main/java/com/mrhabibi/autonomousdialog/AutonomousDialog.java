@@ -5,26 +5,33 @@ import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
+import androidx.appcompat.view.ContextThemeWrapper;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
 
-import com.mrhabibi.autonomousdialog.utils.DialogUtils;
+import com.mrhabibi.autonomousdialog.utils.DialogLogger;
+import com.mrhabibi.autonomousdialog.utils.DialogRegistry;
+import com.mrhabibi.autonomousdialog.utils.DialogScheduler;
+import com.mrhabibi.autonomousdialog.utils.DialogTrace;
 import com.mrhabibi.autonomousdialog.utils.FragmentPasser;
+import com.mrhabibi.autonomousdialog.utils.MetricsReporter;
+import com.mrhabibi.autonomousdialog.utils.PayloadStore;
 import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
+import com.mrhabibi.autonomousdialog.wrapper.ViewDialogWrapper;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static com.mrhabibi.autonomousdialog.DialogActivity.CANCELABLE_LABEL;
-import static com.mrhabibi.autonomousdialog.DialogActivity.FRAGMENT_GETTER_ID_LABEL;
-import static com.mrhabibi.autonomousdialog.DialogActivity.IDENTIFIER_LABEL;
-import static com.mrhabibi.autonomousdialog.DialogActivity.PARAMS_LABEL;
-import static com.mrhabibi.autonomousdialog.DialogActivity.THEME_RES_LABEL;
+import static com.mrhabibi.autonomousdialog.DialogActivity.LAUNCH_SPEC_LABEL;
 import static com.mrhabibi.autonomousdialog.DialogResult.REQUEST_DIALOG;
 
 /**
@@ -43,14 +50,36 @@ public class AutonomousDialog {
     public final static String TAG = "AutonomousDialog";
 
     /**
-     * Used to keep dialog ids that will be dismissed remotely, for handling race condition while showing dialog
+     * Presentation mode that launches DialogActivity to host the dialog, this is the default
      */
-    final static HashSet<String> dismissedDialogIds = new HashSet<>();
+    public final static int PRESENTATION_ACTIVITY = 0;
 
     /**
-     * Used to keep shown dialog ids and ready status, for handling showing one dialog per id
+     * Presentation mode that shows the dialog in a window owned by the calling activity, without
+     * launching DialogActivity, only used for dialog wrapper content shown from FragmentActivity,
+     * other contents fall back to PRESENTATION_ACTIVITY
      */
-    final static HashMap<String, Boolean> shownDialogIds = new HashMap<>();
+    public final static int PRESENTATION_WINDOW = 1;
+
+    /**
+     * The presentation mode used by builders that don't set their own
+     */
+    static int defaultPresentation = PRESENTATION_ACTIVITY;
+
+    /**
+     * Used to dismiss dialog on the main thread when dismissing from other threads
+     */
+    private final static Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Used to make unique identifier for dialog that has result listener but no identifier
+     */
+    private final static AtomicLong identifierCounter = new AtomicLong();
+
+    /**
+     * Process-wide queue of dialogs shown by Builder.enqueue
+     */
+    private final static DialogScheduler scheduler = new DialogScheduler();
 
     /**
      * Builder instantiator for such simple dialog, with no callback and non singleton style
@@ -73,6 +102,34 @@ public class AutonomousDialog {
         return new Builder(context, identifier);
     }
 
+    /**
+     * Set the presentation mode for all dialogs that don't set their own
+     *
+     * @param presentation PRESENTATION_ACTIVITY or PRESENTATION_WINDOW
+     */
+    public static void setDefaultPresentation(int presentation) {
+        defaultPresentation = presentation;
+    }
+
+    /**
+     * Set the minimum level of AutonomousDialog logs, nothing is logged by default
+     *
+     * @param level One of android.util.Log levels like Log.DEBUG, or DialogLogger.LEVEL_NONE
+     */
+    public static void setLogLevel(int level) {
+        DialogLogger.setLevel(level);
+    }
+
+    /**
+     * Set the listener of dialog lifecycle events, to measure show and dismiss latency and count
+     * the anomalies like duplicated, expired and race condition dialogs
+     *
+     * @param metrics The metrics listener, or null to stop reporting
+     */
+    public static void setMetrics(@Nullable DialogMetrics metrics) {
+        MetricsReporter.setMetrics(metrics);
+    }
+
     /**
      * Used to dismiss dialog asyncrhonously from wherever you need
      *
@@ -80,15 +137,119 @@ public class AutonomousDialog {
      * @param identifier The same whatever identifier
      */
     public static void dismiss(@NonNull Context context, @NonNull String identifier) {
-        if (shownDialogIds.containsKey(identifier) && !shownDialogIds.get(identifier)) {
-            dismissedDialogIds.add(identifier);
+        final DialogHost host = DialogRegistry.dismiss(identifier);
+
+        /*
+         * The host that is not created yet, or being recreated after config changes,
+         * will dismiss itself once it's attached
+         */
+        if (host == null) {
+            return;
+        }
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            host.dismissHost();
         } else {
-            Intent intent = new Intent(DialogActivity.DISMISS_ACTION);
-            intent.putExtra(DialogActivity.IDENTIFIER_KEY, identifier);
-            context.sendBroadcast(intent);
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    host.dismissHost();
+                }
+            });
+        }
+    }
+
+    /**
+     * Used to change the showing dialog in place from wherever you need, like its message or
+     * button enabled state, the updates that come faster than the frame rate are merged and
+     * applied once per frame, and they're kept after config changes
+     *
+     * @param identifier The same whatever identifier
+     * @param update     The parts to change
+     * @return True if the dialog is live, false if there's no dialog to update, like when the
+     * dialog is gone or being recreated after config changes
+     */
+    public static boolean update(@NonNull String identifier, @NonNull DialogUpdate update) {
+        DialogHost host = DialogRegistry.getHost(identifier);
+        if (!(host instanceof DialogController.Host)) {
+            return false;
+        }
+
+        DialogController controller = ((DialogController.Host) host).getDialogController();
+        if (controller == null) {
+            return false;
+        }
+        controller.update(update);
+        return true;
+    }
+
+    /**
+     * Used to wait for the result of dialog from wherever you need without onActivityResult,
+     * the result has the live params and responses, even for dialog shown from Service or Receiver
+     *
+     * @param identifier The same whatever identifier
+     * @return The future of the next result, never call its get method on the main thread
+     */
+    public static Future<DialogResponse> awaitResult(@NonNull String identifier) {
+        return DialogResultChannel.await(identifier);
+    }
+
+    /**
+     * Get the identifier of a step shown by DialogActivity.showNextStep, used to subscribe to the
+     * result of each step, the dialog identifier itself receives the result of the last step
+     *
+     * @param identifier The dialog identifier
+     * @param step       Index of the step, 0 is the launched content
+     * @return The step identifier
+     */
+    @NonNull
+    public static String getStepIdentifier(@NonNull String identifier, int step) {
+        return identifier + "#" + step;
+    }
+
+    /**
+     * Get the process-wide scheduler used by Builder.enqueue, to set the maximum dialogs shown at
+     * once, drop queued dialogs, or read the queue depth and wait time
+     *
+     * @return The scheduler
+     */
+    public static DialogScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Called by the hosts when they're created, so the slot of the queued dialog is kept until
+     * the dialog is gone instead of being freed by the launch timeout
+     *
+     * @param ticket The schedule ticket of the host
+     */
+    static void onScheduledDialogAttached(long ticket) {
+        if (ticket != DialogScheduler.NO_TICKET) {
+            scheduler.attached(ticket);
         }
     }
 
+    /**
+     * Called by the hosts when the dialog is really gone, so the next queued dialog can be shown
+     *
+     * @param ticket The schedule ticket of the host
+     */
+    static void onScheduledDialogFinished(final long ticket) {
+        if (ticket == DialogScheduler.NO_TICKET) {
+            return;
+        }
+
+        /*
+         * Show the next dialog after the current destruction is done
+         */
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.finish(ticket);
+            }
+        });
+    }
+
     /**
      * Used to reset shown and dismissed dialog for specific identifier
      *
@@ -97,8 +258,7 @@ public class AutonomousDialog {
      */
     public static void reset(@NonNull Context context, @NonNull String identifier) {
         dismiss(context, identifier);
-        dismissedDialogIds.remove(identifier);
-        shownDialogIds.remove(identifier);
+        DialogRegistry.remove(identifier);
     }
 
     public static class Builder {
@@ -110,16 +270,24 @@ public class AutonomousDialog {
         protected int mThemeRes;
         protected Bundle mParams;
         protected Intent mIntent;
+        protected int mPresentation;
+        protected DialogResultRouter.OnResultListener mResultListener;
+        protected boolean mPayloadsOffBinder;
+        protected boolean mRestorable;
+        protected int mPriority = DialogScheduler.PRIORITY_DEFAULT;
+        protected String mGroupKey;
 
         public Builder(@NonNull Context context) {
             this.mContext = context;
             this.mCancelable = true;
+            this.mPresentation = defaultPresentation;
         }
 
         public Builder(@NonNull Context context, String identifier) {
             this.mContext = context;
             this.mIdentifier = identifier;
             this.mCancelable = true;
+            this.mPresentation = defaultPresentation;
         }
 
         /**
@@ -210,10 +378,192 @@ public class AutonomousDialog {
             return this;
         }
 
+        /**
+         * Setter for keeping params and responses in PayloadStore, so the intents only carry
+         * small tokens instead of parceling large bundles through Binder. They're released once
+         * DialogResultRouter routes the result, call DialogResult.releasePayloads when handling
+         * onActivityResult without the router
+         *
+         * @param offBinder Keep the payloads off Binder
+         * @return The builder
+         */
+        public Builder setPayloadsOffBinder(boolean offBinder) {
+            this.mPayloadsOffBinder = offBinder;
+            return this;
+        }
+
+        /**
+         * Setter for keeping the content class and arguments in the launch intent, so the dialog
+         * is made again instead of dismissed when the passed fragment is gone, like after process
+         * death. The content has to be a public class, not anonymous nor inner, with a public
+         * empty constructor, and it has to keep everything it needs in its arguments
+         *
+         * @param restorable Is restorable
+         * @return The builder
+         */
+        public Builder setRestorable(boolean restorable) {
+            this.mRestorable = restorable;
+            return this;
+        }
+
+        /**
+         * Setter for the listener that receives the live result in-process, without parceling it
+         * and without onActivityResult, a unique identifier is made if the dialog has none
+         *
+         * @param listener The result listener, called on the main thread
+         * @return The builder
+         */
+        public Builder setOnResultListener(DialogResultRouter.OnResultListener listener) {
+            this.mResultListener = listener;
+            return this;
+        }
+
+        /**
+         * Setter for the presentation mode of the dialog
+         *
+         * @param presentation PRESENTATION_ACTIVITY or PRESENTATION_WINDOW
+         * @return The builder
+         */
+        public Builder setPresentation(int presentation) {
+            this.mPresentation = presentation;
+            return this;
+        }
+
+        /**
+         * Setter for the priority of the dialog when it's queued by enqueue, higher is shown first
+         *
+         * @param priority The priority, like DialogScheduler.PRIORITY_HIGH
+         * @return The builder
+         */
+        public Builder setPriority(int priority) {
+            this.mPriority = priority;
+            return this;
+        }
+
+        /**
+         * Setter for the group key of the dialog when it's queued by enqueue, the queued dialog
+         * with the same group key is replaced by this one, like a newer sync error replacing the
+         * older one that is not shown yet
+         *
+         * @param groupKey The group key
+         * @return The builder
+         */
+        public Builder setGroupKey(@Nullable String groupKey) {
+            this.mGroupKey = groupKey;
+            return this;
+        }
+
+        /**
+         * Build the content ahead of show, so show only attaches the built views. The view of
+         * ViewDialogWrapper that overrides onPrepareView is built on a background thread with the
+         * dialog theme, call this early, like when the screen is created, and show it later
+         *
+         * @return The builder
+         */
+        public Builder prepare() {
+            if (mFragment instanceof ViewDialogWrapper && mContext != null) {
+                int themeRes = mThemeRes != 0 ? mThemeRes : com.mrhabibi.autonomousdialog.R.style.AutonomousAlertDialog;
+
+                /*
+                 * The view is built on the shared executor, so don't let it keep the caller
+                 */
+                ((ViewDialogWrapper) mFragment).prepare(new ContextThemeWrapper(mContext.getApplicationContext(), themeRes));
+            }
+            return this;
+        }
+
         /**
          * Last method to show the dialog
          */
         public void show() {
+            DialogTrace.begin(DialogTrace.SHOW);
+            try {
+                performShow(DialogScheduler.NO_TICKET);
+            } finally {
+                DialogTrace.end();
+            }
+        }
+
+        /**
+         * Last method to show the dialog after the queued dialogs are gone, the queued dialog
+         * doesn't keep the calling activity, the dialog is dropped if the activity is gone or
+         * finishing by then, or if the queue is full of dialogs with the same or higher priority
+         */
+        public void enqueue() {
+            if (Looper.myLooper() != Looper.getMainLooper()) {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        enqueue();
+                    }
+                });
+                return;
+            }
+
+            /*
+             * Keep the activity weakly while queued, other contexts are replaced by the
+             * application context
+             */
+            final Activity activity = findActivity(mContext);
+            final WeakReference<Activity> activityReference = activity != null ? new WeakReference<>(activity) : null;
+            final Context applicationContext = activity == null && mContext != null ? mContext.getApplicationContext() : null;
+            mContext = null;
+
+            long queuedTicket = scheduler.enqueue(mIdentifier, mGroupKey, mPriority, new DialogScheduler.Task() {
+                @Override
+                public boolean show(final long ticket) {
+                    Context context = activityReference != null ? activityReference.get() : applicationContext;
+                    if (context == null || (context instanceof Activity && ((Activity) context).isFinishing())) {
+                        DialogLogger.d("Dropping Queued Dialog due to Finishing Context", mIdentifier);
+                        return false;
+                    }
+                    mContext = context;
+
+                    boolean shown;
+                    DialogTrace.begin(DialogTrace.SHOW);
+                    try {
+                        shown = performShow(ticket);
+                    } finally {
+                        DialogTrace.end();
+                    }
+
+                    /*
+                     * Free the slot if the host never attaches, like when the launch is lost
+                     */
+                    if (shown) {
+                        mainHandler.postDelayed(new Runnable() {
+                            @Override
+                            public void run() {
+                                scheduler.expire(ticket);
+                            }
+                        }, scheduler.getLaunchTimeout());
+                    }
+                    return shown;
+                }
+            });
+            if (queuedTicket == DialogScheduler.NO_TICKET) {
+                DialogLogger.d("Dropping Queued Dialog due to Full Queue", mIdentifier);
+            }
+        }
+
+        /**
+         * Find the activity behind the context wrappers
+         */
+        @Nullable
+        private static Activity findActivity(@Nullable Context context) {
+            while (context instanceof ContextWrapper) {
+                if (context instanceof Activity) {
+                    return (Activity) context;
+                }
+                context = ((ContextWrapper) context).getBaseContext();
+            }
+            return null;
+        }
+
+        /**
+         * @return True if the host is launched, false if the dialog is dropped
+         */
+        private boolean performShow(long ticket) {
             Context context = this.mContext;
             this.mContext = null;
 
@@ -223,13 +573,8 @@ public class AutonomousDialog {
             if (context == null) {
                 throw new IllegalStateException("Context must not be null!");
             }
-
-            /*
-             * Make connection between fragment and activity
-             */
-            String fragmentGetterId = null;
-            if (fragment != null) {
-                fragmentGetterId = FragmentPasser.setFragment(fragment);
+            if (mRestorable && fragment != null && !DialogLaunchSpec.isRestorable(fragment)) {
+                throw new IllegalStateException("Restorable content " + fragment.getClass().getName() + " must be a public static class with a public empty constructor!");
             }
 
             /*
@@ -246,56 +591,139 @@ public class AutonomousDialog {
              * !!! IMPORTANT !!!
              * Note that if the context is not an Activity, it means that request code WILL NOT
              * be used, and ascendant activity WILL NOT trigger onDialogResult at all
-             * (the dialog will be separated task too and has no connection with previous task)
+             * (the dialog will be separated task too and has no connection with previous task),
+             * use setOnResultListener or awaitResult to receive the result in that case
              */
             int flags = 0;
             if (!(context instanceof Activity)) {
                 flags = Intent.FLAG_ACTIVITY_NEW_TASK;
             }
 
+            /*
+             * Check if the dialog can be shown in the calling activity window
+             */
+            boolean inWindow = mPresentation == PRESENTATION_WINDOW
+                    && mIntent == null
+                    && fragment instanceof DialogWrapper
+                    && context instanceof FragmentActivity
+                    && !((FragmentActivity) context).getSupportFragmentManager().isStateSaved();
+
             /*
              * Set default intent if there's no intent set
              */
-            if (mIntent == null) {
+            if (!inWindow && mIntent == null) {
                 mIntent = new Intent(context, DialogActivity.class);
             }
 
+            /*
+             * Subscribe the result listener before the host can publish anything, the listener of
+             * duplicated dialog receives the result of the shown one
+             */
+            if (mResultListener != null) {
+                if (mIdentifier == null || mIdentifier.length() == 0) {
+                    mIdentifier = TAG + "_" + identifierCounter.incrementAndGet();
+                }
+                DialogResultChannel.subscribe(mIdentifier, mResultListener);
+            }
+
+            MetricsReporter.report(DialogMetrics.EVENT_SHOW_REQUESTED, mIdentifier);
+
             /*
              * Check if dialog with this identifier has shown
              */
             boolean hasShown;
             if (mIdentifier != null && mIdentifier.length() > 0) {
-                if (!shownDialogIds.containsKey(mIdentifier)) {
+                if (DialogRegistry.requestShow(mIdentifier)) {
 
                     /*
-                     * Register unready shown dialog identifier
+                     * The identifier has been registered as pending
                      */
-                    shownDialogIds.put(mIdentifier, false);
                     hasShown = false;
                 } else {
-                    DialogUtils.log("Cancelling Initialization due to Duplication", mIdentifier);
+                    DialogLogger.d("Cancelling Initialization due to Duplication", mIdentifier);
+                    MetricsReporter.report(DialogMetrics.EVENT_DUPLICATE_SUPPRESSED, mIdentifier);
                     hasShown = true;
                 }
             } else {
                 hasShown = false;
             }
 
-            if (!hasShown) {
-                DialogUtils.log("Initializing", mIdentifier);
+            if (hasShown) {
 
-                mIntent.putExtra(FRAGMENT_GETTER_ID_LABEL, fragmentGetterId);
-                mIntent.putExtra(CANCELABLE_LABEL, mCancelable);
-                mIntent.putExtra(IDENTIFIER_LABEL, mIdentifier);
-                mIntent.putExtra(THEME_RES_LABEL, mThemeRes);
-                mIntent.putExtra(PARAMS_LABEL, mParams);
-                mIntent.addFlags(flags);
+                /*
+                 * Only the live dialog publishes the result for the duplicated one, don't leave the
+                 * listener waiting for the dialog that is going away
+                 */
+                int state = DialogRegistry.getState(mIdentifier);
+                if (mResultListener != null && state != DialogRegistry.STATE_PENDING && state != DialogRegistry.STATE_SHOWN) {
+                    DialogResultChannel.unsubscribe(mIdentifier, mResultListener);
+                }
+                return false;
+            }
 
-                if (context instanceof Activity) {
-                    ActivityCompat.startActivityForResult(((Activity) context), mIntent, REQUEST_DIALOG, null);
+            /*
+             * Make connection between fragment and activity, the fragment of duplicated dialog
+             * is not kept at all
+             */
+            String fragmentGetterId = null;
+            String contentClassName = null;
+            Bundle contentArguments = null;
+            if (fragment != null) {
+                fragmentGetterId = FragmentPasser.setFragment(fragment);
+                if (mRestorable) {
+                    contentClassName = fragment.getClass().getName();
+                    contentArguments = fragment.getArguments();
+                }
+            }
+
+            /*
+             * Keep the params in the side channel, the hosts reuse the same bundle
+             */
+            String paramsToken = null;
+            Bundle params = mParams;
+            if (mPayloadsOffBinder) {
+                paramsToken = PayloadStore.put(params != null ? params : new Bundle());
+                params = null;
+            }
+
+            try {
+                if (inWindow) {
+                    DialogLogger.d("Initializing in Window", mIdentifier);
+
+                    ((FragmentActivity) context).getSupportFragmentManager().beginTransaction()
+                            .add(DialogHostFragment.newInstance(fragmentGetterId, mCancelable, mIdentifier, mThemeRes, params, paramsToken, ticket, contentClassName, contentArguments),
+                                    DialogHostFragment.HOST_TAG_PREFIX + fragmentGetterId)
+                            .commit();
                 } else {
-                    ContextCompat.startActivity(context, mIntent, null);
+                    DialogLogger.d("Initializing", mIdentifier);
+
+                    mIntent.putExtra(LAUNCH_SPEC_LABEL, new DialogLaunchSpec(fragmentGetterId, mCancelable, mIdentifier, mThemeRes, params, paramsToken, ticket, contentClassName, contentArguments));
+                    mIntent.addFlags(flags);
+
+                    if (context instanceof Activity) {
+                        ActivityCompat.startActivityForResult(((Activity) context), mIntent, REQUEST_DIALOG, null);
+                    } else {
+                        ContextCompat.startActivity(context, mIntent, null);
+                    }
+                }
+            } catch (RuntimeException e) {
+
+                /*
+                 * The host will never come, release everything that waits for it
+                 */
+                if (mResultListener != null) {
+                    DialogResultChannel.unsubscribe(mIdentifier, mResultListener);
+                }
+                if (mIdentifier != null && mIdentifier.length() > 0) {
+                    DialogRegistry.remove(mIdentifier);
+                }
+                if (fragmentGetterId != null) {
+                    FragmentPasser.getFragment(fragmentGetterId);
                 }
+                PayloadStore.release(paramsToken);
+                throw e;
             }
+            return true;
         }
 
     }
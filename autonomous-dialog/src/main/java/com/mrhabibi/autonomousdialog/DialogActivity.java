@@ -1,15 +1,14 @@
 package com.mrhabibi.autonomousdialog;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
+import android.view.KeyEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
 import androidx.appcompat.app.AlertDialog;
@@ -17,8 +16,13 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 
-import com.mrhabibi.autonomousdialog.utils.DialogUtils;
+import com.mrhabibi.autonomousdialog.utils.DialogLogger;
+import com.mrhabibi.autonomousdialog.utils.DialogRegistry;
+import com.mrhabibi.autonomousdialog.utils.DialogScheduler;
+import com.mrhabibi.autonomousdialog.utils.DialogTrace;
 import com.mrhabibi.autonomousdialog.utils.FragmentPasser;
+import com.mrhabibi.autonomousdialog.utils.MetricsReporter;
+import com.mrhabibi.autonomousdialog.utils.PayloadStore;
 import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
 
 /**
@@ -28,15 +32,21 @@ import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
  * mode will use whatever fragment and show it with dialog layout, and alert dialog mode will
  * use dialog wrapper to build alert dialog, and both of them support data persistency as well
  */
-public class DialogActivity extends AppCompatActivity {
+public class DialogActivity extends AppCompatActivity implements DialogHost, DialogController.Host {
 
     /**
      * Constants for broadcast dismisser to identify correct dialog to be dismissed
+     *
+     * @deprecated Dialogs are dismissed through DialogRegistry, no broadcast is sent anymore
      */
+    @Deprecated
     public static final String IDENTIFIER_KEY = "identifier";
     /**
      * This is the broadcast dismisser to dismiss dialog from whereever
+     *
+     * @deprecated Dialogs are dismissed through DialogRegistry, no broadcast is sent anymore
      */
+    @Deprecated
     public static final String DISMISS_ACTION = "dismissAction";
 
     /**
@@ -44,12 +54,19 @@ public class DialogActivity extends AppCompatActivity {
      */
     public static final String FRAGMENT_TAG = "fragmentTag";
 
+    /**
+     * The launch options in one DialogLaunchSpec, the separate labels below are still read for
+     * the intents made by the older versions
+     */
+    public static final String LAUNCH_SPEC_LABEL = "launchSpec";
+
     public static final String FRAGMENT_GETTER_ID_LABEL = "fragmentGetterId";
     public static final String CANCELABLE_LABEL = "cancelable";
     public static final String IDENTIFIER_LABEL = "identifier";
     public static final String THEME_RES_LABEL = "themeRes";
     public static final String PARAMS_LABEL = "params";
     public static final String WILL_REBORN_LABEL = "willReborn";
+    public static final String STEP_LABEL = "step";
 
     public static final String ALERTDIALOG_ID_PREFIX = "AlertDialog_";
     public static final String DIALOGFRAGMENT_ID_PREFIX = "DialogFragment_";
@@ -60,6 +77,12 @@ public class DialogActivity extends AppCompatActivity {
     @StyleRes
     protected int mThemeRes;
     protected Bundle mParams;
+    protected String mParamsToken;
+
+    /**
+     * The DialogScheduler ticket, NO_TICKET if the dialog is not queued
+     */
+    protected long mScheduleTicket;
 
     /**
      * Flag to indicate that dialog will be built again after config changes
@@ -68,93 +91,130 @@ public class DialogActivity extends AppCompatActivity {
 
     protected boolean mFirstCreation;
 
+    /**
+     * Index of the current step, 0 is the launched content and the next steps are shown by
+     * showNextStep in the same host
+     */
+    protected int mStep;
+
     protected Fragment mCurrentFragment;
     protected AlertDialog mCurrentDialog;
 
-    private BroadcastReceiver mActionReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            if (intent.getAction().equals(DISMISS_ACTION) && intent.getStringExtra(IDENTIFIER_KEY).equals(mIdentifier)) {
-                /*
-                 * Remove the noted pending dismissed dialog id
-                 */
-                DialogUtils.log("Dismissing Remotely ", mIdentifier);
-                finish();
-            }
-        }
-    };
+    /**
+     * The controller of the live dialog, read by AutonomousDialog.update from any thread
+     */
+    private volatile DialogController mDialogController;
+
+    private Intent mResultIntent;
+
+    /**
+     * The launch options, null if the host is launched by the older versions
+     */
+    private DialogLaunchSpec mLaunchSpec;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
-        mFirstCreation = savedInstanceState == null;
-        extractBundleStates(getIntent().getExtras());
+        DialogTrace.begin(DialogTrace.HOST_CREATE);
+        try {
+            mFirstCreation = savedInstanceState == null;
+            extractBundleStates(getIntent().getExtras());
 
-        /*
-         * Set activity theme
-         */
-        if (!isAlertDialog() && mThemeRes != 0) {
-            setTheme(mThemeRes);
-        }
+            /*
+             * Set activity theme
+             */
+            if (!isAlertDialog() && mThemeRes != 0) {
+                setTheme(mThemeRes);
+            }
 
-        super.onCreate(savedInstanceState);
+            super.onCreate(savedInstanceState);
+            DialogRegistry.onHostCreated();
 
-        /*
-         * Bring the fragment to live
-         */
-        if (mFirstCreation) {
-            mCurrentFragment = FragmentPasser.getFragment(mFragmentGetterId);
-        } else {
-            mCurrentFragment = getSupportFragmentManager().findFragmentByTag(FRAGMENT_TAG);
-        }
+            /*
+             * Bring the fragment to live
+             */
+            if (mFirstCreation) {
+                mCurrentFragment = FragmentPasser.getFragment(mFragmentGetterId);
+            } else {
+                mStep = savedInstanceState.getInt(STEP_LABEL);
+                mCurrentFragment = getSupportFragmentManager().findFragmentByTag(getStepTag(mStep));
+            }
 
-        /*
-         * Check if the fragment has expired
-         */
-        if (mFragmentGetterId != null && mCurrentFragment == null) {
-            DialogUtils.log("Dismissing due to Expired Session ", mIdentifier);
-            finish();
-            return;
-        }
+            /*
+             * Make the restorable content again if it's gone, like when the process was killed
+             * before the host saved its state, only the launched content can be made again
+             */
+            if (mFragmentGetterId != null && mCurrentFragment == null && mStep == 0 && mLaunchSpec != null) {
+                mCurrentFragment = mLaunchSpec.instantiateContent(getSupportFragmentManager(), getClassLoader());
+                if (mCurrentFragment != null) {
+                    DialogLogger.d("Restoring Expired Session", mIdentifier);
+                    MetricsReporter.report(DialogMetrics.EVENT_SESSION_RESTORED, mIdentifier);
+
+                    /*
+                     * The content is new, so add it like the first creation
+                     */
+                    mFirstCreation = true;
 
-        if (mFirstCreation) {
-            AutonomousDialog.shownDialogIds.put(mIdentifier, true);
+                    /*
+                     * The ticket belongs to the scheduler of the killed process
+                     */
+                    mScheduleTicket = DialogScheduler.NO_TICKET;
+                }
+            }
 
             /*
-             * Handle race condition when calling show & dismiss together
+             * Check if the fragment has expired
              */
-            if (AutonomousDialog.dismissedDialogIds.contains(mIdentifier)) {
-                DialogUtils.log("Dismissing due to Race Condition ", mIdentifier);
-                AutonomousDialog.dismissedDialogIds.remove(mIdentifier);
+            if (mFragmentGetterId != null && mCurrentFragment == null) {
+                DialogLogger.d("Dismissing due to Expired Session", mIdentifier);
+                MetricsReporter.report(DialogMetrics.EVENT_SESSION_EXPIRED, mIdentifier);
                 finish();
                 return;
             }
-        }
-
-        if (!isAlertDialog()) {
-            setContentView(com.mrhabibi.autonomousdialog.R.layout.activity_dialog);
-        } else if (mCurrentFragment != null && isAlertDialog()) {
 
             /*
-             * Alert Dialog mode
+             * Attach the host to be dismissed remotely, and handle race condition when calling
+             * show & dismiss together, or dismiss while the host is being recreated after config changes
              */
+            if (!DialogRegistry.attach(mIdentifier, this)) {
+                DialogLogger.d("Dismissing due to Race Condition", mIdentifier);
+                MetricsReporter.report(DialogMetrics.EVENT_RACE_CONDITION_DISMISSED, mIdentifier);
+                finish();
+                return;
+            }
+            AutonomousDialog.onScheduledDialogAttached(mScheduleTicket);
+
             if (mFirstCreation) {
-                FragmentManager fragmentManager = getSupportFragmentManager();
-                fragmentManager.beginTransaction()
-                        .add(mCurrentFragment, FRAGMENT_TAG)
-                        .commit();
-                fragmentManager.executePendingTransactions();
+                MetricsReporter.report(DialogMetrics.EVENT_HOST_CREATED, mIdentifier);
+            }
+
+            if (!isAlertDialog()) {
+                setContentView(com.mrhabibi.autonomousdialog.R.layout.activity_dialog);
+            } else if (mCurrentFragment != null && isAlertDialog()) {
+
+                /*
+                 * Alert Dialog mode
+                 */
+                if (mFirstCreation) {
+                    FragmentManager fragmentManager = getSupportFragmentManager();
+                    fragmentManager.beginTransaction()
+                            .add(mCurrentFragment, FRAGMENT_TAG)
+                            .commit();
+                    fragmentManager.executePendingTransactions();
+                }
+
+                /*
+                 * Build the alert dialog from fragment
+                 */
+                buildAlertDialog((DialogWrapper) mCurrentFragment);
             }
 
             /*
-             * Build the alert dialog from fragment
+             * Set the cancelable behaviour
              */
-            buildAlertDialog((DialogWrapper) mCurrentFragment);
+            setFinishOnTouchOutside(mCancelable);
+        } finally {
+            DialogTrace.end();
         }
-
-        /*
-         * Set the cancelable behaviour
-         */
-        setFinishOnTouchOutside(mCancelable);
     }
 
     @Override
@@ -195,17 +255,15 @@ public class DialogActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        DialogRegistry.onHostDestroyed();
 
-        if (isFinishing()) {
+        /*
+         * Detach the host, and unregister shown dialog identifier if it's really going away,
+         * the new host will attach itself after config changes
+         */
+        DialogRegistry.detach(mIdentifier, this, isFinishing());
 
-            /*
-             * Unregister shown dialog identifier
-             */
-            if (mIdentifier != null && mIdentifier.length() > 0) {
-                AutonomousDialog.shownDialogIds.remove(mIdentifier);
-            }
-
-        } else {
+        if (!isFinishing()) {
 
             if (mCurrentDialog != null) {
 
@@ -222,26 +280,39 @@ public class DialogActivity extends AppCompatActivity {
         if (mCurrentDialog != null) {
             mCurrentDialog.dismiss();
         }
-    }
-
-    @Override
-    protected void onStart() {
-        super.onStart();
 
         /*
-         * Register the broadcaster
+         * Release the subscribers if the dialog is gone without result, like when it's expired
          */
-        registerReceiver(mActionReceiver, new IntentFilter(DISMISS_ACTION));
+        if (isFinishing()) {
+            DialogResultChannel.publishCancelled(mIdentifier, mParams);
+            AutonomousDialog.onScheduledDialogFinished(mScheduleTicket);
+            releasePayloads();
+        }
     }
 
-    @Override
-    protected void onStop() {
-        super.onStop();
+    /**
+     * Pass the payloads of the result to the calling activity, or release them if nobody is
+     * waiting for the result intent, the in-process subscribers already got the bundles
+     */
+    private void releasePayloads() {
+        String responsesToken = mResultIntent != null ? mResultIntent.getStringExtra("responsesToken") : null;
+        if (mResultIntent != null && getCallingActivity() != null) {
+            PayloadStore.handOff(mParamsToken);
+            PayloadStore.handOff(responsesToken);
+        } else {
+            PayloadStore.release(mParamsToken);
+            PayloadStore.release(responsesToken);
+        }
+    }
 
-        /*
-         * Unregister the broadcaster
-         */
-        unregisterReceiver(mActionReceiver);
+    /**
+     * Dismiss the dialog remotely
+     */
+    @Override
+    public void dismissHost() {
+        DialogLogger.d("Dismissing Remotely", mIdentifier);
+        finish();
     }
 
     @Override
@@ -253,6 +324,7 @@ public class DialogActivity extends AppCompatActivity {
             final Intent intent = makeBasicIntent();
             setResult(DialogResult.RESULT_DIALOG_CANCELLED, intent);
             setCallback(intent);
+            mResultIntent = intent;
         }
         super.finish();
     }
@@ -261,190 +333,89 @@ public class DialogActivity extends AppCompatActivity {
      * Build the alert dialog from given fragment
      */
     private void buildAlertDialog(final DialogWrapper dialogWrapper) {
-        final DialogBuilder builder = new DialogBuilder(this, mThemeRes != 0 ? mThemeRes : com.mrhabibi.autonomousdialog.R.style.AutonomousAlertDialog);
-
-        /*
-         * Collect alert dialog datas
-         */
-        dialogWrapper.onBuildDialog(builder);
-
-        final Intent intent = makeBasicIntent();
+        DialogTrace.begin(DialogTrace.BUILD_ALERT_DIALOG);
+        try {
+            final Intent intent = makeBasicIntent();
 
-        setResult(DialogResult.RESULT_DIALOG_CANCELLED, intent);
+            setResult(DialogResult.RESULT_DIALOG_CANCELLED, intent);
 
-        /*
-         * Manipulate the listeners for activity resulting and intent data bundling
-         */
-        if (builder.getSingleChoiceItems() != null) {
-            builder.setSingleChoiceItemsExpansion(new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialogInterface, int i) {
-                    intent.putExtra("which", i);
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_SINGLE_CHOICE);
-                    if (builder.getSingleChoiceOverridingListener() != null) {
-                        builder.getSingleChoiceOverridingListener().onClick(dialogInterface, i);
-                    }
-                }
-            });
-        }
+            mResultIntent = intent;
+            /*
+             * Reuse the spec built before config changes if the dialog wrapper is retained
+             */
+            DialogRetainedState retainedState = DialogRetainedState.of(this);
+            DialogController dialogController = new DialogController(this, dialogWrapper, intent, mIdentifier, mFirstCreation);
+            mCurrentDialog = dialogController.build(this, mThemeRes, mCancelable, retainedState.take(dialogWrapper));
+            retainedState.keep(dialogWrapper, dialogController.getSpec());
+            mDialogController = dialogController;
 
-        if (builder.getMultiChoiceItems() != null) {
-            builder.setMultiChoiceItemsExpansion(new DialogInterface.OnMultiChoiceClickListener() {
+            /*
+             * The alert dialog takes the back key before the activity, so step back here instead
+             * of cancelling the whole flow
+             */
+            mCurrentDialog.setOnKeyListener(new DialogInterface.OnKeyListener() {
                 @Override
-                public void onClick(DialogInterface dialogInterface, int i, boolean b) {
-                    intent.putExtra("which", i);
-                    intent.putExtra("checked", b);
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_MULTI_CHOICES);
-                    if (builder.getMultiChoiceOverridingListener() != null) {
-                        builder.getMultiChoiceOverridingListener().onClick(dialogInterface, i, b);
+                public boolean onKey(DialogInterface dialog, int keyCode, KeyEvent event) {
+                    if (keyCode != KeyEvent.KEYCODE_BACK || mStep == 0 || !mCancelable) {
+                        return false;
                     }
-                }
-            });
-        }
-
-        if (builder.getPlainChoiceItems() != null) {
-            builder.setItemsExpansion(new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialogInterface, int i) {
-                    intent.putExtra("which", i);
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_PLAIN_CHOICE);
-                    if (builder.getPlainChoiceOverridingListener() != null) {
-                        builder.getPlainChoiceOverridingListener().onClick(dialogInterface, i);
+                    if (event.getAction() == KeyEvent.ACTION_UP && !event.isCanceled()) {
+                        showPreviousStep();
                     }
+                    return true;
                 }
             });
-        }
-
-        if (builder.getPositiveText() != null) {
-            builder.setPositiveButtonExpansion(new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialogInterface, int i) {
-                    intent.putExtra("which", i);
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_POSITIVE_BUTTON);
-                }
-            });
-        }
 
-        if (builder.getNegativeText() != null) {
-            builder.setNegativeButtonExpansion(new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialogInterface, int i) {
-                    intent.putExtra("which", i);
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_NEGATIVE_BUTTON);
-                }
-            });
+            /*
+             * Last thing, show the final alert dialog
+             */
+            mCurrentDialog.show();
+        } finally {
+            DialogTrace.end();
         }
+    }
 
-        if (builder.getNeutralText() != null) {
-            builder.setNeutralButtonExpansion(new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialogInterface, int i) {
-                    intent.putExtra("which", i);
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_NEUTRAL_BUTTON);
-                }
-            });
+    /**
+     * Bundling the responses and add it to intent data before the dialog dismissed
+     */
+    @Override
+    public void onDialogDismissed(DialogInterface dialogInterface, DialogBuilder builder) {
+        /*
+         * The dialog of the previous step is replaced by the next one, not dismissed by the user
+         */
+        if (dialogInterface != mCurrentDialog) {
+            return;
         }
 
         /*
-         * Bundling the responses and add it to intent data before the dialog dismissed
+         * Check if the activity is really going to be destroyed
          */
-        builder.setOnDismissListenerExpansion(new DialogInterface.OnDismissListener() {
-            @Override
-            public void onDismiss(DialogInterface dialogInterface) {
-                /*
-                 * Check if the activity is really going to be destroyed
-                 */
-                if (!mReborn) {
-
-                    setCallback(intent);
-
-                    if (builder.getDismissOverridingListener() != null) {
-                        builder.getDismissOverridingListener().onDismiss(dialogInterface);
-                    }
+        if (!mReborn) {
+            MetricsReporter.report(DialogMetrics.EVENT_DISMISSED, mIdentifier);
 
-                    /*
-                     * At last, finish the host too
-                     */
-                    finish();
-                } else {
+            setCallback(mResultIntent);
 
-                    /*
-                     * Reset the reborn indicator
-                     */
-                    mReborn = false;
-                }
+            if (builder.getDismissOverridingListener() != null) {
+                builder.getDismissOverridingListener().onDismiss(dialogInterface);
             }
-        });
-
-        mCurrentDialog = builder.create();
 
-        mCurrentDialog.setOnShowListener(new DialogInterface.OnShowListener() {
-            @Override
-            public void onShow(final DialogInterface dialogInterface) {
-
-                /*
-                 * Pass the built dialog to fragment to be used in action asynchronously
-                 */
-                dialogWrapper.onDialogShown(mCurrentDialog);
-
-                /*
-                 * Override button's method for alert dialog that has other things to do before
-                 * the dialog is dismissed
-                 */
-                if (builder.getPositiveOverridingListener() != null) {
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_POSITIVE_BUTTON);
-                    mCurrentDialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(new View.OnClickListener() {
-                        @Override
-                        public void onClick(View view) {
-                            builder.getPositiveOverridingListener().onClick(view, dialogInterface);
-                        }
-                    });
-                }
-                if (builder.getNegativeOverridingListener() != null) {
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_NEGATIVE_BUTTON);
-                    mCurrentDialog.getButton(DialogInterface.BUTTON_NEGATIVE).setOnClickListener(new View.OnClickListener() {
-                        @Override
-                        public void onClick(View view) {
-                            builder.getNegativeOverridingListener().onClick(view, dialogInterface);
-                        }
-                    });
-                }
-                if (builder.getNeutralOverridingListener() != null) {
-                    dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_NEUTRAL_BUTTON);
-                    mCurrentDialog.getButton(DialogInterface.BUTTON_NEUTRAL).setOnClickListener(new View.OnClickListener() {
-                        @Override
-                        public void onClick(View view) {
-                            builder.getNeutralOverridingListener().onClick(view, dialogInterface);
-                        }
-                    });
-                }
-            }
-        });
-
-        /*
-         * Set the cancel result when alert dialog cancelled, with no intent data
-         */
-        mCurrentDialog.setOnCancelListener(new DialogInterface.OnCancelListener() {
-            @Override
-            public void onCancel(DialogInterface dialogInterface) {
-                dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_CANCELLED);
-            }
-        });
-
-        /*
-         * Set the alert dialog host
-         */
-        mCurrentDialog.setOwnerActivity(this);
+            /*
+             * At last, finish the host too
+             */
+            finish();
+        } else {
 
-        /*
-         * Cancelable for alert dialog mode
-         */
-        mCurrentDialog.setCancelable(mCancelable);
+            /*
+             * Reset the reborn indicator
+             */
+            mReborn = false;
+        }
+    }
 
-        /*
-         * Last thing, show the final alert dialog
-         */
-        mCurrentDialog.show();
+    @Nullable
+    @Override
+    public DialogController getDialogController() {
+        return mDialogController;
     }
 
     /**
@@ -459,7 +430,7 @@ public class DialogActivity extends AppCompatActivity {
 
         Intent intent = new Intent();
         intent.putExtra("id", mIdentifier);
-        intent.putExtra("params", mParams);
+        DialogController.bundleParams(intent, mParams, mParamsToken);
         return intent;
     }
 
@@ -469,28 +440,29 @@ public class DialogActivity extends AppCompatActivity {
      * @param intent Passed intent
      */
     private void setCallback(Intent intent) {
-
-        /*
-         * If the fragment has DialogCallback
-         */
-        if (mCurrentFragment != null && mCurrentFragment instanceof DialogCallback) {
-
-            Bundle responses = new Bundle();
-
-            DialogCallback dialogCallback = (DialogCallback) mCurrentFragment;
+        DialogTrace.begin(DialogTrace.SET_CALLBACK);
+        try {
+            int resultCode = DialogResult.RESULT_DIALOG_CANCELLED;
 
             /*
-             * Collecting alert dialog response bundle
+             * If the fragment has DialogCallback
              */
-            dialogCallback.onBundleResponses(responses);
+            if (mCurrentFragment != null && mCurrentFragment instanceof DialogCallback) {
 
-            intent.putExtra("responses", responses);
+                /*
+                 * Reset result code
+                 */
+                resultCode = DialogController.bundleResponses((DialogCallback) mCurrentFragment, intent, mParamsToken != null);
+                setResult(resultCode, intent);
+            }
 
             /*
-             * Reset result code
+             * Pass the live result to in-process subscribers too
              */
-            int resultCode = dialogCallback.getResultCode();
-            setResult(resultCode, intent);
+            DialogResultChannel.publish(DialogResponse.from(resultCode, intent));
+            MetricsReporter.report(DialogMetrics.EVENT_RESULT_DELIVERED, mIdentifier, resultCode);
+        } finally {
+            DialogTrace.end();
         }
     }
 
@@ -505,19 +477,161 @@ public class DialogActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STEP_LABEL, mStep);
+    }
+
     @Override
     public void onBackPressed() {
 
         /*
-         * Just destroy the activity, it doesn't have backstack tho
+         * Go back to the previous step if any, otherwise just destroy the activity
          */
-        if (mCancelable) {
+        if (mCancelable && !showPreviousStep()) {
             finish();
         }
     }
 
+    /**
+     * Replace the current dialog with the next one in the same host without launching another
+     * activity, the result of the current step is published to DialogResultChannel with the
+     * step identifier, and the current step is kept in memory to come back to
+     *
+     * @param next The next step, must be a DialogWrapper in alert dialog mode
+     * @return True if the next step is shown, false if this host can't show it now
+     */
+    public boolean showNextStep(@NonNull Fragment next) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        if (isFinishing() || fragmentManager.isStateSaved() || mCurrentFragment == null) {
+            return false;
+        }
+
+        if (isAlertDialog()) {
+            if (!(next instanceof DialogWrapper)) {
+                throw new IllegalArgumentException("The next step of alert dialog must be a DialogWrapper!");
+            }
+            DialogWrapper current = (DialogWrapper) mCurrentFragment;
+            publishStepResult(current, mResultIntent);
+            current.onStepHidden();
+
+            /*
+             * Show the next dialog first, then dismiss the previous one, so there's no gap
+             */
+            AlertDialog previousDialog = mCurrentDialog;
+            mStep++;
+            fragmentManager.beginTransaction()
+                    .add(next, getStepTag(mStep))
+                    .commitNow();
+            mCurrentFragment = next;
+            buildAlertDialog((DialogWrapper) next);
+            previousDialog.dismiss();
+        } else if (isDialogFragment()) {
+            if (mCurrentFragment instanceof DialogCallback) {
+                publishStepResult((DialogCallback) mCurrentFragment, makeBasicIntent());
+            }
+
+            /*
+             * The back stack keeps the previous fragment and its state in memory
+             */
+            mStep++;
+            fragmentManager.beginTransaction()
+                    .replace(com.mrhabibi.autonomousdialog.R.id.fragment_container, next, getStepTag(mStep))
+                    .addToBackStack(null)
+                    .commit();
+            mCurrentFragment = next;
+        } else {
+            return false;
+        }
+
+        DialogLogger.d("Showing Step", mIdentifier, mStep);
+        return true;
+    }
+
+    /**
+     * Go back to the previous step, the current step is discarded without result
+     *
+     * @return True if the previous step is shown, false if this is the first step
+     */
+    public boolean showPreviousStep() {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        if (mStep == 0 || isFinishing() || fragmentManager.isStateSaved()) {
+            return false;
+        }
+
+        if (isAlertDialog()) {
+            Fragment current = mCurrentFragment;
+            AlertDialog currentDialog = mCurrentDialog;
+            mStep--;
+            mCurrentFragment = fragmentManager.findFragmentByTag(getStepTag(mStep));
+            fragmentManager.beginTransaction()
+                    .remove(current)
+                    .commitNow();
+            buildAlertDialog((DialogWrapper) mCurrentFragment);
+            currentDialog.dismiss();
+        } else {
+            fragmentManager.popBackStackImmediate();
+            mStep--;
+            mCurrentFragment = fragmentManager.findFragmentByTag(getStepTag(mStep));
+        }
+
+        DialogLogger.d("Showing Step", mIdentifier, mStep);
+        return true;
+    }
+
+    /**
+     * @return Index of the current step, 0 is the launched content
+     */
+    public int getStep() {
+        return mStep;
+    }
+
+    /**
+     * Publish the result of the current step to the subscribers of the step identifier
+     */
+    private void publishStepResult(DialogCallback callback, Intent intent) {
+        if (mIdentifier == null) {
+            return;
+        }
+        intent.putExtra("id", AutonomousDialog.getStepIdentifier(mIdentifier, mStep));
+        intent.putExtra(STEP_LABEL, mStep);
+        int resultCode = DialogController.bundleResponses(callback, intent, false);
+        DialogResultChannel.publish(DialogResponse.from(resultCode, intent));
+    }
+
+    /**
+     * Get the FragmentManager tag of the step
+     *
+     * @param step Index of the step
+     * @return The tag, the first step uses FRAGMENT_TAG
+     */
+    protected static String getStepTag(int step) {
+        return step == 0 ? FRAGMENT_TAG : FRAGMENT_TAG + "_" + step;
+    }
+
     private void extractBundleStates(Bundle bundle) {
         if (bundle != null) {
+            DialogLaunchSpec launchSpec = bundle.getParcelable(LAUNCH_SPEC_LABEL);
+            mLaunchSpec = launchSpec;
+            if (launchSpec != null) {
+                mFragmentGetterId = launchSpec.mFragmentGetterId;
+                mCancelable = launchSpec.mCancelable;
+                mIdentifier = launchSpec.mIdentifier;
+                mThemeRes = launchSpec.mThemeRes;
+                mParams = launchSpec.mParams;
+                mParamsToken = launchSpec.mParamsToken;
+                if (mParamsToken != null) {
+                    mParams = PayloadStore.get(mParamsToken, getClassLoader());
+                    PayloadStore.hold(mParamsToken);
+                }
+                mScheduleTicket = launchSpec.mScheduleTicket;
+                return;
+            }
+
+            /*
+             * Legacy launch extras
+             */
             if (bundle.containsKey(FRAGMENT_GETTER_ID_LABEL)) {
                 mFragmentGetterId = bundle.getString(FRAGMENT_GETTER_ID_LABEL);
             }
@@ -3,6 +3,7 @@ package com.mrhabibi.autonomousdialog;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ListAdapter;
 
 import androidx.annotation.NonNull;
@@ -17,14 +18,22 @@ import androidx.appcompat.app.AlertDialog;
 
 public class DialogBuilder {
 
-    private AlertDialog.Builder mAlertDialogBuilder;
+    /**
+     * The theme of the dialog built by the legacy constructors, the spec itself has no context so
+     * it can be built again in another activity after config changes
+     */
+    private Context mContext;
+    @StyleRes
+    private int mThemeRes;
 
     /**
      * Single choice stuff
      */
     private CharSequence[] mSingleChoiceItems;
+    private ListAdapter mSingleChoiceAdapter;
     private int mSingleChoiceCheckedItem;
     private DialogInterface.OnClickListener mSingleChoiceOverridingListener;
+    private DialogInterface.OnClickListener mSingleChoiceExpansion;
 
     /**
      * Multi choice stuff
@@ -32,12 +41,15 @@ public class DialogBuilder {
     private CharSequence[] mMultiChoiceItems;
     private boolean[] mMultiChoiceCheckedItems;
     private DialogInterface.OnMultiChoiceClickListener mMultiChoiceOverridingListener;
+    private DialogInterface.OnMultiChoiceClickListener mMultiChoiceExpansion;
 
     /**
      * Plain choice stuff
      */
     private CharSequence[] mPlainChoiceItems;
+    private ListAdapter mPlainChoiceAdapter;
     private DialogInterface.OnClickListener mPlainChoiceOverridingListener;
+    private DialogInterface.OnClickListener mPlainChoiceExpansion;
 
     /**
      * Button stuff
@@ -48,18 +60,31 @@ public class DialogBuilder {
     private OnOverridingButtonClickListener mPositiveOverridingListener;
     private OnOverridingButtonClickListener mNegativeOverridingListener;
     private OnOverridingButtonClickListener mNeutralOverridingListener;
+    private DialogInterface.OnClickListener mPositiveExpansion;
+    private DialogInterface.OnClickListener mNegativeExpansion;
+    private DialogInterface.OnClickListener mNeutralExpansion;
 
     /**
      * Appearance stuff
      */
     private DialogInterface.OnDismissListener mDismissOverridingListener;
+    private DialogInterface.OnDismissListener mDismissExpansion;
+    private CharSequence mTitle;
+    private View mCustomTitle;
+    private CharSequence mMessage;
+    private View mView;
+    private ListAdapter mAdapter;
+
+    DialogBuilder() {
+    }
 
     public DialogBuilder(@NonNull Context context) {
-        this.mAlertDialogBuilder = new AlertDialog.Builder(context);
+        this.mContext = context;
     }
 
     public DialogBuilder(@NonNull Context context, @StyleRes int themeResId) {
-        this.mAlertDialogBuilder = new AlertDialog.Builder(context, themeResId);
+        this.mContext = context;
+        this.mThemeRes = themeResId;
     }
 
     /**
@@ -69,7 +94,19 @@ public class DialogBuilder {
     public DialogBuilder setSingleChoiceItems(CharSequence[] items, int checkedItem) {
         this.mSingleChoiceItems = items;
         this.mSingleChoiceCheckedItem = checkedItem;
-        this.mAlertDialogBuilder.setSingleChoiceItems(items, checkedItem, null);
+        return this;
+    }
+
+    /**
+     * Single choice using adapter, used for large lists that are loaded on demand
+     *
+     * @param adapter     The adapter, its item views must be Checkable
+     * @param checkedItem The checked item
+     * @return The Builder
+     */
+    public DialogBuilder setSingleChoiceItems(ListAdapter adapter, int checkedItem) {
+        this.mSingleChoiceAdapter = adapter;
+        this.mSingleChoiceCheckedItem = checkedItem;
         return this;
     }
 
@@ -80,7 +117,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setSingleChoiceItemsExpansion(DialogInterface.OnClickListener listener) {
-        this.mAlertDialogBuilder.setSingleChoiceItems(this.mSingleChoiceItems, this.mSingleChoiceCheckedItem, listener);
+        this.mSingleChoiceExpansion = listener;
         return this;
     }
 
@@ -88,6 +125,21 @@ public class DialogBuilder {
         return mSingleChoiceItems;
     }
 
+    boolean hasSingleChoiceItems() {
+        return mSingleChoiceItems != null || mSingleChoiceAdapter != null;
+    }
+
+    /**
+     * Get the which of the clicked single choice, the adapter that has stable ids reports the item
+     * id instead of the position, like the filtered list that keeps the original index
+     *
+     * @param position The clicked position
+     * @return The which
+     */
+    int getSingleChoiceWhich(int position) {
+        return getWhich(mSingleChoiceAdapter, position);
+    }
+
     public DialogInterface.OnClickListener getSingleChoiceOverridingListener() {
         return mSingleChoiceOverridingListener;
     }
@@ -104,7 +156,6 @@ public class DialogBuilder {
     public DialogBuilder setMultiChoiceItems(CharSequence[] items, boolean[] checkedItems) {
         this.mMultiChoiceItems = items;
         this.mMultiChoiceCheckedItems = checkedItems;
-        this.mAlertDialogBuilder.setMultiChoiceItems(items, checkedItems, null);
         return this;
     }
 
@@ -115,7 +166,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setMultiChoiceItemsExpansion(DialogInterface.OnMultiChoiceClickListener listener) {
-        this.mAlertDialogBuilder.setMultiChoiceItems(this.mMultiChoiceItems, this.mMultiChoiceCheckedItems, listener);
+        this.mMultiChoiceExpansion = listener;
         return this;
     }
 
@@ -123,6 +174,24 @@ public class DialogBuilder {
         return mMultiChoiceItems;
     }
 
+    DialogInterface.OnMultiChoiceClickListener getMultiChoiceItemsExpansion() {
+        return mMultiChoiceExpansion;
+    }
+
+    /**
+     * Dispatch the click of the multi choice list made by the dialog wrapper itself, like the list
+     * of ChoiceSource, so the result has the which and checked like the multi choice items
+     *
+     * @param dialogInterface The dialog
+     * @param which           The clicked choice
+     * @param checked         Is checked
+     */
+    public void dispatchMultiChoiceClick(DialogInterface dialogInterface, int which, boolean checked) {
+        if (mMultiChoiceExpansion != null) {
+            mMultiChoiceExpansion.onClick(dialogInterface, which, checked);
+        }
+    }
+
     public DialogInterface.OnMultiChoiceClickListener getMultiChoiceOverridingListener() {
         return mMultiChoiceOverridingListener;
     }
@@ -138,7 +207,17 @@ public class DialogBuilder {
 
     public DialogBuilder setItems(CharSequence[] items) {
         this.mPlainChoiceItems = items;
-        this.mAlertDialogBuilder.setItems(items, null);
+        return this;
+    }
+
+    /**
+     * Plain choice using adapter, used for large lists that are loaded on demand
+     *
+     * @param adapter The adapter
+     * @return The Builder
+     */
+    public DialogBuilder setItems(ListAdapter adapter) {
+        this.mPlainChoiceAdapter = adapter;
         return this;
     }
 
@@ -149,7 +228,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setItemsExpansion(DialogInterface.OnClickListener listener) {
-        this.mAlertDialogBuilder.setItems(this.mPlainChoiceItems, listener);
+        this.mPlainChoiceExpansion = listener;
         return this;
     }
 
@@ -157,6 +236,62 @@ public class DialogBuilder {
         return mPlainChoiceItems;
     }
 
+    boolean hasPlainChoiceItems() {
+        return mPlainChoiceItems != null || mPlainChoiceAdapter != null;
+    }
+
+    /**
+     * Get the which of the clicked plain choice, the same way as getSingleChoiceWhich
+     *
+     * @param position The clicked position
+     * @return The which
+     */
+    int getPlainChoiceWhich(int position) {
+        return getWhich(mPlainChoiceAdapter, position);
+    }
+
+    /**
+     * Get the items of the list, whichever kind of choice it is
+     *
+     * @return The items, or null if there's no list or the list uses an adapter
+     */
+    CharSequence[] getChoiceItems() {
+        if (hasSingleChoiceItems()) {
+            return mSingleChoiceItems;
+        } else if (mMultiChoiceItems != null) {
+            return mMultiChoiceItems;
+        }
+        return mPlainChoiceItems;
+    }
+
+    /**
+     * Replace the items of the list after DialogUpdate changed them in the live dialog, so the
+     * next build has them too, the adapter is dropped and the checked states are cleared
+     *
+     * @param items        The new items
+     * @param checkedItems The checked states of the multi choice, in the size of the items
+     */
+    void replaceChoiceItems(CharSequence[] items, boolean[] checkedItems) {
+        if (hasSingleChoiceItems()) {
+            mSingleChoiceItems = items;
+            mSingleChoiceAdapter = null;
+            mSingleChoiceCheckedItem = -1;
+        } else if (mMultiChoiceItems != null) {
+            mMultiChoiceItems = items;
+            mMultiChoiceCheckedItems = checkedItems;
+        } else {
+            mPlainChoiceItems = items;
+            mPlainChoiceAdapter = null;
+        }
+    }
+
+    private static int getWhich(ListAdapter adapter, int position) {
+        if (adapter != null && adapter.hasStableIds()) {
+            return (int) adapter.getItemId(position);
+        }
+        return position;
+    }
+
     public DialogInterface.OnClickListener getPlainChoiceOverridingListener() {
         return mPlainChoiceOverridingListener;
     }
@@ -172,7 +307,6 @@ public class DialogBuilder {
 
     public DialogBuilder setPositiveButton(CharSequence text) {
         this.mPositiveText = text;
-        this.mAlertDialogBuilder.setPositiveButton(text.toString().toUpperCase(), null);
         return this;
     }
 
@@ -183,7 +317,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setPositiveButtonExpansion(DialogInterface.OnClickListener listener) {
-        this.mAlertDialogBuilder.setPositiveButton(this.mPositiveText, listener);
+        this.mPositiveExpansion = listener;
         return this;
     }
 
@@ -206,7 +340,6 @@ public class DialogBuilder {
 
     public DialogBuilder setNegativeButton(CharSequence text) {
         this.mNegativeText = text;
-        this.mAlertDialogBuilder.setNegativeButton(text.toString().toUpperCase(), null);
         return this;
     }
 
@@ -217,7 +350,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setNegativeButtonExpansion(DialogInterface.OnClickListener listener) {
-        this.mAlertDialogBuilder.setNegativeButton(this.mNegativeText, listener);
+        this.mNegativeExpansion = listener;
         return this;
     }
 
@@ -240,7 +373,6 @@ public class DialogBuilder {
 
     public DialogBuilder setNeutralButton(CharSequence text) {
         this.mNeutralText = text;
-        this.mAlertDialogBuilder.setNeutralButton(text.toString().toUpperCase(), null);
         return this;
     }
 
@@ -251,7 +383,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setNeutralButtonExpansion(DialogInterface.OnClickListener listener) {
-        this.mAlertDialogBuilder.setNeutralButton(this.mNeutralText, listener);
+        this.mNeutralExpansion = listener;
         return this;
     }
 
@@ -274,7 +406,6 @@ public class DialogBuilder {
 
     public DialogBuilder setOnDismissOverridingListener(DialogInterface.OnDismissListener listener) {
         this.mDismissOverridingListener = listener;
-        this.mAlertDialogBuilder.setOnDismissListener(listener);
         return this;
     }
 
@@ -285,7 +416,7 @@ public class DialogBuilder {
      * @return The Builder
      */
     DialogBuilder setOnDismissListenerExpansion(DialogInterface.OnDismissListener listener) {
-        this.mAlertDialogBuilder.setOnDismissListener(listener);
+        this.mDismissExpansion = listener;
         return this;
     }
 
@@ -298,32 +429,108 @@ public class DialogBuilder {
      */
 
     public DialogBuilder setTitle(CharSequence title) {
-        this.mAlertDialogBuilder.setTitle(title);
+        this.mTitle = title;
+        return this;
+    }
+
+    /**
+     * Use the view as the title, like title with search field
+     *
+     * @param view The title view
+     * @return The Builder
+     */
+    public DialogBuilder setCustomTitle(View view) {
+        this.mCustomTitle = view;
         return this;
     }
 
     public DialogBuilder setMessage(CharSequence message) {
-        this.mAlertDialogBuilder.setMessage(message);
+        this.mMessage = message;
         return this;
     }
 
     public DialogBuilder setView(View view) {
-        this.mAlertDialogBuilder.setView(view);
+        this.mView = view;
         return this;
     }
 
     public DialogBuilder setAdapter(ListAdapter adapter) {
-        this.mAlertDialogBuilder.setAdapter(adapter, null);
+        this.mAdapter = adapter;
         return this;
     }
 
     /**
-     * Final touch of building dialog
+     * Final touch of building dialog with the context of the legacy constructors
      *
      * @return Built dialog
      */
     AlertDialog create() {
-        return this.mAlertDialogBuilder.create();
+        return create(mContext, mThemeRes);
+    }
+
+    /**
+     * Final touch of building dialog, the spec is applied to a new AlertDialog.Builder, so the
+     * same spec can be built again in the new activity after config changes
+     *
+     * @param context  The context of the dialog window
+     * @param themeRes The alert dialog theme, 0 for the default one
+     * @return Built dialog
+     */
+    AlertDialog create(@NonNull Context context, @StyleRes int themeRes) {
+        AlertDialog.Builder builder = themeRes != 0 ? new AlertDialog.Builder(context, themeRes) : new AlertDialog.Builder(context);
+
+        if (mTitle != null) {
+            builder.setTitle(mTitle);
+        }
+        if (mCustomTitle != null) {
+            builder.setCustomTitle(detach(mCustomTitle));
+        }
+        if (mMessage != null) {
+            builder.setMessage(mMessage);
+        }
+        if (mView != null) {
+            builder.setView(detach(mView));
+        }
+        if (mAdapter != null) {
+            builder.setAdapter(mAdapter, null);
+        }
+
+        if (mSingleChoiceAdapter != null) {
+            builder.setSingleChoiceItems(mSingleChoiceAdapter, mSingleChoiceCheckedItem, mSingleChoiceExpansion);
+        } else if (mSingleChoiceItems != null) {
+            builder.setSingleChoiceItems(mSingleChoiceItems, mSingleChoiceCheckedItem, mSingleChoiceExpansion);
+        }
+        if (mMultiChoiceItems != null) {
+            builder.setMultiChoiceItems(mMultiChoiceItems, mMultiChoiceCheckedItems, mMultiChoiceExpansion);
+        }
+        if (mPlainChoiceAdapter != null) {
+            builder.setAdapter(mPlainChoiceAdapter, mPlainChoiceExpansion);
+        } else if (mPlainChoiceItems != null) {
+            builder.setItems(mPlainChoiceItems, mPlainChoiceExpansion);
+        }
+
+        if (mPositiveText != null) {
+            builder.setPositiveButton(mPositiveText, mPositiveExpansion);
+        }
+        if (mNegativeText != null) {
+            builder.setNegativeButton(mNegativeText, mNegativeExpansion);
+        }
+        if (mNeutralText != null) {
+            builder.setNeutralButton(mNeutralText, mNeutralExpansion);
+        }
+
+        builder.setOnDismissListener(mDismissExpansion != null ? mDismissExpansion : mDismissOverridingListener);
+        return builder.create();
+    }
+
+    /**
+     * Take the view out of the dialog it was shown in before config changes
+     */
+    private static View detach(View view) {
+        if (view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+        return view;
     }
 
     public interface OnOverridingButtonClickListener {
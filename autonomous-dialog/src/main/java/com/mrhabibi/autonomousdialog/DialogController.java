@@ -0,0 +1,386 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.app.Activity;
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.appcompat.app.AlertDialog;
+
+import com.mrhabibi.autonomousdialog.utils.DialogTrace;
+import com.mrhabibi.autonomousdialog.utils.FrameCoalescer;
+import com.mrhabibi.autonomousdialog.utils.MetricsReporter;
+import com.mrhabibi.autonomousdialog.utils.PayloadStore;
+import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
+
+/**
+ * This class builds the alert dialog from a dialog wrapper and wires its listeners for resulting
+ * purpose, it is shared by every host that can present a dialog wrapper, which are DialogActivity
+ * and the in-window DialogHostFragment. The controller itself is the only listener of its dialog,
+ * it dispatches every click, show, cancel and dismiss, so the listeners cost no allocation
+ */
+class DialogController implements DialogInterface.OnClickListener, DialogInterface.OnMultiChoiceClickListener,
+        DialogInterface.OnShowListener, DialogInterface.OnCancelListener, DialogInterface.OnDismissListener,
+        View.OnClickListener {
+
+    /**
+     * The host that owns the built alert dialog
+     */
+    interface Host {
+
+        /**
+         * Called when the built alert dialog is dismissed, the host decides whether it is a real
+         * dismissal or just a dismissal caused by config changes
+         *
+         * @param dialogInterface The dismissed dialog
+         * @param builder         The builder used to build the dismissed dialog
+         */
+        void onDialogDismissed(DialogInterface dialogInterface, DialogBuilder builder);
+
+        /**
+         * Get the controller of the live dialog, used to update the dialog in place
+         *
+         * @return The controller, or null if the dialog is not built yet
+         */
+        @Nullable
+        DialogController getDialogController();
+    }
+
+    private final Host mHost;
+    private final DialogWrapper mDialogWrapper;
+    private final Intent mIntent;
+    private final String mIdentifier;
+
+    /**
+     * Report the first shown metric, false when the dialog is built again after config changes
+     */
+    private final boolean mFirstShow;
+
+    private AlertDialog mDialog;
+
+    /**
+     * The spec built by the dialog wrapper, kept by the host for the dialog wrapper that is
+     * retained across config changes
+     */
+    private DialogBuilder mSpec;
+
+    /**
+     * The updates waiting for the next frame and the ones being applied, swapped every frame
+     */
+    private DialogUpdate mPendingUpdate = new DialogUpdate();
+    private DialogUpdate mFrameUpdate = new DialogUpdate();
+
+    private final FrameCoalescer mUpdateCoalescer = new FrameCoalescer(new Runnable() {
+        @Override
+        public void run() {
+            applyPendingUpdate();
+        }
+    });
+
+    DialogController(@NonNull Host host, @NonNull DialogWrapper dialogWrapper, @NonNull Intent intent, @Nullable String identifier, boolean firstShow) {
+        this.mHost = host;
+        this.mDialogWrapper = dialogWrapper;
+        this.mIntent = intent;
+        this.mIdentifier = identifier;
+        this.mFirstShow = firstShow;
+    }
+
+    /**
+     * Build the alert dialog from the dialog wrapper, the dialog is not shown yet
+     *
+     * @param activity     The activity that owns the dialog window
+     * @param themeRes     The alert dialog theme
+     * @param cancelable   Can be canceled
+     * @param retainedSpec The spec built before config changes, the dialog wrapper is not asked
+     *                     to build it again, null to build it
+     * @return The built alert dialog
+     */
+    AlertDialog build(@NonNull Activity activity, @StyleRes int themeRes, boolean cancelable, @Nullable DialogBuilder retainedSpec) {
+        DialogBuilder builder;
+        if (retainedSpec != null) {
+            builder = retainedSpec;
+        } else {
+            builder = new DialogBuilder();
+
+            /*
+             * Collect alert dialog datas
+             */
+            DialogTrace.begin(DialogTrace.BUILD_DIALOG);
+            try {
+                mDialogWrapper.onBuildDialog(builder);
+            } finally {
+                DialogTrace.end();
+            }
+        }
+        mSpec = builder;
+
+        /*
+         * Manipulate the listeners for activity resulting and intent data bundling, all of them
+         * are dispatched by this controller, so building makes no listener objects
+         */
+        if (builder.hasSingleChoiceItems()) {
+            builder.setSingleChoiceItemsExpansion(this);
+        }
+
+        /*
+         * Always, the multi choice list made by the dialog wrapper dispatches through it too
+         */
+        builder.setMultiChoiceItemsExpansion(this);
+        if (builder.hasPlainChoiceItems()) {
+            builder.setItemsExpansion(this);
+        }
+        if (builder.getPositiveText() != null) {
+            builder.setPositiveButtonExpansion(this);
+        }
+        if (builder.getNegativeText() != null) {
+            builder.setNegativeButtonExpansion(this);
+        }
+        if (builder.getNeutralText() != null) {
+            builder.setNeutralButtonExpansion(this);
+        }
+
+        /*
+         * Let the host bundle the responses before the dialog dismissed
+         */
+        builder.setOnDismissListenerExpansion(this);
+
+        final AlertDialog dialog = builder.create(activity, themeRes != 0 ? themeRes : com.mrhabibi.autonomousdialog.R.style.AutonomousAlertDialog);
+        mDialog = dialog;
+
+        dialog.setOnShowListener(this);
+
+        /*
+         * Set the cancel result when alert dialog cancelled, with no intent data
+         */
+        dialog.setOnCancelListener(this);
+
+        /*
+         * Set the alert dialog host
+         */
+        dialog.setOwnerActivity(activity);
+
+        /*
+         * Cancelable for alert dialog mode
+         */
+        dialog.setCancelable(cancelable);
+
+        return dialog;
+    }
+
+    /**
+     * Dispatch the clicks of the buttons and the list items
+     */
+    @Override
+    public void onClick(DialogInterface dialogInterface, int i) {
+        DialogBuilder builder = mSpec;
+        switch (i) {
+            case DialogInterface.BUTTON_POSITIVE:
+                chooseButton(i, DialogResult.RESULT_DIALOG_POSITIVE_BUTTON);
+                break;
+            case DialogInterface.BUTTON_NEGATIVE:
+                chooseButton(i, DialogResult.RESULT_DIALOG_NEGATIVE_BUTTON);
+                break;
+            case DialogInterface.BUTTON_NEUTRAL:
+                chooseButton(i, DialogResult.RESULT_DIALOG_NEUTRAL_BUTTON);
+                break;
+            default:
+                if (builder.hasSingleChoiceItems()) {
+                    int which = builder.getSingleChoiceWhich(i);
+                    chooseButton(which, DialogResult.RESULT_DIALOG_SINGLE_CHOICE);
+                    if (builder.getSingleChoiceOverridingListener() != null) {
+                        builder.getSingleChoiceOverridingListener().onClick(dialogInterface, which);
+                    }
+                } else {
+                    int which = builder.getPlainChoiceWhich(i);
+                    chooseButton(which, DialogResult.RESULT_DIALOG_PLAIN_CHOICE);
+                    if (builder.getPlainChoiceOverridingListener() != null) {
+                        builder.getPlainChoiceOverridingListener().onClick(dialogInterface, which);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Dispatch the clicks of the multi choice items
+     */
+    @Override
+    public void onClick(DialogInterface dialogInterface, int i, boolean b) {
+        mIntent.putExtra("checked", b);
+        chooseButton(i, DialogResult.RESULT_DIALOG_MULTI_CHOICES);
+        if (mSpec.getMultiChoiceOverridingListener() != null) {
+            mSpec.getMultiChoiceOverridingListener().onClick(dialogInterface, i, b);
+        }
+    }
+
+    /**
+     * Dispatch the clicks of the buttons that are overridden by the dialog wrapper
+     */
+    @Override
+    public void onClick(View view) {
+        DialogBuilder builder = mSpec;
+        int id = view.getId();
+        if (id == android.R.id.button1) {
+            MetricsReporter.report(DialogMetrics.EVENT_BUTTON_CHOSEN, mIdentifier, DialogResult.RESULT_DIALOG_POSITIVE_BUTTON);
+            builder.getPositiveOverridingListener().onClick(view, mDialog);
+        } else if (id == android.R.id.button2) {
+            MetricsReporter.report(DialogMetrics.EVENT_BUTTON_CHOSEN, mIdentifier, DialogResult.RESULT_DIALOG_NEGATIVE_BUTTON);
+            builder.getNegativeOverridingListener().onClick(view, mDialog);
+        } else if (id == android.R.id.button3) {
+            MetricsReporter.report(DialogMetrics.EVENT_BUTTON_CHOSEN, mIdentifier, DialogResult.RESULT_DIALOG_NEUTRAL_BUTTON);
+            builder.getNeutralOverridingListener().onClick(view, mDialog);
+        }
+    }
+
+    @Override
+    public void onShow(DialogInterface dialogInterface) {
+        DialogWrapper dialogWrapper = mDialogWrapper;
+        DialogBuilder builder = mSpec;
+        AlertDialog dialog = mDialog;
+
+        if (mFirstShow) {
+            MetricsReporter.report(DialogMetrics.EVENT_DIALOG_SHOWN, mIdentifier);
+        }
+
+        /*
+         * Pass the built dialog to fragment to be used in action asynchronously
+         */
+        dialogWrapper.onDialogShown(dialog);
+
+        /*
+         * Bring back the updates applied before config changes, then the waiting ones
+         */
+        if (!dialogWrapper.getAppliedUpdate().isEmpty()) {
+            dialogWrapper.getAppliedUpdate().applyTo(dialog, builder, dialogWrapper);
+        }
+        applyPendingUpdate();
+
+        /*
+         * Override button's method for alert dialog that has other things to do before
+         * the dialog is dismissed
+         */
+        if (builder.getPositiveOverridingListener() != null) {
+            dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_POSITIVE_BUTTON);
+            dialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(this);
+        }
+        if (builder.getNegativeOverridingListener() != null) {
+            dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_NEGATIVE_BUTTON);
+            dialog.getButton(DialogInterface.BUTTON_NEGATIVE).setOnClickListener(this);
+        }
+        if (builder.getNeutralOverridingListener() != null) {
+            dialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_NEUTRAL_BUTTON);
+            dialog.getButton(DialogInterface.BUTTON_NEUTRAL).setOnClickListener(this);
+        }
+    }
+
+    @Override
+    public void onCancel(DialogInterface dialogInterface) {
+        mDialogWrapper.setResultCode(DialogResult.RESULT_DIALOG_CANCELLED);
+    }
+
+    @Override
+    public void onDismiss(DialogInterface dialogInterface) {
+        mUpdateCoalescer.cancel();
+        mHost.onDialogDismissed(dialogInterface, mSpec);
+    }
+
+    /**
+     * Save the chosen which and result code
+     */
+    private void chooseButton(int which, int resultCode) {
+        mIntent.putExtra("which", which);
+        mDialogWrapper.setResultCode(resultCode);
+        MetricsReporter.report(DialogMetrics.EVENT_BUTTON_CHOSEN, mIdentifier, resultCode);
+    }
+
+    /**
+     * Get the spec of the built dialog, the listeners are set again by the next build
+     *
+     * @return The spec, or null if the dialog is not built yet
+     */
+    @Nullable
+    DialogBuilder getSpec() {
+        return mSpec;
+    }
+
+    /**
+     * Update the live dialog in place, updates that come faster than the frame rate are merged
+     * and applied once per frame, safe to be called from any thread
+     *
+     * @param update The update, it's copied so it can be reused by the caller
+     */
+    void update(@NonNull DialogUpdate update) {
+        synchronized (this) {
+            mPendingUpdate.merge(update);
+        }
+        mUpdateCoalescer.request();
+    }
+
+    private void applyPendingUpdate() {
+        AlertDialog dialog = mDialog;
+        if (dialog == null || !dialog.isShowing()) {
+
+            /*
+             * Keep the updates until the dialog is shown
+             */
+            return;
+        }
+
+        DialogUpdate frameUpdate;
+        synchronized (this) {
+            if (mPendingUpdate.isEmpty()) {
+                return;
+            }
+            frameUpdate = mPendingUpdate;
+            mPendingUpdate = mFrameUpdate;
+            mFrameUpdate = frameUpdate;
+        }
+
+        frameUpdate.applyTo(dialog, mSpec, mDialogWrapper);
+        mDialogWrapper.getAppliedUpdate().merge(frameUpdate);
+        frameUpdate.clear();
+    }
+
+    /**
+     * Add responses of the dialog callback to the result intent
+     *
+     * @param dialogCallback The dialog callback
+     * @param intent         The result intent
+     * @param offBinder      Keep the responses in PayloadStore and add only the token
+     * @return The result code of the dialog callback
+     */
+    static int bundleResponses(@NonNull DialogCallback dialogCallback, @NonNull Intent intent, boolean offBinder) {
+        Bundle responses = new Bundle();
+
+        /*
+         * Collecting alert dialog response bundle
+         */
+        dialogCallback.onBundleResponses(responses);
+
+        if (offBinder) {
+            intent.putExtra("responsesToken", PayloadStore.put(responses));
+        } else {
+            intent.putExtra("responses", responses);
+        }
+        return dialogCallback.getResultCode();
+    }
+
+    /**
+     * Add the params to the result intent
+     *
+     * @param intent      The result intent
+     * @param params      The params
+     * @param paramsToken The token of params kept in PayloadStore, used instead of params if any
+     */
+    static void bundleParams(@NonNull Intent intent, @NonNull Bundle params, @Nullable String paramsToken) {
+        if (paramsToken != null) {
+            intent.putExtra("paramsToken", paramsToken);
+        } else {
+            intent.putExtra("params", params);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.os.Bundle;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentActivity;
+import androidx.fragment.app.FragmentManager;
+
+import com.mrhabibi.autonomousdialog.utils.DialogLogger;
+import com.mrhabibi.autonomousdialog.utils.DialogRegistry;
+import com.mrhabibi.autonomousdialog.utils.DialogScheduler;
+import com.mrhabibi.autonomousdialog.utils.DialogTrace;
+import com.mrhabibi.autonomousdialog.utils.FragmentPasser;
+import com.mrhabibi.autonomousdialog.utils.MetricsReporter;
+import com.mrhabibi.autonomousdialog.utils.PayloadStore;
+import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
+
+import static com.mrhabibi.autonomousdialog.DialogActivity.FRAGMENT_TAG;
+import static com.mrhabibi.autonomousdialog.DialogActivity.LAUNCH_SPEC_LABEL;
+
+/**
+ * This fragment is the host for window presentation mode, it has no view and lives inside the
+ * calling activity, so the alert dialog is shown in a window owned by that activity without
+ * launching DialogActivity. The dialog wrapper is kept as a child fragment, so it survives config
+ * changes the same way as in DialogActivity, and the result is passed to the calling activity
+ * if it implements DialogResultListener
+ */
+public class DialogHostFragment extends Fragment implements DialogHost, DialogController.Host {
+
+    /**
+     * Prefix of the host tag in the calling activity FragmentManager
+     */
+    public static final String HOST_TAG_PREFIX = "DialogHost_";
+
+    protected String mFragmentGetterId;
+    protected boolean mCancelable;
+    protected String mIdentifier;
+    @StyleRes
+    protected int mThemeRes;
+    protected Bundle mParams;
+    protected String mParamsToken;
+
+    /**
+     * The DialogScheduler ticket, NO_TICKET if the dialog is not queued
+     */
+    protected long mScheduleTicket;
+
+    /**
+     * Flag to indicate that dialog will be built again after config changes
+     */
+    protected boolean mReborn;
+
+    /**
+     * Flag to indicate that the host is already destroyed and can't pass the result anymore
+     */
+    protected boolean mDestroyed;
+
+    /**
+     * Flag to indicate that the host is created for the first time, not after config changes
+     */
+    protected boolean mFirstCreation;
+
+    protected DialogWrapper mDialogWrapper;
+    protected AlertDialog mCurrentDialog;
+
+    /**
+     * The controller of the live dialog, read by AutonomousDialog.update from any thread
+     */
+    private volatile DialogController mDialogController;
+
+    private Intent mResultIntent;
+
+    /**
+     * The launch options, null if the host is made by the older versions
+     */
+    private DialogLaunchSpec mLaunchSpec;
+
+    /**
+     * Create the host with the same datas as DialogActivity launch intent
+     */
+    static DialogHostFragment newInstance(String fragmentGetterId, boolean cancelable, String identifier, @StyleRes int themeRes, Bundle params, String paramsToken, long scheduleTicket, String contentClassName, Bundle contentArguments) {
+        Bundle arguments = new Bundle();
+        arguments.putParcelable(LAUNCH_SPEC_LABEL, new DialogLaunchSpec(fragmentGetterId, cancelable, identifier, themeRes, params, paramsToken, scheduleTicket, contentClassName, contentArguments));
+
+        DialogHostFragment hostFragment = new DialogHostFragment();
+        hostFragment.setArguments(arguments);
+        return hostFragment;
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        DialogRegistry.onHostCreated();
+        extractBundleStates(getArguments());
+
+        FragmentManager fragmentManager = getChildFragmentManager();
+
+        /*
+         * Bring the dialog wrapper to live
+         */
+        Fragment fragment;
+        if (savedInstanceState == null) {
+            fragment = FragmentPasser.getFragment(mFragmentGetterId);
+        } else {
+            fragment = fragmentManager.findFragmentByTag(FRAGMENT_TAG);
+        }
+        boolean restored = false;
+
+        /*
+         * Make the restorable dialog wrapper again if it's gone
+         */
+        if (fragment == null && mLaunchSpec != null) {
+            fragment = mLaunchSpec.instantiateContent(fragmentManager, requireContext().getClassLoader());
+            restored = fragment != null;
+
+            /*
+             * The ticket belongs to the scheduler of the killed process
+             */
+            if (restored) {
+                mScheduleTicket = DialogScheduler.NO_TICKET;
+            }
+        }
+
+        /*
+         * Check if the dialog wrapper has expired
+         */
+        if (!(fragment instanceof DialogWrapper)) {
+            DialogLogger.d("Dismissing due to Expired Session", mIdentifier);
+            MetricsReporter.report(DialogMetrics.EVENT_SESSION_EXPIRED, mIdentifier);
+            removeHost();
+            return;
+        }
+
+        /*
+         * Attach the host to be dismissed remotely, and handle race condition when calling
+         * show & dismiss together, or dismiss while the host is being recreated after config changes
+         */
+        if (!DialogRegistry.attach(mIdentifier, this)) {
+            DialogLogger.d("Dismissing due to Race Condition", mIdentifier);
+            MetricsReporter.report(DialogMetrics.EVENT_RACE_CONDITION_DISMISSED, mIdentifier);
+            removeHost();
+            return;
+        }
+        AutonomousDialog.onScheduledDialogAttached(mScheduleTicket);
+
+        mDialogWrapper = (DialogWrapper) fragment;
+        mFirstCreation = savedInstanceState == null || restored;
+        if (restored) {
+            DialogLogger.d("Restoring Expired Session", mIdentifier);
+            MetricsReporter.report(DialogMetrics.EVENT_SESSION_RESTORED, mIdentifier);
+        }
+        if (mFirstCreation) {
+            MetricsReporter.report(DialogMetrics.EVENT_HOST_CREATED, mIdentifier);
+            fragmentManager.beginTransaction()
+                    .add(mDialogWrapper, FRAGMENT_TAG)
+                    .commitNow();
+        }
+    }
+
+    @Override
+    public void onActivityCreated(@Nullable Bundle savedInstanceState) {
+        super.onActivityCreated(savedInstanceState);
+
+        if (mDialogWrapper == null || isRemoving()) {
+            return;
+        }
+
+        /*
+         * Build the alert dialog from the dialog wrapper, the same way as DialogActivity does
+         */
+        DialogTrace.begin(DialogTrace.BUILD_ALERT_DIALOG);
+        try {
+            mResultIntent = makeBasicIntent();
+            /*
+             * Reuse the spec built before config changes if the dialog wrapper is retained
+             */
+            DialogRetainedState retainedState = DialogRetainedState.of(this);
+            DialogController dialogController = new DialogController(this, mDialogWrapper, mResultIntent, mIdentifier, mFirstCreation);
+            mCurrentDialog = dialogController.build(requireActivity(), mThemeRes, mCancelable, retainedState.take(mDialogWrapper));
+            retainedState.keep(mDialogWrapper, dialogController.getSpec());
+            mDialogController = dialogController;
+            mCurrentDialog.show();
+        } finally {
+            DialogTrace.end();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        DialogRegistry.onHostDestroyed();
+
+        FragmentActivity activity = getActivity();
+        boolean changingConfigurations = activity != null && activity.isChangingConfigurations();
+
+        /*
+         * Detach the host, and unregister shown dialog identifier if it's really going away,
+         * the new host will attach itself after config changes
+         */
+        DialogRegistry.detach(mIdentifier, this, !changingConfigurations);
+
+        if (changingConfigurations && mCurrentDialog != null) {
+
+            /*
+             * Handle alert dialog leak when config changes
+             */
+            mReborn = true;
+        }
+
+        mDestroyed = true;
+
+        /*
+         * Dismiss the dialog too
+         */
+        if (mCurrentDialog != null) {
+            mCurrentDialog.dismiss();
+        }
+
+        /*
+         * Release the subscribers if the dialog is gone without result, like when it's expired
+         */
+        if (!changingConfigurations) {
+            DialogResultChannel.publishCancelled(mIdentifier, mParams);
+            AutonomousDialog.onScheduledDialogFinished(mScheduleTicket);
+            PayloadStore.release(mParamsToken);
+        }
+    }
+
+    /**
+     * Bundling the responses and pass them to the calling activity before the host removed
+     */
+    @Override
+    public void onDialogDismissed(DialogInterface dialogInterface, DialogBuilder builder) {
+        if (mReborn) {
+
+            /*
+             * Reset the reborn indicator
+             */
+            mReborn = false;
+            return;
+        }
+
+        /*
+         * The calling activity is going away, nobody is waiting for the result
+         */
+        if (mDestroyed) {
+            return;
+        }
+
+        MetricsReporter.report(DialogMetrics.EVENT_DISMISSED, mIdentifier);
+
+        int resultCode = DialogController.bundleResponses(mDialogWrapper, mResultIntent, false);
+        DialogResultChannel.publish(DialogResponse.from(resultCode, mResultIntent));
+        if (getActivity() instanceof DialogResultListener) {
+            ((DialogResultListener) getActivity()).onDialogResult(new DialogResult(resultCode, mResultIntent));
+        }
+        MetricsReporter.report(DialogMetrics.EVENT_RESULT_DELIVERED, mIdentifier, resultCode);
+
+        if (builder.getDismissOverridingListener() != null) {
+            builder.getDismissOverridingListener().onDismiss(dialogInterface);
+        }
+
+        /*
+         * At last, remove the host too
+         */
+        removeHost();
+    }
+
+    /**
+     * Dismiss the dialog remotely and remove the host from the calling activity
+     */
+    @Override
+    public void dismissHost() {
+        DialogLogger.d("Dismissing Remotely", mIdentifier);
+        if (mCurrentDialog != null && mCurrentDialog.isShowing()) {
+            mCurrentDialog.dismiss();
+        } else {
+            removeHost();
+        }
+    }
+
+    private void removeHost() {
+        FragmentManager fragmentManager = getFragmentManager();
+        if (fragmentManager != null && !isRemoving()) {
+            fragmentManager.beginTransaction()
+                    .remove(this)
+                    .commitAllowingStateLoss();
+        }
+    }
+
+    @Nullable
+    @Override
+    public DialogController getDialogController() {
+        return mDialogController;
+    }
+
+    /**
+     * Bundling the basic intent datas
+     *
+     * @return Basic intent datas
+     */
+    protected Intent makeBasicIntent() {
+        if (mParams == null) {
+            mParams = new Bundle();
+        }
+
+        /*
+         * The result intent never leaves this process, so it carries the bundle itself
+         */
+        Intent intent = new Intent();
+        intent.putExtra("id", mIdentifier);
+        DialogController.bundleParams(intent, mParams, null);
+        return intent;
+    }
+
+    private void extractBundleStates(Bundle bundle) {
+        if (bundle != null) {
+            DialogLaunchSpec launchSpec = bundle.getParcelable(LAUNCH_SPEC_LABEL);
+            mLaunchSpec = launchSpec;
+            if (launchSpec != null) {
+                mFragmentGetterId = launchSpec.mFragmentGetterId;
+                mCancelable = launchSpec.mCancelable;
+                mIdentifier = launchSpec.mIdentifier;
+                mThemeRes = launchSpec.mThemeRes;
+                mParams = launchSpec.mParams;
+                mParamsToken = launchSpec.mParamsToken;
+                mScheduleTicket = launchSpec.mScheduleTicket;
+            }
+            if (mParamsToken != null) {
+                mParams = PayloadStore.get(mParamsToken, getClass().getClassLoader());
+                PayloadStore.hold(mParamsToken);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+
+import com.mrhabibi.autonomousdialog.utils.DialogLogger;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * Launch options of DialogActivity and DialogHostFragment kept as one parcelable extra, written
+ * in one pass without keys. Like DialogContentSpec the parcel starts with the version and the
+ * length of the rest, so the fields added by newer versions are skipped
+ */
+public final class DialogLaunchSpec implements Parcelable {
+
+    /**
+     * Increase it when fields are added, new fields are always written after the old ones
+     */
+    static final int VERSION = 2;
+
+    final String mFragmentGetterId;
+    final boolean mCancelable;
+    final String mIdentifier;
+    @StyleRes
+    final int mThemeRes;
+    final Bundle mParams;
+    final String mParamsToken;
+
+    /**
+     * The DialogScheduler ticket, NO_TICKET if the dialog is not queued
+     */
+    final long mScheduleTicket;
+
+    /**
+     * The class and arguments of the restorable content, so it can be made again when the passed
+     * fragment is gone, null if the dialog is not restorable. Since version 2
+     */
+    final String mContentClassName;
+    final Bundle mContentArguments;
+
+    DialogLaunchSpec(String fragmentGetterId, boolean cancelable, String identifier, @StyleRes int themeRes, Bundle params, String paramsToken, long scheduleTicket, String contentClassName, Bundle contentArguments) {
+        this.mFragmentGetterId = fragmentGetterId;
+        this.mCancelable = cancelable;
+        this.mIdentifier = identifier;
+        this.mThemeRes = themeRes;
+        this.mParams = params;
+        this.mParamsToken = paramsToken;
+        this.mScheduleTicket = scheduleTicket;
+        this.mContentClassName = contentClassName;
+        this.mContentArguments = contentArguments;
+    }
+
+    private DialogLaunchSpec(Parcel in) {
+        int version = in.readInt();
+        int length = in.readInt();
+        int start = in.dataPosition();
+
+        mFragmentGetterId = in.readString();
+        mCancelable = in.readInt() != 0;
+        mIdentifier = in.readString();
+        mThemeRes = in.readInt();
+        mParams = in.readBundle(DialogLaunchSpec.class.getClassLoader());
+        mParamsToken = in.readString();
+        mScheduleTicket = in.readLong();
+        if (version >= 2) {
+            mContentClassName = in.readString();
+            mContentArguments = in.readBundle(DialogLaunchSpec.class.getClassLoader());
+        } else {
+            mContentClassName = null;
+            mContentArguments = null;
+        }
+
+        /*
+         * Skip the fields of the newer versions
+         */
+        if (version > VERSION) {
+            in.setDataPosition(start + length);
+        }
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(VERSION);
+
+        /*
+         * Reserve the length, it's written once the fields are in
+         */
+        int lengthPosition = dest.dataPosition();
+        dest.writeInt(0);
+        int start = dest.dataPosition();
+
+        dest.writeString(mFragmentGetterId);
+        dest.writeInt(mCancelable ? 1 : 0);
+        dest.writeString(mIdentifier);
+        dest.writeInt(mThemeRes);
+        dest.writeBundle(mParams);
+        dest.writeString(mParamsToken);
+        dest.writeLong(mScheduleTicket);
+        dest.writeString(mContentClassName);
+        dest.writeBundle(mContentArguments);
+
+        int end = dest.dataPosition();
+        dest.setDataPosition(lengthPosition);
+        dest.writeInt(end - start);
+        dest.setDataPosition(end);
+    }
+
+    /**
+     * Check if the fragment can be made again from its class name, it has to be a public class
+     * that is not anonymous, local, nor inner, with a public empty constructor
+     *
+     * @param fragment The content
+     * @return Is restorable
+     */
+    static boolean isRestorable(Fragment fragment) {
+        Class<?> fragmentClass = fragment.getClass();
+        if (!Modifier.isPublic(fragmentClass.getModifiers()) || fragmentClass.isAnonymousClass() || fragmentClass.isLocalClass()
+                || (fragmentClass.isMemberClass() && !Modifier.isStatic(fragmentClass.getModifiers()))) {
+            return false;
+        }
+        try {
+            fragmentClass.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Make the restorable content again with the factory of the fragment manager
+     *
+     * @param fragmentManager The fragment manager that will hold the content
+     * @param classLoader     The class loader of the content
+     * @return The content, or null if the dialog is not restorable or the content can't be made
+     */
+    @Nullable
+    Fragment instantiateContent(FragmentManager fragmentManager, ClassLoader classLoader) {
+        if (mContentClassName == null) {
+            return null;
+        }
+        try {
+            Fragment fragment = fragmentManager.getFragmentFactory().instantiate(classLoader, mContentClassName);
+            fragment.setArguments(mContentArguments);
+            return fragment;
+        } catch (Fragment.InstantiationException e) {
+            /*
+             * The message of the exception already names the content class
+             */
+            DialogLogger.w("Failed Restoring", mIdentifier, e);
+            return null;
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<DialogLaunchSpec> CREATOR = new Creator<DialogLaunchSpec>() {
+        @Override
+        public DialogLaunchSpec createFromParcel(Parcel in) {
+            return new DialogLaunchSpec(in);
+        }
+
+        @Override
+        public DialogLaunchSpec[] newArray(int size) {
+            return new DialogLaunchSpec[size];
+        }
+    };
+}
@@ -0,0 +1,123 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.utils.PayloadStore;
+
+/**
+ * This is the typed dialog result, the result intent is decoded once when created, so reading
+ * which, checked, params and responses doesn't look up the intent extras again
+ */
+
+public class DialogResponse {
+
+    private final String mIdentifier;
+    private final int mResultCode;
+    private final DialogOutcome mOutcome;
+    private final int mWhich;
+    private final boolean mChecked;
+    private final Bundle mParams;
+    private final Bundle mResponses;
+    private int mStep;
+
+    public DialogResponse(@Nullable String identifier, int resultCode, int which, boolean checked, @Nullable Bundle params, @Nullable Bundle responses) {
+        this.mIdentifier = identifier;
+        this.mResultCode = resultCode;
+        this.mOutcome = DialogOutcome.fromResultCode(resultCode);
+        this.mWhich = which;
+        this.mChecked = checked;
+        this.mParams = params;
+        this.mResponses = responses;
+    }
+
+    /**
+     * Decode the activity result
+     *
+     * @param resultCode Activity result code
+     * @param data       Activity result intent data
+     * @return The decoded response, or null if the result is not from a dialog
+     */
+    @Nullable
+    public static DialogResponse from(int resultCode, @Nullable Intent data) {
+        Bundle extras = data != null ? data.getExtras() : null;
+        if (extras == null) {
+            return null;
+        }
+        DialogResponse response = new DialogResponse(
+                extras.getString("id"),
+                resultCode,
+                extras.getInt("which", 0),
+                extras.getBoolean("checked", false),
+                getPayload(extras, "params", "paramsToken"),
+                getPayload(extras, "responses", "responsesToken"));
+        response.mStep = extras.getInt("step", 0);
+        return response;
+    }
+
+    /**
+     * Get the payload bundle, or the one kept in PayloadStore if the extras only have its token
+     */
+    @Nullable
+    private static Bundle getPayload(Bundle extras, String key, String tokenKey) {
+        String token = extras.getString(tokenKey);
+        if (token != null) {
+            return PayloadStore.get(token, DialogResponse.class.getClassLoader());
+        }
+        return extras.getBundle(key);
+    }
+
+    @Nullable
+    public String getIdentifier() {
+        return mIdentifier;
+    }
+
+    public int getResultCode() {
+        return mResultCode;
+    }
+
+    @NonNull
+    public DialogOutcome getOutcome() {
+        return mOutcome;
+    }
+
+    /**
+     * `which` is index of a list
+     *
+     * @return `which` index
+     */
+    public int getWhich() {
+        return mWhich;
+    }
+
+    /**
+     * `checked` is value of an item in list
+     *
+     * @return `checked` value
+     */
+    public boolean getChecked() {
+        return mChecked;
+    }
+
+    @Nullable
+    public Bundle getParams() {
+        return mParams;
+    }
+
+    @Nullable
+    public Bundle getResponses() {
+        return mResponses;
+    }
+
+    /**
+     * Index of the step that gives this result, 0 for dialog without steps
+     *
+     * @return The step index
+     */
+    public int getStep() {
+        return mStep;
+    }
+}
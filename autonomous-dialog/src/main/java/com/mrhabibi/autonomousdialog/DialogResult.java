@@ -3,6 +3,8 @@ package com.mrhabibi.autonomousdialog;
 import android.content.Intent;
 import android.os.Bundle;
 
+import com.mrhabibi.autonomousdialog.utils.PayloadStore;
+
 /**
  * Created by mrhabibi on 12/7/16.
  * This is the dialog result processor, it has to be called when activity that receiving the result
@@ -15,24 +17,30 @@ public class DialogResult {
     /**
      * Dialog activity request
      */
-    public final static int REQUEST_DIALOG = 8800;
+    public final static int REQUEST_DIALOG = DialogResultCodes.REQUEST_DIALOG;
 
     /**
      * Dialog activity result
      */
-    public final static int RESULT_DIALOG_SINGLE_CHOICE = 8801;
-    public final static int RESULT_DIALOG_MULTI_CHOICES = 8802;
-    public final static int RESULT_DIALOG_PLAIN_CHOICE = 8803;
+    public final static int RESULT_DIALOG_SINGLE_CHOICE = DialogResultCodes.RESULT_DIALOG_SINGLE_CHOICE;
+    public final static int RESULT_DIALOG_MULTI_CHOICES = DialogResultCodes.RESULT_DIALOG_MULTI_CHOICES;
+    public final static int RESULT_DIALOG_PLAIN_CHOICE = DialogResultCodes.RESULT_DIALOG_PLAIN_CHOICE;
 
-    public final static int RESULT_DIALOG_POSITIVE_BUTTON = 8804;
-    public final static int RESULT_DIALOG_NEGATIVE_BUTTON = 8805;
-    public final static int RESULT_DIALOG_NEUTRAL_BUTTON = 8806;
+    public final static int RESULT_DIALOG_POSITIVE_BUTTON = DialogResultCodes.RESULT_DIALOG_POSITIVE_BUTTON;
+    public final static int RESULT_DIALOG_NEGATIVE_BUTTON = DialogResultCodes.RESULT_DIALOG_NEGATIVE_BUTTON;
+    public final static int RESULT_DIALOG_NEUTRAL_BUTTON = DialogResultCodes.RESULT_DIALOG_NEUTRAL_BUTTON;
 
-    public final static int RESULT_DIALOG_CANCELLED = 0;
+    public final static int RESULT_DIALOG_CANCELLED = DialogResultCodes.RESULT_DIALOG_CANCELLED;
 
     private Intent mData;
     private int mResultCode;
 
+    /**
+     * The identifier extra, read once from the intent data
+     */
+    private String mIdentifier;
+    private boolean mIdentifierRead;
+
     /**
      * DialogResult's constructor
      *
@@ -114,6 +122,15 @@ public class DialogResult {
         return isValid(identifier) && mResultCode == RESULT_DIALOG_CANCELLED;
     }
 
+    /**
+     * Decode the result code
+     *
+     * @return The dialog outcome
+     */
+    public DialogOutcome getOutcome() {
+        return DialogOutcome.fromResultCode(mResultCode);
+    }
+
     /**
      * The result is if identifier valid
      *
@@ -121,7 +138,11 @@ public class DialogResult {
      * @return Is if valid
      */
     public boolean isValid(String identifier) {
-        return mData != null && mData.getStringExtra("id") != null && mData.getStringExtra("id").equals(identifier);
+        if (!mIdentifierRead) {
+            mIdentifier = mData != null ? mData.getStringExtra("id") : null;
+            mIdentifierRead = true;
+        }
+        return mIdentifier != null && mIdentifier.equals(identifier);
     }
 
     /**
@@ -142,6 +163,9 @@ public class DialogResult {
      */
     public Bundle getParams() {
         if (mData == null) return null;
+        if (mData.hasExtra("paramsToken")) {
+            return PayloadStore.get(mData.getStringExtra("paramsToken"), DialogResult.class.getClassLoader());
+        }
         return mData.getBundleExtra("params");
     }
 
@@ -152,9 +176,21 @@ public class DialogResult {
      */
     public Bundle getResponses() {
         if (mData == null) return null;
+        if (mData.hasExtra("responsesToken")) {
+            return PayloadStore.get(mData.getStringExtra("responsesToken"), DialogResult.class.getClassLoader());
+        }
         return mData.getBundleExtra("responses");
     }
 
+    /**
+     * Release the params and responses kept in PayloadStore, call it once they're not used anymore
+     */
+    public void releasePayloads() {
+        if (mData == null) return;
+        PayloadStore.release(mData.getStringExtra("paramsToken"));
+        PayloadStore.release(mData.getStringExtra("responsesToken"));
+    }
+
     /**
      * `which` getter from data intent, `which` is index of a list
      *
@@ -174,6 +210,15 @@ public class DialogResult {
         return mData != null && mData.getBooleanExtra("checked", false);
     }
 
+    /**
+     * Decode the whole result at once into typed response
+     *
+     * @return The typed response, or null if there's no intent data
+     */
+    public DialogResponse getResponse() {
+        return DialogResponse.from(mResultCode, mData);
+    }
+
     /**
      * Get pure intent data from activity result
      *
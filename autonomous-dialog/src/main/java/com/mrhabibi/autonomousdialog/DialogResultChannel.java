@@ -0,0 +1,151 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * In-process result channel keyed by dialog identifier, the host passes the live params and
+ * responses bundles directly to the subscribers without parceling them through the result intent.
+ * It doesn't need onActivityResult, so it works for dialogs shown from Service or Receiver too.
+ * Subscriptions are one-shot, they're removed once the result of the identifier is published
+ */
+
+public class DialogResultChannel {
+
+    private static final ConcurrentHashMap<String, Subscribers> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribe to the next result of dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     * @param listener   The result listener, called on the main thread
+     */
+    public static void subscribe(@NonNull String identifier, @NonNull DialogResultRouter.OnResultListener listener) {
+        while (true) {
+            Subscribers listeners = subscribers.get(identifier);
+            if (listeners == null) {
+                Subscribers newListeners = new Subscribers();
+                listeners = subscribers.putIfAbsent(identifier, newListeners);
+                if (listeners == null) {
+                    listeners = newListeners;
+                }
+            }
+
+            /*
+             * The listeners that are published or emptied in the meantime don't take new ones,
+             * subscribe to the next listeners of the identifier instead
+             */
+            if (listeners.add(listener)) {
+                return;
+            }
+            subscribers.remove(identifier, listeners);
+        }
+    }
+
+    /**
+     * Unsubscribe the listener
+     *
+     * @param identifier The dialog identifier
+     * @param listener   The result listener
+     */
+    public static void unsubscribe(@NonNull String identifier, @NonNull DialogResultRouter.OnResultListener listener) {
+        Subscribers listeners = subscribers.get(identifier);
+        if (listeners != null && listeners.remove(listener)) {
+            subscribers.remove(identifier, listeners);
+        }
+    }
+
+    /**
+     * Wait for the next result of dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     * @return The future of the result, never call its get method on the main thread
+     */
+    public static Future<DialogResponse> await(@NonNull String identifier) {
+        DialogResultFuture future = new DialogResultFuture(identifier);
+        subscribe(identifier, future);
+        return future;
+    }
+
+    /**
+     * Pass the result to the subscribers, called by the host
+     *
+     * @param response The dialog response
+     * @return True if there's any subscriber
+     */
+    static boolean publish(@Nullable DialogResponse response) {
+        if (response == null || response.getIdentifier() == null) {
+            return false;
+        }
+
+        Subscribers listeners = subscribers.remove(response.getIdentifier());
+        if (listeners == null) {
+            return false;
+        }
+
+        DialogResultRouter.OnResultListener[] published = listeners.close();
+        for (DialogResultRouter.OnResultListener listener : published) {
+            listener.onResult(response);
+        }
+        return published.length > 0;
+    }
+
+    /**
+     * Pass the cancelled result to the subscribers that are still waiting when the host is
+     * destroyed without showing the dialog, like when it's expired
+     *
+     * @param identifier The dialog identifier
+     * @param params     The dialog params
+     */
+    static void publishCancelled(@Nullable String identifier, @Nullable Bundle params) {
+        if (identifier != null && subscribers.containsKey(identifier)) {
+            publish(new DialogResponse(identifier, DialogResult.RESULT_DIALOG_CANCELLED, 0, false, params, null));
+        }
+    }
+
+    /**
+     * Subscribers of one identifier, adding and publishing hold the same lock, so every listener
+     * is either added before the result is published and gets it once, or sees the listeners
+     * closed and subscribes to the next result
+     */
+    private static final class Subscribers {
+
+        private final ArrayList<DialogResultRouter.OnResultListener> mListeners = new ArrayList<>(2);
+        private boolean mClosed;
+
+        synchronized boolean add(DialogResultRouter.OnResultListener listener) {
+            if (mClosed) {
+                return false;
+            }
+            mListeners.add(listener);
+            return true;
+        }
+
+        /**
+         * @return True if there's no listener left, the listeners are closed then
+         */
+        synchronized boolean remove(DialogResultRouter.OnResultListener listener) {
+            mListeners.remove(listener);
+            if (mListeners.isEmpty()) {
+                mClosed = true;
+            }
+            return mClosed;
+        }
+
+        /**
+         * @return The listeners to pass the result to, no listener can be added after this
+         */
+        synchronized DialogResultRouter.OnResultListener[] close() {
+            mClosed = true;
+            DialogResultRouter.OnResultListener[] listeners = mListeners.toArray(new DialogResultRouter.OnResultListener[mListeners.size()]);
+            mListeners.clear();
+            return listeners;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mrhabibi.autonomousdialog;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The future of dialog result, completed by DialogResultChannel when the host publishes the result
+ */
+
+class DialogResultFuture implements Future<DialogResponse>, DialogResultRouter.OnResultListener {
+
+    private final String mIdentifier;
+    private final CountDownLatch mLatch = new CountDownLatch(1);
+    private volatile DialogResponse mResponse;
+    private volatile boolean mCancelled;
+
+    DialogResultFuture(@NonNull String identifier) {
+        this.mIdentifier = identifier;
+    }
+
+    @Override
+    public void onResult(DialogResponse response) {
+        mResponse = response;
+        mLatch.countDown();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (isDone()) {
+            return false;
+        }
+        DialogResultChannel.unsubscribe(mIdentifier, this);
+        mCancelled = true;
+        mLatch.countDown();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return mLatch.getCount() == 0;
+    }
+
+    @Override
+    public DialogResponse get() throws InterruptedException, ExecutionException {
+        mLatch.await();
+        return getResponse();
+    }
+
+    @Override
+    public DialogResponse get(long timeout, @NonNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!mLatch.await(timeout, unit)) {
+            throw new TimeoutException("No result of dialog " + mIdentifier + " yet");
+        }
+        return getResponse();
+    }
+
+    private DialogResponse getResponse() {
+        if (mCancelled) {
+            throw new CancellationException();
+        }
+        return mResponse;
+    }
+}
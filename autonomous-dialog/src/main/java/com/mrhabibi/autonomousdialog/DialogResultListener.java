@@ -0,0 +1,18 @@
+package com.mrhabibi.autonomousdialog;
+
+/**
+ * This interface is used by the activity that shows dialogs in window presentation mode, because
+ * those dialogs don't have their own activity, the result is passed directly to the calling
+ * activity instead of onActivityResult
+ */
+
+public interface DialogResultListener {
+
+    /**
+     * Called when dialog shown in the window of this activity has been dismissed
+     *
+     * @param result The dialog result, same like the one built from onActivityResult
+     */
+    void onDialogResult(DialogResult result);
+
+}
@@ -0,0 +1,145 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.content.Intent;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+
+/**
+ * This is the alternative of checking DialogResult.isXxx(identifier) for every dialog the screen
+ * might have shown, handlers are registered per identifier and per outcome once, then every
+ * activity result is decoded once and dispatched to the matching handler with a map lookup
+ */
+
+public class DialogResultRouter {
+
+    private final HashMap<String, Route> mRoutes = new HashMap<>();
+
+    /**
+     * Register the handler of an outcome of dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     * @param outcome    The outcome, CUSTOM to handle every custom result code
+     * @param listener   The handler
+     * @return The router
+     */
+    public DialogResultRouter on(@NonNull String identifier, @NonNull DialogOutcome outcome, @NonNull OnResultListener listener) {
+        getRoute(identifier).outcomeListeners[outcome.ordinal()] = listener;
+        return this;
+    }
+
+    /**
+     * Register the handler of a custom result code of dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     * @param resultCode The custom result code
+     * @param listener   The handler
+     * @return The router
+     */
+    public DialogResultRouter on(@NonNull String identifier, int resultCode, @NonNull OnResultListener listener) {
+        Route route = getRoute(identifier);
+        if (route.customListeners == null) {
+            route.customListeners = new SparseArray<>();
+        }
+        route.customListeners.put(resultCode, listener);
+        return this;
+    }
+
+    /**
+     * Register the handler of every outcome that has no handler of dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     * @param listener   The handler
+     * @return The router
+     */
+    public DialogResultRouter onAny(@NonNull String identifier, @NonNull OnResultListener listener) {
+        getRoute(identifier).anyListener = listener;
+        return this;
+    }
+
+    /**
+     * Remove every handler of dialog with the identifier
+     *
+     * @param identifier The dialog identifier
+     */
+    public void remove(@NonNull String identifier) {
+        mRoutes.remove(identifier);
+    }
+
+    /**
+     * Decode the activity result and dispatch it, call it from onActivityResult
+     *
+     * @param requestCode Activity request code
+     * @param resultCode  Activity result code
+     * @param data        Activity result intent data
+     * @return True if the result is dispatched to a handler, its payloads kept in PayloadStore are
+     * released then
+     */
+    public boolean route(int requestCode, int resultCode, @Nullable Intent data) {
+        if (requestCode != DialogResult.REQUEST_DIALOG || !route(DialogResponse.from(resultCode, data))) {
+            return false;
+        }
+
+        /*
+         * The response has the bundles now, the payloads kept off Binder are consumed
+         */
+        new DialogResult(resultCode, data).releasePayloads();
+        return true;
+    }
+
+    /**
+     * Dispatch the decoded response
+     *
+     * @param response The decoded response
+     * @return True if the response is dispatched to a handler
+     */
+    public boolean route(@Nullable DialogResponse response) {
+        if (response == null || response.getIdentifier() == null) {
+            return false;
+        }
+
+        Route route = mRoutes.get(response.getIdentifier());
+        if (route == null) {
+            return false;
+        }
+
+        OnResultListener listener = null;
+        if (route.customListeners != null) {
+            listener = route.customListeners.get(response.getResultCode());
+        }
+        if (listener == null) {
+            listener = route.outcomeListeners[response.getOutcome().ordinal()];
+        }
+        if (listener == null) {
+            listener = route.anyListener;
+        }
+        if (listener == null) {
+            return false;
+        }
+
+        listener.onResult(response);
+        return true;
+    }
+
+    private Route getRoute(String identifier) {
+        Route route = mRoutes.get(identifier);
+        if (route == null) {
+            route = new Route();
+            mRoutes.put(identifier, route);
+        }
+        return route;
+    }
+
+    private static class Route {
+        final OnResultListener[] outcomeListeners = new OnResultListener[DialogOutcome.values().length];
+        SparseArray<OnResultListener> customListeners;
+        OnResultListener anyListener;
+    }
+
+    public interface OnResultListener {
+        void onResult(DialogResponse response);
+    }
+}
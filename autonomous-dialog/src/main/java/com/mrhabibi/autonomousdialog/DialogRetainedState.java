@@ -0,0 +1,77 @@
+package com.mrhabibi.autonomousdialog;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStoreOwner;
+
+import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
+
+/**
+ * Non-config store of the host, it keeps the built dialog spec of the dialog wrapper that is
+ * retained across config changes, so the new host only builds the alert dialog from the same spec
+ * and views instead of asking the dialog wrapper to build everything again
+ */
+class DialogRetainedState extends ViewModel {
+
+    private static final ViewModelProvider.Factory factory = new ViewModelProvider.Factory() {
+        @NonNull
+        @Override
+        public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
+            return modelClass.cast(new DialogRetainedState());
+        }
+    };
+
+    private DialogWrapper mDialogWrapper;
+    private DialogBuilder mSpec;
+
+    /**
+     * Get the store of the host
+     *
+     * @param host The host activity or fragment
+     * @return The store, the same one after config changes
+     */
+    static DialogRetainedState of(@NonNull ViewModelStoreOwner host) {
+        return new ViewModelProvider(host.getViewModelStore(), factory).get(DialogRetainedState.class);
+    }
+
+    /**
+     * Keep the spec of the built dialog, only if the dialog wrapper is retained, the spec has
+     * listeners bound to the dialog wrapper instance
+     *
+     * @param dialogWrapper The dialog wrapper
+     * @param spec          The spec it built
+     */
+    void keep(@NonNull DialogWrapper dialogWrapper, @Nullable DialogBuilder spec) {
+        if (dialogWrapper.isRetainedAcrossConfigChanges() && spec != null) {
+            mDialogWrapper = dialogWrapper;
+            mSpec = spec;
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Take the spec kept before config changes
+     *
+     * @param dialogWrapper The dialog wrapper the host is building
+     * @return The spec, or null if it's not built by the same dialog wrapper instance
+     */
+    @Nullable
+    DialogBuilder take(@NonNull DialogWrapper dialogWrapper) {
+        DialogBuilder spec = mDialogWrapper == dialogWrapper ? mSpec : null;
+        clear();
+        return spec;
+    }
+
+    private void clear() {
+        mDialogWrapper = null;
+        mSpec = null;
+    }
+
+    @Override
+    protected void onCleared() {
+        clear();
+    }
+}
@@ -0,0 +1,254 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.content.Context;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.ListView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+
+import com.mrhabibi.autonomousdialog.utils.DialogUtils;
+import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Delta of a showing alert dialog, passed to AutonomousDialog.update to change the live dialog
+ * in place instead of dismissing and showing it again. Only the parts that are set are changed,
+ * and the parts must exist when the dialog is built, like a message can't be added to a dialog
+ * built without message
+ */
+
+public class DialogUpdate {
+
+    private static final String TITLE_LABEL = "title";
+    private static final String MESSAGE_LABEL = "message";
+    private static final String ITEMS_LABEL = "items";
+    private static final String BUTTONS_CHANGED_LABEL = "buttonsChanged";
+    private static final String BUTTONS_ENABLED_LABEL = "buttonsEnabled";
+
+    private static final int[] BUTTONS = {
+            DialogInterface.BUTTON_POSITIVE,
+            DialogInterface.BUTTON_NEGATIVE,
+            DialogInterface.BUTTON_NEUTRAL
+    };
+
+    private boolean mHasTitle;
+    private CharSequence mTitle;
+    private boolean mHasMessage;
+    private CharSequence mMessage;
+    private CharSequence[] mItems;
+
+    /**
+     * Bit masks of the buttons, indexed by buttonBit
+     */
+    private int mButtonsChanged;
+    private int mButtonsEnabled;
+
+    public DialogUpdate setTitle(@Nullable CharSequence title) {
+        this.mHasTitle = true;
+        this.mTitle = title;
+        return this;
+    }
+
+    public DialogUpdate setMessage(@Nullable CharSequence message) {
+        this.mHasMessage = true;
+        this.mMessage = message;
+        return this;
+    }
+
+    /**
+     * Replace the items of single choice, multi choice or plain choice list, the checked states
+     * are cleared. The list that is made from ChoiceSource is not changed
+     *
+     * @param items The new items
+     * @return The update
+     */
+    public DialogUpdate setItems(@NonNull CharSequence[] items) {
+        this.mItems = items;
+        return this;
+    }
+
+    /**
+     * @param whichButton DialogInterface.BUTTON_POSITIVE, BUTTON_NEGATIVE or BUTTON_NEUTRAL
+     * @param enabled     Is the button enabled
+     * @return The update
+     */
+    public DialogUpdate setButtonEnabled(int whichButton, boolean enabled) {
+        int bit = buttonBit(whichButton);
+        mButtonsChanged |= bit;
+        if (enabled) {
+            mButtonsEnabled |= bit;
+        } else {
+            mButtonsEnabled &= ~bit;
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return !mHasTitle && !mHasMessage && mItems == null && mButtonsChanged == 0;
+    }
+
+    /**
+     * Take the parts set in the newer update, the newer one wins
+     *
+     * @param newer The newer update
+     */
+    void merge(@NonNull DialogUpdate newer) {
+        if (newer.mHasTitle) {
+            mHasTitle = true;
+            mTitle = newer.mTitle;
+        }
+        if (newer.mHasMessage) {
+            mHasMessage = true;
+            mMessage = newer.mMessage;
+        }
+        if (newer.mItems != null) {
+            mItems = newer.mItems;
+        }
+        mButtonsChanged |= newer.mButtonsChanged;
+        mButtonsEnabled = (mButtonsEnabled & ~newer.mButtonsChanged) | (newer.mButtonsEnabled & newer.mButtonsChanged);
+    }
+
+    void clear() {
+        mHasTitle = false;
+        mTitle = null;
+        mHasMessage = false;
+        mMessage = null;
+        mItems = null;
+        mButtonsChanged = 0;
+        mButtonsEnabled = 0;
+    }
+
+    /**
+     * Apply the update to the shown alert dialog, must be called on the main thread
+     *
+     * @param dialog        The shown alert dialog
+     * @param spec          The spec the dialog is built from
+     * @param dialogWrapper The dialog wrapper that built the dialog
+     */
+    void applyTo(@NonNull AlertDialog dialog, @NonNull DialogBuilder spec, @NonNull DialogWrapper dialogWrapper) {
+        if (mHasTitle) {
+            dialog.setTitle(mTitle);
+        }
+        if (mHasMessage) {
+            dialog.setMessage(mMessage);
+        }
+        if (mItems != null) {
+            replaceItems(dialog, spec, dialogWrapper);
+        }
+        for (int whichButton : BUTTONS) {
+            int bit = buttonBit(whichButton);
+            if ((mButtonsChanged & bit) != 0) {
+                Button button = dialog.getButton(whichButton);
+                if (button != null) {
+                    button.setEnabled((mButtonsEnabled & bit) != 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Give the list a new adapter, the adapter of the alert dialog is backed by a fixed size list
+     * and its multi choice click listener writes to the checked states of the old size
+     */
+    private void replaceItems(@NonNull AlertDialog dialog, @NonNull DialogBuilder spec, @NonNull DialogWrapper dialogWrapper) {
+        final ListView listView = dialog.getListView();
+
+        /*
+         * Skip if the dialog is built with the items already, like when the update is applied
+         * again after config changes, so the checked states aren't cleared again
+         */
+        if (listView == null || Arrays.equals(spec.getChoiceItems(), mItems)) {
+            return;
+        }
+
+        int choiceMode;
+        final boolean[] checkedItems;
+        if (spec.hasSingleChoiceItems()) {
+            choiceMode = AbsListView.CHOICE_MODE_SINGLE;
+            checkedItems = null;
+        } else if (spec.getMultiChoiceItems() != null) {
+            choiceMode = AbsListView.CHOICE_MODE_MULTIPLE;
+            checkedItems = new boolean[mItems.length];
+        } else {
+            choiceMode = AbsListView.CHOICE_MODE_NONE;
+            checkedItems = null;
+        }
+
+        /*
+         * Same rows as the ones the alert dialog made from its style
+         */
+        Context context = dialog.getContext();
+        int layoutRes = DialogUtils.getAlertDialogItemLayout(context, choiceMode);
+
+        List<CharSequence> items = new ArrayList<>(Arrays.asList(mItems));
+        listView.clearChoices();
+        listView.setAdapter(new ArrayAdapter<>(context, layoutRes, android.R.id.text1, items));
+
+        if (checkedItems != null) {
+            final DialogInterface dialogInterface = dialog;
+            final DialogInterface.OnMultiChoiceClickListener listener = spec.getMultiChoiceItemsExpansion();
+            listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+                @Override
+                public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                    checkedItems[position] = listView.isItemChecked(position);
+                    if (listener != null) {
+                        listener.onClick(dialogInterface, position, checkedItems[position]);
+                    }
+                }
+            });
+        }
+
+        spec.replaceChoiceItems(mItems, checkedItems);
+        dialogWrapper.onChoiceItemsReplaced(mItems, checkedItems);
+    }
+
+    @NonNull
+    public Bundle toBundle() {
+        Bundle bundle = new Bundle();
+        if (mHasTitle) {
+            bundle.putCharSequence(TITLE_LABEL, mTitle);
+        }
+        if (mHasMessage) {
+            bundle.putCharSequence(MESSAGE_LABEL, mMessage);
+        }
+        if (mItems != null) {
+            bundle.putCharSequenceArray(ITEMS_LABEL, mItems);
+        }
+        bundle.putInt(BUTTONS_CHANGED_LABEL, mButtonsChanged);
+        bundle.putInt(BUTTONS_ENABLED_LABEL, mButtonsEnabled);
+        return bundle;
+    }
+
+    @NonNull
+    public static DialogUpdate fromBundle(@NonNull Bundle bundle) {
+        DialogUpdate update = new DialogUpdate();
+        if (bundle.containsKey(TITLE_LABEL)) {
+            update.setTitle(bundle.getCharSequence(TITLE_LABEL));
+        }
+        if (bundle.containsKey(MESSAGE_LABEL)) {
+            update.setMessage(bundle.getCharSequence(MESSAGE_LABEL));
+        }
+        update.mItems = bundle.getCharSequenceArray(ITEMS_LABEL);
+        update.mButtonsChanged = bundle.getInt(BUTTONS_CHANGED_LABEL);
+        update.mButtonsEnabled = bundle.getInt(BUTTONS_ENABLED_LABEL);
+        return update;
+    }
+
+    private static int buttonBit(int whichButton) {
+        if (whichButton < DialogInterface.BUTTON_NEUTRAL || whichButton > DialogInterface.BUTTON_POSITIVE) {
+            throw new IllegalArgumentException("Unknown button " + whichButton);
+        }
+        return 1 << (-whichButton - 1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.mrhabibi.autonomousdialog.wrapper.ChoiceSource;
+
+import java.util.HashMap;
+
+/**
+ * Process-wide factories of choice sources by key, the dialog wrappers only persist the key, so
+ * register the factories in Application.onCreate to have them after process death too
+ */
+public class ChoiceSourceRegistry {
+
+    private static final HashMap<String, ChoiceSource.Factory> factories = new HashMap<>();
+
+    public static synchronized void register(@NonNull String key, @NonNull ChoiceSource.Factory factory) {
+        factories.put(key, factory);
+    }
+
+    public static synchronized void unregister(@NonNull String key) {
+        factories.remove(key);
+    }
+
+    public static synchronized boolean isRegistered(@NonNull String key) {
+        return factories.containsKey(key);
+    }
+
+    /**
+     * Make the source of the key
+     *
+     * @param context The dialog context
+     * @param key     The source key
+     * @return The new source
+     */
+    @NonNull
+    public static ChoiceSource create(@NonNull Context context, @NonNull String key) {
+        ChoiceSource.Factory factory;
+        synchronized (ChoiceSourceRegistry.class) {
+            factory = factories.get(key);
+        }
+        if (factory == null) {
+            throw new IllegalStateException("Choice source " + key + " is not registered, register it in Application.onCreate!");
+        }
+        return factory.create(context);
+    }
+}
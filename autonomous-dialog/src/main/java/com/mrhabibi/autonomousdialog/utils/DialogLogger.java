@@ -0,0 +1,74 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.AutonomousDialog;
+
+/**
+ * Level-gated logger of AutonomousDialog, it's silent by default so release builds pay only a
+ * static int comparison, the message is concatenated only when the level is enabled, pass the
+ * details as arguments instead of concatenating them at the call site
+ */
+public class DialogLogger {
+
+    /**
+     * Level that disables all logs, the default level
+     */
+    public static final int LEVEL_NONE = Integer.MAX_VALUE;
+
+    private static volatile int level = LEVEL_NONE;
+
+    /**
+     * Set the minimum level to be logged
+     *
+     * @param minLevel One of android.util.Log levels like Log.DEBUG, or LEVEL_NONE
+     */
+    public static void setLevel(int minLevel) {
+        level = minLevel;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static boolean isLoggable(int logLevel) {
+        return logLevel >= level;
+    }
+
+    public static void d(@NonNull String activity, @Nullable String identifier) {
+        if (Log.DEBUG >= level) {
+            write(Log.DEBUG, activity, identifier, null);
+        }
+    }
+
+    public static void d(@NonNull String activity, @Nullable String identifier, @Nullable Object detail) {
+        if (Log.DEBUG >= level) {
+            write(Log.DEBUG, activity, identifier, detail);
+        }
+    }
+
+    public static void w(@NonNull String activity, @Nullable String identifier) {
+        if (Log.WARN >= level) {
+            write(Log.WARN, activity, identifier, null);
+        }
+    }
+
+    public static void w(@NonNull String activity, @Nullable String identifier, @Nullable Object detail) {
+        if (Log.WARN >= level) {
+            write(Log.WARN, activity, identifier, detail);
+        }
+    }
+
+    private static void write(int logLevel, String activity, @Nullable String identifier, @Nullable Object detail) {
+        StringBuilder message = new StringBuilder(activity)
+                .append(" | ")
+                .append(identifier != null ? identifier : "no identifier");
+        if (detail != null) {
+            message.append(" | ").append(detail);
+        }
+        Log.println(logLevel, AutonomousDialog.TAG, message.toString());
+    }
+}
@@ -0,0 +1,117 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.wrapper.DialogTemplate;
+import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Process-wide cache of dialog templates by key, only a limited number of templates are kept and
+ * the least recently used ones are released first, the templates are released when the system is
+ * low on memory too, so always be ready to make the template again when it's not found
+ */
+public class DialogTemplateRegistry {
+
+    public static final int DEFAULT_MAX_SIZE = 32;
+
+    private static final LinkedHashMap<String, DialogTemplate<?>> templates = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static int maxSize = DEFAULT_MAX_SIZE;
+    private static boolean installed;
+
+    /**
+     * Release the templates when the app is told to trim memory, call it in Application.onCreate
+     *
+     * @param context The God object
+     */
+    public static synchronized void install(@NonNull Context context) {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                DialogTemplateRegistry.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+            }
+        });
+    }
+
+    /**
+     * Set the maximum templates kept, the least recently used one is released when exceeded
+     *
+     * @param size The maximum templates
+     */
+    public static synchronized void setMaxSize(int size) {
+        maxSize = size;
+        trimToSize(maxSize);
+    }
+
+    public static synchronized void put(@NonNull String key, @NonNull DialogTemplate<?> template) {
+        templates.put(key, template);
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Get the template of the key
+     *
+     * @param key The template key
+     * @return The template, or null if it's not kept or already released
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static synchronized <T extends DialogWrapper> DialogTemplate<T> get(@NonNull String key) {
+        return (DialogTemplate<T>) templates.get(key);
+    }
+
+    public static synchronized void remove(@NonNull String key) {
+        templates.remove(key);
+    }
+
+    public static synchronized void clear() {
+        templates.clear();
+    }
+
+    /**
+     * Release the templates by the memory level, half of them when the app is in background or the
+     * memory is getting low, and all of them when it's critical
+     *
+     * @param level The level of ComponentCallbacks2.onTrimMemory
+     */
+    public static synchronized void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            templates.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(templates.size() / 2);
+        }
+    }
+
+    public static synchronized int size() {
+        return templates.size();
+    }
+
+    private static void trimToSize(int size) {
+        Iterator<String> iterator = templates.keySet().iterator();
+        while (templates.size() > size && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
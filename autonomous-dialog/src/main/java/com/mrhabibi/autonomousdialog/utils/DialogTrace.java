@@ -0,0 +1,34 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import android.os.Build;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Systrace sections of the dialog lifecycle, so Perfetto traces show where the dialog time goes,
+ * it does nothing below Jelly Bean MR2. Always close the section in the same thread with
+ * try-finally
+ */
+public class DialogTrace {
+
+    public static final String SHOW = "AutonomousDialog.show";
+    public static final String HOST_CREATE = "AutonomousDialog.hostCreate";
+    public static final String BUILD_ALERT_DIALOG = "AutonomousDialog.buildAlertDialog";
+    public static final String BUILD_DIALOG = "AutonomousDialog.onBuildDialog";
+    public static final String GET_VIEW = "AutonomousDialog.getView";
+    public static final String PREPARE_VIEW = "AutonomousDialog.prepareView";
+    public static final String SET_CALLBACK = "AutonomousDialog.setCallback";
+
+    public static void begin(@NonNull String section) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
+    }
+
+    public static void end() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+}
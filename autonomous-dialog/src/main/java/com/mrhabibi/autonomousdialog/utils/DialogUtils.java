@@ -1,14 +1,14 @@
 package com.mrhabibi.autonomousdialog.utils;
 
 import android.content.Context;
-import android.util.Log;
+import android.content.res.TypedArray;
 import android.util.TypedValue;
+import android.widget.AbsListView;
 
+import androidx.annotation.LayoutRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.mrhabibi.autonomousdialog.AutonomousDialog;
-
 /**
  * Created by mrhabibi on 4/5/17.
  * Just Utility class for helping AutonomousDialog
@@ -24,7 +24,42 @@ public class DialogUtils {
         return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
     }
 
+    /**
+     * Get the list item layout of the alert dialog the way AppCompat does, from the alert dialog
+     * style of the theme, so the rows of the lists made here look like the rows of the dialog
+     *
+     * @param context    The dialog context
+     * @param choiceMode AbsListView.CHOICE_MODE_NONE, CHOICE_MODE_SINGLE or CHOICE_MODE_MULTIPLE
+     * @return The row layout with android.R.id.text1
+     */
+    @LayoutRes
+    public static int getAlertDialogItemLayout(@NonNull Context context, int choiceMode) {
+        int index;
+        int fallback;
+        if (choiceMode == AbsListView.CHOICE_MODE_SINGLE) {
+            index = androidx.appcompat.R.styleable.AlertDialog_singleChoiceItemLayout;
+            fallback = android.R.layout.select_dialog_singlechoice;
+        } else if (choiceMode == AbsListView.CHOICE_MODE_MULTIPLE) {
+            index = androidx.appcompat.R.styleable.AlertDialog_multiChoiceItemLayout;
+            fallback = android.R.layout.select_dialog_multichoice;
+        } else {
+            index = androidx.appcompat.R.styleable.AlertDialog_listItemLayout;
+            fallback = android.R.layout.select_dialog_item;
+        }
+
+        TypedArray array = context.obtainStyledAttributes(null, androidx.appcompat.R.styleable.AlertDialog, androidx.appcompat.R.attr.alertDialogStyle, 0);
+        try {
+            return array.getResourceId(index, fallback);
+        } finally {
+            array.recycle();
+        }
+    }
+
+    /**
+     * @deprecated Use DialogLogger, it's level-gated and doesn't concatenate when disabled
+     */
+    @Deprecated
     public static void log(String activity, @Nullable String identifier) {
-        Log.d(AutonomousDialog.TAG, activity + " | " + (identifier != null ? identifier : "no identifier"));
+        DialogLogger.d(activity, identifier);
     }
 }
@@ -6,9 +6,6 @@ import androidx.fragment.app.Fragment;
 
 import com.mrhabibi.autonomousdialog.wrapper.DialogWrapper;
 
-import java.util.HashMap;
-import java.util.UUID;
-
 import static com.mrhabibi.autonomousdialog.DialogActivity.ALERTDIALOG_ID_PREFIX;
 import static com.mrhabibi.autonomousdialog.DialogActivity.DIALOGFRAGMENT_ID_PREFIX;
 
@@ -17,28 +14,47 @@ import static com.mrhabibi.autonomousdialog.DialogActivity.DIALOGFRAGMENT_ID_PRE
  * Utility class that used to keep and get passed fragment from AutonomousDialog builder to created
  * DialogActivity, you know, fragment can't be passed via intent, that's why this class is made.
  * One time usage, it means that it just keeps the fragment just once, and once the fragment
- * fetched, it will be removed from the map, because it may cause leak if it's still kept staticly
+ * fetched, it will be removed from the map, because it may cause leak if it's still kept staticly.
+ * Fragments that are never fetched, like when the launch is cancelled, are evicted after
+ * DEFAULT_TTL_MILLIS or when more than DEFAULT_MAX_SIZE fragments are waiting
  */
 public class FragmentPasser {
 
-    private static final HashMap<String, Fragment> passedFragment = new HashMap<>();
+    public static final int DEFAULT_MAX_SIZE = 32;
+    public static final long DEFAULT_TTL_MILLIS = 60 * 1000L;
+
+    private static volatile HandoffStore<Fragment> passedFragment = new HandoffStore<>(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS, false);
+
+    /**
+     * Reconfigure the store, the fragments that are waiting to be fetched are dropped
+     *
+     * @param maxSize    Maximum fragments waiting to be fetched at once
+     * @param ttlMillis  Time for a fragment to be fetched before evicted
+     * @param weakValues Keep the fragments weakly, the caller must keep them alive until fetched
+     */
+    public static void configure(int maxSize, long ttlMillis, boolean weakValues) {
+        HandoffStore<Fragment> oldStore = passedFragment;
+        passedFragment = new HandoffStore<>(maxSize, ttlMillis, weakValues);
+        oldStore.clear();
+    }
 
     @Nullable
     public static Fragment getFragment(String getterId) {
-        if (getterId != null && passedFragment.containsKey(getterId)) {
-            Fragment fragment = passedFragment.get(getterId);
-            passedFragment.remove(getterId);
-            return fragment;
-        }
-        return null;
+        return passedFragment.take(getterId);
     }
 
     public static String setFragment(@NonNull Fragment fragment) {
         String prefix = fragment instanceof DialogWrapper ? ALERTDIALOG_ID_PREFIX : DIALOGFRAGMENT_ID_PREFIX;
-        String fragmentGetterId = prefix + UUID.randomUUID().toString();
-        passedFragment.put(fragmentGetterId, fragment);
+        return passedFragment.put(prefix, fragment);
+    }
 
-        return fragmentGetterId;
+    /**
+     * Get the store to read its size and hits, misses and evictions counters
+     *
+     * @return The fragment store
+     */
+    public static HandoffStore<Fragment> getStore() {
+        return passedFragment;
     }
 
 }
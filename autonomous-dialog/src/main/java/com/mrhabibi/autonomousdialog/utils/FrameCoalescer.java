@@ -0,0 +1,117 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the action on the main thread at most once per frame no matter how often it's requested,
+ * requesting is thread-safe and allocation-free, so it's fine to call it for every tick of a
+ * worker thread. It uses Choreographer on Jelly Bean and above, and a frame-long Handler delay
+ * below that
+ */
+public class FrameCoalescer {
+
+    private static final long FRAME_DELAY_MILLIS = 16;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mAction;
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    private final Runnable mRunAction = new Runnable() {
+        @Override
+        public void run() {
+            runAction();
+        }
+    };
+
+    private final Runnable mPostFrame = new Runnable() {
+        @Override
+        public void run() {
+            postFrame();
+        }
+    };
+
+    /**
+     * Choreographer.FrameCallback, kept as Object so this class still loads below Jelly Bean
+     */
+    private Object mFrameCallback;
+
+    public FrameCoalescer(@NonNull Runnable action) {
+        this.mAction = action;
+    }
+
+    /**
+     * Request the action to run on the next frame, the requests before it runs are dropped
+     */
+    public void request() {
+        if (!mScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            postFrame();
+        } else {
+            mainHandler.post(mPostFrame);
+        }
+    }
+
+    /**
+     * Drop the requested action, must be called on the main thread
+     */
+    public void cancel() {
+        mainHandler.removeCallbacks(mPostFrame);
+        mainHandler.removeCallbacks(mRunAction);
+        if (mFrameCallback != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            FrameCallbackCompat.remove(mFrameCallback);
+        }
+        mScheduled.set(false);
+    }
+
+    private void postFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameCallback == null) {
+                mFrameCallback = FrameCallbackCompat.create(mRunAction);
+            }
+            FrameCallbackCompat.post(mFrameCallback);
+        } else {
+            mainHandler.postDelayed(mRunAction, FRAME_DELAY_MILLIS);
+        }
+    }
+
+    private void runAction() {
+
+        /*
+         * Reset first, so the requests made by the action itself are run on the next frame
+         */
+        mScheduled.set(false);
+        mAction.run();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameCallbackCompat {
+
+        static Object create(final Runnable action) {
+            return new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    action.run();
+                }
+            };
+        }
+
+        static void post(Object frameCallback) {
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) frameCallback);
+        }
+
+        static void remove(Object frameCallback) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) frameCallback);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.mrhabibi.autonomousdialog.utils;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Side-channel store for large params and responses bundles, so the intents only carry a small
+ * token instead of parceling the whole bundle through Binder, and the same bundle instance is
+ * reused for launch, result and restore. The payloads can be spilled to disk too, so they're
+ * still available when the host is restored after process death.
+ * A payload is held by its host from put until the host is gone, held payloads are never
+ * evicted. Then it's either released, or handed off with the result to the calling activity,
+ * the handed off payloads wait in a bounded LRU until the result is consumed
+ */
+public class PayloadStore {
+
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    /**
+     * Spilled payloads of the previous processes older than this are deleted, in milliseconds
+     */
+    public static final long DEFAULT_SPILL_MAX_AGE = 24 * 60 * 60 * 1000L;
+
+    private static final String SPILL_DIRECTORY = "autonomous-dialog-payloads";
+
+    private static final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Tokens made after process death must not collide with spilled tokens
+     */
+    private static final String tokenPrefix = Long.toHexString(System.currentTimeMillis()) + "_";
+
+    /**
+     * Payloads held by live hosts
+     */
+    private static final HashMap<String, Bundle> heldPayloads = new HashMap<>();
+
+    /**
+     * Payloads handed off with results that are not consumed yet
+     */
+    private static final LinkedHashMap<String, Bundle> handedOffPayloads = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static int maxSize = DEFAULT_MAX_SIZE;
+
+    private static File spillDirectory;
+    private static ExecutorService spillExecutor;
+
+    /**
+     * Set the maximum payloads handed off with results that are kept until they're consumed, the
+     * least recently used one is released when exceeded, payloads held by hosts are not counted
+     *
+     * @param size The maximum payloads
+     */
+    public static synchronized void setMaxSize(int size) {
+        maxSize = size;
+        trim();
+    }
+
+    /**
+     * Spill every payload to the cache directory too, so it survives process death, the spilled
+     * payloads that the previous processes left behind are swept
+     *
+     * @param context The God object
+     */
+    public static synchronized void enableDiskSpill(@NonNull Context context) {
+        if (spillDirectory == null) {
+            spillDirectory = new File(context.getCacheDir(), SPILL_DIRECTORY);
+            spillExecutor = Executors.newSingleThreadExecutor();
+            spillExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sweep(spillDirectory, System.currentTimeMillis() - DEFAULT_SPILL_MAX_AGE);
+                }
+            });
+        }
+    }
+
+    /**
+     * Keep the payload, it's held until it's released or handed off
+     *
+     * @param payload The payload bundle, must not be changed after kept if spilled to disk
+     * @return The token to get the payload
+     */
+    @NonNull
+    public static String put(@NonNull final Bundle payload) {
+        final String token = tokenPrefix + counter.incrementAndGet();
+        synchronized (PayloadStore.class) {
+            heldPayloads.put(token, payload);
+            if (spillDirectory != null) {
+                final File file = new File(spillDirectory, token);
+                spillExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        write(file, payload);
+                    }
+                });
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Get the payload, read from disk if it's spilled and not in memory anymore
+     *
+     * @param token       The payload token
+     * @param classLoader The class loader used to read the spilled payload
+     * @return The payload, or null if it's released
+     */
+    @Nullable
+    public static Bundle get(@Nullable String token, @Nullable ClassLoader classLoader) {
+        if (token == null) {
+            return null;
+        }
+
+        File file;
+        synchronized (PayloadStore.class) {
+            Bundle payload = heldPayloads.get(token);
+            if (payload == null) {
+                payload = handedOffPayloads.get(token);
+            }
+            if (payload != null || spillDirectory == null) {
+                return payload;
+            }
+            file = new File(spillDirectory, token);
+        }
+
+        /*
+         * The payload read from disk is not held by anyone until its host holds it again
+         */
+        Bundle payload = read(file, classLoader);
+        if (payload != null) {
+            file.setLastModified(System.currentTimeMillis());
+            synchronized (PayloadStore.class) {
+                if (!heldPayloads.containsKey(token)) {
+                    handedOffPayloads.put(token, payload);
+                    trim();
+                }
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * Hold the payload again, called by the host restored after process death
+     *
+     * @param token The payload token
+     */
+    public static synchronized void hold(@Nullable String token) {
+        if (token == null) {
+            return;
+        }
+        Bundle payload = handedOffPayloads.remove(token);
+        if (payload != null) {
+            heldPayloads.put(token, payload);
+        }
+    }
+
+    /**
+     * Stop holding the payload, it's passed with the result and kept until the result is consumed
+     * or it's the least recently used one of more than the maximum handed off payloads
+     *
+     * @param token The payload token
+     */
+    public static synchronized void handOff(@Nullable String token) {
+        if (token == null) {
+            return;
+        }
+        Bundle payload = heldPayloads.remove(token);
+        if (payload != null) {
+            handedOffPayloads.put(token, payload);
+            trim();
+        }
+    }
+
+    /**
+     * Release the payload from memory and disk
+     *
+     * @param token The payload token
+     */
+    public static void release(@Nullable String token) {
+        if (token == null) {
+            return;
+        }
+        synchronized (PayloadStore.class) {
+            heldPayloads.remove(token);
+            handedOffPayloads.remove(token);
+            deleteSpill(token);
+        }
+    }
+
+    /**
+     * Get the count of payloads in memory, used to check if payloads are leaking
+     *
+     * @return The count of held and handed off payloads
+     */
+    public static synchronized int size() {
+        return heldPayloads.size() + handedOffPayloads.size();
+    }
+
+    private static void trim() {
+        Iterator<Map.Entry<String, Bundle>> iterator = handedOffPayloads.entrySet().iterator();
+        while (handedOffPayloads.size() > maxSize && iterator.hasNext()) {
+            String token = iterator.next().getKey();
+            iterator.remove();
+            deleteSpill(token);
+        }
+    }
+
+    private static void deleteSpill(final String token) {
+        if (spillDirectory != null) {
+            spillExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    new File(spillDirectory, token).delete();
+                }
+            });
+        }
+    }
+
+    /**
+     * Delete the spilled payloads of the previous processes that are not read since the time
+     */
+    private static void sweep(File directory, long before) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.getName().startsWith(tokenPrefix) && file.lastModified() < before) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void write(File file, Bundle payload) {
+        Parcel parcel = Parcel.obtain();
+        FileOutputStream outputStream = null;
+        try {
+            parcel.writeBundle(payload);
+            file.getParentFile().mkdirs();
+            outputStream = new FileOutputStream(file);
+            outputStream.write(parcel.marshall());
+        } catch (IOException | RuntimeException e) {
+            DialogLogger.w("Failed Spilling Payload", file.getName(), e);
+        } finally {
+            parcel.recycle();
+            closeQuietly(outputStream);
+        }
+    }
+
+    @Nullable
+    private static Bundle read(File file, @Nullable ClassLoader classLoader) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        Parcel parcel = Parcel.obtain();
+        FileInputStream inputStream = null;
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            inputStream = new FileInputStream(file);
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) > 0) {
+                offset += read;
+            }
+            parcel.unmarshall(bytes, 0, offset);
+            parcel.setDataPosition(0);
+            return parcel.readBundle(classLoader);
+        } catch (IOException | RuntimeException e) {
+            DialogLogger.w("Failed Reading Spilled Payload", file.getName(), e);
+            return null;
+        } finally {
+            parcel.recycle();
+            closeQuietly(inputStream);
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -2,10 +2,21 @@ package com.mrhabibi.autonomousdialog.wrapper;
 
 import android.content.DialogInterface;
 import android.os.Bundle;
+import android.view.View;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.ListView;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 
 import com.mrhabibi.autonomousdialog.DialogBuilder;
+import com.mrhabibi.autonomousdialog.DialogResult;
+import com.mrhabibi.autonomousdialog.utils.ChoiceSourceRegistry;
+import com.mrhabibi.autonomousdialog.utils.DialogUtils;
+
+import java.util.Arrays;
 
 /**
  * Created by mrhabibi on 12/12/16.
@@ -20,6 +31,13 @@ public class BasicDialogWrapper extends DialogWrapper {
 
     public static final String SINGLE_CHOICE_SELECTED_OPTION = "singleChoiceSelectedOption";
     public static final String MULTI_CHOICE_SELECTED_OPTIONS = "multiChoiceSelectedOptions";
+    public static final String MULTI_CHOICE_SELECTION = "multiChoiceSelection";
+
+    /**
+     * The content in one DialogContentSpec, the separate labels below are still read on top of
+     * it, for the states saved by the older versions and the per-show overrides of DialogTemplate
+     */
+    public static final String CONTENT_SPEC_LABEL = "contentSpec";
 
     public static final String TITLE_LABEL = "title";
     public static final String MESSAGE_LABEL = "message";
@@ -30,7 +48,11 @@ public class BasicDialogWrapper extends DialogWrapper {
     public static final String SINGLE_CHOICE_SELECTED_OPTION_LABEL = "singleChoiceSelectedOption";
     public static final String MULTI_CHOICE_OPTIONS_LABEL = "multiChoiceOptions";
     public static final String MULTI_CHOICE_SELECTED_OPTIONS_LABEL = "multiChoiceSelectedOptions";
+    public static final String MULTI_CHOICE_SELECTION_LABEL = "multiChoiceSelection";
+    public static final String MULTI_CHOICE_SOURCE_LABEL = "multiChoiceSource";
     public static final String PLAIN_CHOICE_OPTIONS_LABEL = "plainChoiceOptions";
+    public static final String SINGLE_CHOICE_SOURCE_LABEL = "singleChoiceSource";
+    public static final String PLAIN_CHOICE_SOURCE_LABEL = "plainChoiceSource";
 
     /**
      * The Texts
@@ -55,27 +77,84 @@ public class BasicDialogWrapper extends DialogWrapper {
     protected int mSingleChoiceSelectedOption;
 
     protected CharSequence[] mMultiChoiceOptions;
-    protected boolean[] mMultiChoiceSelectedOptions;
+    protected ChoiceSelection mMultiChoiceSelection;
 
     protected CharSequence[] mPlainChoiceOptions;
 
+    /**
+     * The Choice Sources, only the keys are persisted, the sources are made again by their
+     * factories in ChoiceSourceRegistry
+     */
+
+    protected String mSingleChoiceSourceKey;
+    protected String mMultiChoiceSourceKey;
+    protected String mPlainChoiceSourceKey;
+
+    private ChoiceSource mSingleChoiceSource;
+    private ChoiceSource mMultiChoiceSource;
+    private ChoiceSource mPlainChoiceSource;
+
+    /**
+     * The live multi choice list and the checked states held by the alert dialog, used to
+     * reflect the range selection
+     */
+    private ListView mMultiChoiceListView;
+    private boolean[] mMultiChoiceCheckedItems;
+
     @Override
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putCharSequence(TITLE_LABEL, mTitle);
-        outState.putCharSequence(MESSAGE_LABEL, mMessage);
-        outState.putCharSequence(POSITIVE_TEXT_LABEL, mPositiveText);
-        outState.putCharSequence(NEGATIVE_TEXT_LABEL, mNegativeText);
-        outState.putCharSequence(NEUTRAL_TEXT_LABEL, mNeutralText);
-        outState.putCharSequenceArray(SINGLE_CHOICE_OPTIONS_LABEL, mSingleChoiceOptions);
-        outState.putInt(SINGLE_CHOICE_SELECTED_OPTION_LABEL, mSingleChoiceSelectedOption);
-        outState.putCharSequenceArray(MULTI_CHOICE_OPTIONS_LABEL, mMultiChoiceOptions);
-        outState.putBooleanArray(MULTI_CHOICE_SELECTED_OPTIONS_LABEL, mMultiChoiceSelectedOptions);
-        outState.putCharSequenceArray(PLAIN_CHOICE_OPTIONS_LABEL, mPlainChoiceOptions);
+        outState.putParcelable(CONTENT_SPEC_LABEL, makeContentSpec());
+    }
+
+    private DialogContentSpec makeContentSpec() {
+        DialogContentSpec spec = new DialogContentSpec();
+        spec.mTitle = mTitle;
+        spec.mMessage = mMessage;
+        spec.mPositiveText = mPositiveText;
+        spec.mNegativeText = mNegativeText;
+        spec.mNeutralText = mNeutralText;
+        spec.mSingleChoiceOptions = mSingleChoiceOptions;
+        spec.mSingleChoiceSelectedOption = mSingleChoiceSelectedOption;
+        spec.mMultiChoiceOptions = mMultiChoiceOptions;
+        spec.mMultiChoiceSelection = mMultiChoiceSelection;
+        spec.mPlainChoiceOptions = mPlainChoiceOptions;
+        spec.mSingleChoiceSourceKey = mSingleChoiceSourceKey;
+        spec.mMultiChoiceSourceKey = mMultiChoiceSourceKey;
+        spec.mPlainChoiceSourceKey = mPlainChoiceSourceKey;
+        return spec;
+    }
+
+    private void applyContentSpec(DialogContentSpec spec) {
+        this.mTitle = spec.mTitle;
+        this.mMessage = spec.mMessage;
+        this.mPositiveText = spec.mPositiveText;
+        this.mNegativeText = spec.mNegativeText;
+        this.mNeutralText = spec.mNeutralText;
+        this.mSingleChoiceOptions = spec.mSingleChoiceOptions;
+        this.mSingleChoiceSelectedOption = spec.mSingleChoiceSelectedOption;
+        this.mMultiChoiceOptions = spec.mMultiChoiceOptions;
+
+        /*
+         * The spec of the arguments may be shared by a template, so don't change its selection
+         */
+        this.mMultiChoiceSelection = spec.mMultiChoiceSelection != null ? spec.mMultiChoiceSelection.copy() : null;
+        this.mPlainChoiceOptions = spec.mPlainChoiceOptions;
+        this.mSingleChoiceSourceKey = spec.mSingleChoiceSourceKey;
+        this.mMultiChoiceSourceKey = spec.mMultiChoiceSourceKey;
+        this.mPlainChoiceSourceKey = spec.mPlainChoiceSourceKey;
     }
 
     private void extractBundleStates(Bundle bundle) {
         if (bundle != null) {
+            DialogContentSpec spec = bundle.getParcelable(CONTENT_SPEC_LABEL);
+            if (spec != null) {
+                applyContentSpec(spec);
+            }
+
+            /*
+             * Legacy keys and per-show overrides
+             */
             if (bundle.containsKey(TITLE_LABEL)) {
                 this.mTitle = bundle.getCharSequence(TITLE_LABEL);
             }
@@ -101,11 +180,31 @@ public class BasicDialogWrapper extends DialogWrapper {
                 this.mMultiChoiceOptions = bundle.getCharSequenceArray(MULTI_CHOICE_OPTIONS_LABEL);
             }
             if (bundle.containsKey(MULTI_CHOICE_SELECTED_OPTIONS_LABEL)) {
-                this.mMultiChoiceSelectedOptions = bundle.getBooleanArray(MULTI_CHOICE_SELECTED_OPTIONS_LABEL);
+
+                /*
+                 * Legacy boolean array of the selected options
+                 */
+                boolean[] selectedOptions = bundle.getBooleanArray(MULTI_CHOICE_SELECTED_OPTIONS_LABEL);
+                if (selectedOptions != null) {
+                    this.mMultiChoiceSelection = ChoiceSelection.fromBooleanArray(selectedOptions);
+                }
+            }
+            if (bundle.containsKey(MULTI_CHOICE_SELECTION_LABEL)) {
+                ChoiceSelection selection = bundle.getParcelable(MULTI_CHOICE_SELECTION_LABEL);
+                this.mMultiChoiceSelection = selection != null ? selection.copy() : null;
+            }
+            if (bundle.containsKey(MULTI_CHOICE_SOURCE_LABEL)) {
+                this.mMultiChoiceSourceKey = bundle.getString(MULTI_CHOICE_SOURCE_LABEL);
             }
             if (bundle.containsKey(PLAIN_CHOICE_OPTIONS_LABEL)) {
                 this.mPlainChoiceOptions = bundle.getCharSequenceArray(PLAIN_CHOICE_OPTIONS_LABEL);
             }
+            if (bundle.containsKey(SINGLE_CHOICE_SOURCE_LABEL)) {
+                this.mSingleChoiceSourceKey = bundle.getString(SINGLE_CHOICE_SOURCE_LABEL);
+            }
+            if (bundle.containsKey(PLAIN_CHOICE_SOURCE_LABEL)) {
+                this.mPlainChoiceSourceKey = bundle.getString(PLAIN_CHOICE_SOURCE_LABEL);
+            }
         }
     }
 
@@ -135,9 +234,17 @@ public class BasicDialogWrapper extends DialogWrapper {
             dialogBuilder.setNeutralButton(mNeutralText);
         }
 
-        if (mSingleChoiceOptions != null && mSingleChoiceOptions.length > 0) {
+        if (hasSingleChoice()) {
 
-            dialogBuilder.setSingleChoiceItems(mSingleChoiceOptions, mSingleChoiceSelectedOption);
+            if (mSingleChoiceSourceKey != null) {
+                if (mSingleChoiceSource == null) {
+                    mSingleChoiceSource = ChoiceSourceRegistry.create(getContext(), mSingleChoiceSourceKey);
+                }
+                dialogBuilder.setSingleChoiceItems(new ChoiceSourceAdapter(getContext(), mSingleChoiceSource,
+                        DialogUtils.getAlertDialogItemLayout(getContext(), AbsListView.CHOICE_MODE_SINGLE)), mSingleChoiceSelectedOption);
+            } else {
+                dialogBuilder.setSingleChoiceItems(mSingleChoiceOptions, mSingleChoiceSelectedOption);
+            }
             dialogBuilder.setSingleChoiceOverridingListener(new OnClickListener() {
                 @Override
                 public void onClick(DialogInterface dialogInterface, int which) {
@@ -155,19 +262,35 @@ public class BasicDialogWrapper extends DialogWrapper {
                 }
             });
         }
-        if (mMultiChoiceOptions != null && mMultiChoiceOptions.length > 0) {
-            dialogBuilder.setMultiChoiceItems(mMultiChoiceOptions, mMultiChoiceSelectedOptions);
+        mMultiChoiceListView = null;
+        mMultiChoiceCheckedItems = null;
+        if (mMultiChoiceSourceKey != null) {
+            if (mMultiChoiceSource == null) {
+                mMultiChoiceSource = ChoiceSourceRegistry.create(getContext(), mMultiChoiceSourceKey);
+            }
+            ensureMultiChoiceSelection(mMultiChoiceSource.getCount());
+            dialogBuilder.setView(makeMultiChoiceListView(mMultiChoiceSource, dialogBuilder));
+        } else if (mMultiChoiceOptions != null && mMultiChoiceOptions.length > 0) {
+            ensureMultiChoiceSelection(mMultiChoiceOptions.length);
+            mMultiChoiceCheckedItems = mMultiChoiceSelection.toBooleanArray();
+            dialogBuilder.setMultiChoiceItems(mMultiChoiceOptions, mMultiChoiceCheckedItems);
             dialogBuilder.setMultiChoiceOverridingListener(new OnMultiChoiceClickListener() {
                 @Override
                 public void onClick(DialogInterface dialogInterface, int which, boolean checked) {
                     /*
                      * Saving the choices
                      */
-                    mMultiChoiceSelectedOptions[which] = checked;
+                    mMultiChoiceSelection.set(which, checked);
                 }
             });
         }
-        if (mPlainChoiceOptions != null && mPlainChoiceOptions.length > 0) {
+        if (mPlainChoiceSourceKey != null) {
+            if (mPlainChoiceSource == null) {
+                mPlainChoiceSource = ChoiceSourceRegistry.create(getContext(), mPlainChoiceSourceKey);
+            }
+            dialogBuilder.setItems(new ChoiceSourceAdapter(getContext(), mPlainChoiceSource,
+                    DialogUtils.getAlertDialogItemLayout(getContext(), AbsListView.CHOICE_MODE_NONE)));
+        } else if (mPlainChoiceOptions != null && mPlainChoiceOptions.length > 0) {
             dialogBuilder.setItems(mPlainChoiceOptions);
         }
     }
@@ -178,14 +301,131 @@ public class BasicDialogWrapper extends DialogWrapper {
         /*
          * Bundling the choices response
          */
-        if (mSingleChoiceOptions != null && mSingleChoiceOptions.length > 0) {
+        if (hasSingleChoice()) {
             responses.putInt(SINGLE_CHOICE_SELECTED_OPTION, mSingleChoiceSelectedOption);
         }
-        if (mMultiChoiceOptions != null && mMultiChoiceOptions.length > 0) {
-            responses.putBooleanArray(MULTI_CHOICE_SELECTED_OPTIONS, mMultiChoiceSelectedOptions);
+        if (mMultiChoiceSelection != null && (mMultiChoiceSourceKey != null || mMultiChoiceOptions != null)) {
+            responses.putParcelable(MULTI_CHOICE_SELECTION, mMultiChoiceSelection);
+
+            /*
+             * Keep the legacy boolean array for options, the source lists are too large for it
+             */
+            if (mMultiChoiceSourceKey == null) {
+                responses.putBooleanArray(MULTI_CHOICE_SELECTED_OPTIONS, mMultiChoiceSelection.toBooleanArray());
+            }
+        }
+    }
+
+    @Override
+    public void onDialogShown(AlertDialog dialog) {
+        super.onDialogShown(dialog);
+        if (mMultiChoiceCheckedItems != null) {
+            mMultiChoiceListView = dialog.getListView();
+        }
+    }
+
+    @Override
+    public void onChoiceItemsReplaced(@NonNull CharSequence[] items, @Nullable boolean[] checkedItems) {
+        super.onChoiceItemsReplaced(items, checkedItems);
+        if (hasSingleChoice()) {
+            mSingleChoiceOptions = items;
+            mSingleChoiceSelectedOption = -1;
+            mSingleChoiceSourceKey = null;
+            mSingleChoiceSource = null;
+        } else if (checkedItems != null) {
+            mMultiChoiceOptions = items;
+            mMultiChoiceSelection = new ChoiceSelection(items.length);
+            mMultiChoiceCheckedItems = checkedItems;
+        } else {
+            mPlainChoiceOptions = items;
+            mPlainChoiceSourceKey = null;
+            mPlainChoiceSource = null;
+        }
+    }
+
+    /**
+     * Select or clear the multi choices from fromIndex inclusive to toIndex exclusive, like for
+     * select all and clear all of large lists, the live dialog is updated too
+     *
+     * @param fromIndex The first choice
+     * @param toIndex   The choice after the last one
+     * @param selected  Select or clear
+     */
+    public void setMultiChoicesSelected(int fromIndex, int toIndex, boolean selected) {
+        if (mMultiChoiceSelection == null) {
+            return;
+        }
+        mMultiChoiceSelection.setRange(fromIndex, toIndex, selected);
+
+        if (mMultiChoiceCheckedItems != null) {
+            Arrays.fill(mMultiChoiceCheckedItems, fromIndex, toIndex, selected);
+        }
+        if (mMultiChoiceListView != null) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                mMultiChoiceListView.setItemChecked(i, selected);
+            }
         }
     }
 
+    /**
+     * Get the multi choice selection
+     *
+     * @return The selection, or null if there's no multi choice
+     */
+    @Nullable
+    public ChoiceSelection getMultiChoiceSelection() {
+        return mMultiChoiceSelection;
+    }
+
+    /**
+     * Make sure the selection exists and has the same size as the choices, the dialog that has
+     * no selected options at first used to crash when a choice is clicked
+     */
+    private void ensureMultiChoiceSelection(int size) {
+        if (mMultiChoiceSelection == null) {
+            mMultiChoiceSelection = new ChoiceSelection(size);
+        } else if (mMultiChoiceSelection.size() != size) {
+            mMultiChoiceSelection = mMultiChoiceSelection.resize(size);
+        }
+    }
+
+    /**
+     * The alert dialog can't make multi choice list from adapter, so make the list ourselves
+     */
+    private ListView makeMultiChoiceListView(ChoiceSource source, final DialogBuilder dialogBuilder) {
+        final ListView listView = new ListView(getContext());
+        listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        listView.setAdapter(new ChoiceSourceAdapter(getContext(), source,
+                DialogUtils.getAlertDialogItemLayout(getContext(), AbsListView.CHOICE_MODE_MULTIPLE)));
+        for (int i = mMultiChoiceSelection.nextSelected(0); i >= 0; i = mMultiChoiceSelection.nextSelected(i + 1)) {
+            listView.setItemChecked(i, true);
+        }
+        listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                boolean checked = listView.isItemChecked(position);
+                mMultiChoiceSelection.set(position, checked);
+                setResultCode(DialogResult.RESULT_DIALOG_MULTI_CHOICES);
+
+                /*
+                 * Put the which and checked in the result like the multi choice options
+                 */
+                dialogBuilder.dispatchMultiChoiceClick(BasicDialogWrapper.this, position, checked);
+            }
+        });
+        mMultiChoiceListView = listView;
+        return listView;
+    }
+
+    /**
+     * Check if is dialog having single choice from options or source
+     *
+     * @return Has single choice
+     */
+    private boolean hasSingleChoice() {
+        return mSingleChoiceSourceKey != null || (mSingleChoiceOptions != null && mSingleChoiceOptions.length > 0);
+    }
+
     /**
      * Check if is dialog having positive button
      *
@@ -201,53 +441,105 @@ public class BasicDialogWrapper extends DialogWrapper {
 
     public static class Builder extends DialogWrapper.Builder<BasicDialogWrapper> {
 
+        /**
+         * The content put in the arguments once, the builder methods only fill its fields
+         */
+        protected final DialogContentSpec spec;
+
+        public Builder() {
+            super();
+            this.spec = new DialogContentSpec();
+            arguments.putParcelable(CONTENT_SPEC_LABEL, spec);
+        }
+
         public Builder title(CharSequence title) {
-            arguments.putCharSequence(TITLE_LABEL, title);
+            spec.mTitle = title;
             return this;
         }
 
         public Builder message(CharSequence message) {
-            arguments.putCharSequence(MESSAGE_LABEL, message);
+            spec.mMessage = message;
             return this;
         }
 
         public Builder positiveText(CharSequence positiveText) {
-            arguments.putCharSequence(POSITIVE_TEXT_LABEL, positiveText);
+            spec.mPositiveText = positiveText;
             return this;
         }
 
         public Builder negativeText(CharSequence negativeText) {
-            arguments.putCharSequence(NEGATIVE_TEXT_LABEL, negativeText);
+            spec.mNegativeText = negativeText;
             return this;
         }
 
         public Builder neutralText(CharSequence neutralText) {
-            arguments.putCharSequence(NEUTRAL_TEXT_LABEL, neutralText);
+            spec.mNeutralText = neutralText;
             return this;
         }
 
         public Builder singleChoiceOptions(CharSequence[] singleChoiceOptions) {
-            arguments.putCharSequenceArray(SINGLE_CHOICE_OPTIONS_LABEL, singleChoiceOptions);
+            spec.mSingleChoiceOptions = singleChoiceOptions;
             return this;
         }
 
         public Builder singleChoiceSelectedOption(int singleChoiceSelectedOption) {
-            arguments.putInt(SINGLE_CHOICE_SELECTED_OPTION_LABEL, singleChoiceSelectedOption);
+            spec.mSingleChoiceSelectedOption = singleChoiceSelectedOption;
             return this;
         }
 
         public Builder multiChoiceOptions(CharSequence[] multiChoiceOptions) {
-            arguments.putCharSequenceArray(MULTI_CHOICE_OPTIONS_LABEL, multiChoiceOptions);
+            spec.mMultiChoiceOptions = multiChoiceOptions;
             return this;
         }
 
         public Builder multiChoiceSelectedOptions(boolean[] multiChoiceSelectedOptions) {
-            arguments.putBooleanArray(MULTI_CHOICE_SELECTED_OPTIONS_LABEL, multiChoiceSelectedOptions);
+            spec.mMultiChoiceSelection = ChoiceSelection.fromBooleanArray(multiChoiceSelectedOptions);
+            return this;
+        }
+
+        public Builder multiChoiceSelection(ChoiceSelection multiChoiceSelection) {
+            spec.mMultiChoiceSelection = multiChoiceSelection;
+            return this;
+        }
+
+        /**
+         * Multi choice from the source registered in ChoiceSourceRegistry, used instead of
+         * options for very large lists
+         *
+         * @param sourceKey The source key
+         * @return The builder
+         */
+        public Builder multiChoiceSource(String sourceKey) {
+            spec.mMultiChoiceSourceKey = sourceKey;
             return this;
         }
 
         public Builder plainChoiceOptions(CharSequence[] plainChoiceOptions) {
-            arguments.putCharSequenceArray(PLAIN_CHOICE_OPTIONS_LABEL, plainChoiceOptions);
+            spec.mPlainChoiceOptions = plainChoiceOptions;
+            return this;
+        }
+
+        /**
+         * Single choice from the source registered in ChoiceSourceRegistry, used instead of
+         * options for very large lists
+         *
+         * @param sourceKey The source key
+         * @return The builder
+         */
+        public Builder singleChoiceSource(String sourceKey) {
+            spec.mSingleChoiceSourceKey = sourceKey;
+            return this;
+        }
+
+        /**
+         * Plain choice from the source registered in ChoiceSourceRegistry, used instead of
+         * options for very large lists
+         *
+         * @param sourceKey The source key
+         * @return The builder
+         */
+        public Builder plainChoiceSource(String sourceKey) {
+            spec.mPlainChoiceSourceKey = sourceKey;
             return this;
         }
 
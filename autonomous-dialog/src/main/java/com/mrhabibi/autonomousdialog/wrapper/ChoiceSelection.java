@@ -0,0 +1,273 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Selection of multi choice dialog backed by a bitset, so it's parceled as one bit per item
+ * instead of the four bytes of a boolean array, and selecting or clearing a range of a very large
+ * list only touches its words. Iterate the selected indices with nextSelected
+ *
+ * <pre>
+ * for (int i = selection.nextSelected(0); i >= 0; i = selection.nextSelected(i + 1)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class ChoiceSelection implements Parcelable {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long WORD_MASK = 0xffffffffffffffffL;
+
+    private final int mSize;
+    private final long[] mWords;
+
+    /**
+     * @param size The count of items
+     */
+    public ChoiceSelection(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative!");
+        }
+        this.mSize = size;
+        this.mWords = new long[wordIndex(size - 1) + 1];
+    }
+
+    private ChoiceSelection(int size, long[] words) {
+        this.mSize = size;
+        this.mWords = words;
+    }
+
+    /**
+     * Make the selection from the legacy boolean array
+     *
+     * @param selected The selected states
+     * @return The selection
+     */
+    @NonNull
+    public static ChoiceSelection fromBooleanArray(@NonNull boolean[] selected) {
+        ChoiceSelection selection = new ChoiceSelection(selected.length);
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                selection.mWords[wordIndex(i)] |= 1L << i;
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Make the selection with another size, keeping the selected indices that still fit
+     *
+     * @param size The new count of items
+     * @return The resized selection
+     */
+    @NonNull
+    public ChoiceSelection resize(int size) {
+        ChoiceSelection selection = new ChoiceSelection(size);
+        System.arraycopy(mWords, 0, selection.mWords, 0, Math.min(mWords.length, selection.mWords.length));
+        selection.trimLastWord();
+        return selection;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isSelected(int index) {
+        checkIndex(index);
+        return (mWords[wordIndex(index)] & (1L << index)) != 0;
+    }
+
+    public void set(int index, boolean selected) {
+        checkIndex(index);
+        if (selected) {
+            mWords[wordIndex(index)] |= 1L << index;
+        } else {
+            mWords[wordIndex(index)] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Select or clear the items from fromIndex inclusive to toIndex exclusive
+     *
+     * @param fromIndex The first item
+     * @param toIndex   The item after the last one
+     * @param selected  Select or clear
+     */
+    public void setRange(int fromIndex, int toIndex, boolean selected) {
+        if (fromIndex < 0 || toIndex > mSize || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range " + fromIndex + " to " + toIndex + " of size " + mSize);
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+
+        int startWord = wordIndex(fromIndex);
+        int endWord = wordIndex(toIndex - 1);
+        long firstMask = WORD_MASK << fromIndex;
+        long lastMask = WORD_MASK >>> -toIndex;
+
+        if (startWord == endWord) {
+            applyMask(startWord, firstMask & lastMask, selected);
+            return;
+        }
+
+        applyMask(startWord, firstMask, selected);
+        for (int i = startWord + 1; i < endWord; i++) {
+            mWords[i] = selected ? WORD_MASK : 0;
+        }
+        applyMask(endWord, lastMask, selected);
+    }
+
+    public void selectAll() {
+        setRange(0, mSize, true);
+    }
+
+    public void clearAll() {
+        for (int i = 0; i < mWords.length; i++) {
+            mWords[i] = 0;
+        }
+    }
+
+    /**
+     * @return The count of selected items
+     */
+    public int getSelectedCount() {
+        int count = 0;
+        for (long word : mWords) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Find the next selected index
+     *
+     * @param fromIndex The index to start from, inclusive
+     * @return The next selected index, or -1 if there's no more
+     */
+    public int nextSelected(int fromIndex) {
+        if (fromIndex >= mSize) {
+            return -1;
+        }
+        if (fromIndex < 0) {
+            fromIndex = 0;
+        }
+
+        int wordIndex = wordIndex(fromIndex);
+        long word = mWords[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                return index < mSize ? index : -1;
+            }
+            if (++wordIndex == mWords.length) {
+                return -1;
+            }
+            word = mWords[wordIndex];
+        }
+    }
+
+    /**
+     * @return The selected indices in ascending order
+     */
+    @NonNull
+    public int[] getSelectedIndices() {
+        int[] indices = new int[getSelectedCount()];
+        int position = 0;
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+            indices[position++] = i;
+        }
+        return indices;
+    }
+
+    /**
+     * @return The legacy boolean array of the selected states
+     */
+    @NonNull
+    public boolean[] toBooleanArray() {
+        boolean[] selected = new boolean[mSize];
+        for (int i = nextSelected(0); i >= 0; i = nextSelected(i + 1)) {
+            selected[i] = true;
+        }
+        return selected;
+    }
+
+    @NonNull
+    public ChoiceSelection copy() {
+        return new ChoiceSelection(mSize, mWords.clone());
+    }
+
+    private void applyMask(int wordIndex, long mask, boolean selected) {
+        if (selected) {
+            mWords[wordIndex] |= mask;
+        } else {
+            mWords[wordIndex] &= ~mask;
+        }
+    }
+
+    /**
+     * Clear the bits after the last item, so they're never counted or iterated
+     */
+    private void trimLastWord() {
+        if (mWords.length > 0 && (mSize & 63) != 0) {
+            mWords[mWords.length - 1] &= WORD_MASK >>> -mSize;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index " + index + " of size " + mSize);
+        }
+    }
+
+    private static int wordIndex(int index) {
+        return index >> ADDRESS_BITS_PER_WORD;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ChoiceSelection)) {
+            return false;
+        }
+        ChoiceSelection selection = (ChoiceSelection) other;
+        return mSize == selection.mSize && Arrays.equals(mWords, selection.mWords);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mSize + Arrays.hashCode(mWords);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(mSize);
+        dest.writeLongArray(mWords);
+    }
+
+    public static final Creator<ChoiceSelection> CREATOR = new Creator<ChoiceSelection>() {
+        @Override
+        public ChoiceSelection createFromParcel(Parcel source) {
+            int size = source.readInt();
+            return new ChoiceSelection(size, source.createLongArray());
+        }
+
+        @Override
+        public ChoiceSelection[] newArray(int size) {
+            return new ChoiceSelection[size];
+        }
+    };
+}
@@ -0,0 +1,44 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.content.Context;
+import android.database.DataSetObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Source of choice items for very large choice dialogs, the items are read on demand by the list
+ * adapter instead of being passed as an array, so they're never put in arguments or saved state.
+ * The source is made by its factory registered in ChoiceSourceRegistry, and only its key is
+ * persisted by the dialog wrapper
+ */
+public interface ChoiceSource {
+
+    /**
+     * @return The count of items
+     */
+    int getCount();
+
+    /**
+     * Get the item, called on the main thread for the visible items only
+     *
+     * @param position The item position
+     * @return The item, or null if it's not loaded yet, the observers are notified when it is
+     */
+    @Nullable
+    CharSequence getItem(int position);
+
+    void registerDataSetObserver(@NonNull DataSetObserver observer);
+
+    void unregisterDataSetObserver(@NonNull DataSetObserver observer);
+
+    /**
+     * Make the source again when the dialog is built, including after config changes and
+     * process death
+     */
+    interface Factory {
+
+        @NonNull
+        ChoiceSource create(@NonNull Context context);
+    }
+}
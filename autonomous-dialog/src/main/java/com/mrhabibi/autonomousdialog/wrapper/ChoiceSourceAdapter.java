@@ -0,0 +1,100 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.content.Context;
+import android.database.DataSetObserver;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
+
+/**
+ * List adapter of choice dialog that reads the items from ChoiceSource, only the visible rows are
+ * bound, and the rows of items that are not loaded yet are refreshed when they are
+ */
+public class ChoiceSourceAdapter extends BaseAdapter {
+
+    private static final String LOADING_TEXT = "…";
+
+    private final LayoutInflater mInflater;
+    private final ChoiceSource mSource;
+    @LayoutRes
+    private final int mItemLayout;
+    private int mObserverCount;
+
+    private final DataSetObserver mSourceObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            notifyDataSetInvalidated();
+        }
+    };
+
+    /**
+     * @param context    The dialog context
+     * @param source     The choice source
+     * @param itemLayout The row layout with android.R.id.text1, like the one from
+     *                   DialogUtils.getAlertDialogItemLayout
+     */
+    public ChoiceSourceAdapter(@NonNull Context context, @NonNull ChoiceSource source, @LayoutRes int itemLayout) {
+        this.mInflater = LayoutInflater.from(context);
+        this.mSource = source;
+        this.mItemLayout = itemLayout;
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        super.registerDataSetObserver(observer);
+
+        /*
+         * Only observe the source while the list observes this adapter, so the source doesn't
+         * keep the adapter of a gone dialog
+         */
+        if (mObserverCount++ == 0) {
+            mSource.registerDataSetObserver(mSourceObserver);
+        }
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        super.unregisterDataSetObserver(observer);
+        if (--mObserverCount == 0) {
+            mSource.unregisterDataSetObserver(mSourceObserver);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mSource.getCount();
+    }
+
+    @Override
+    public CharSequence getItem(int position) {
+        return mSource.getItem(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View view = convertView != null ? convertView : mInflater.inflate(mItemLayout, parent, false);
+        CharSequence item = mSource.getItem(position);
+        ((TextView) view.findViewById(android.R.id.text1)).setText(item != null ? item : LOADING_TEXT);
+        return view;
+    }
+}
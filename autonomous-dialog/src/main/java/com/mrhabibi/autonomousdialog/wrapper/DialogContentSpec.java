@@ -0,0 +1,174 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.text.TextUtils;
+
+/**
+ * Content of BasicDialogWrapper kept as one parcelable in the arguments and the saved state,
+ * instead of a bundle entry for every field. All fields are written in one pass in a fixed order,
+ * no key is written and no type is looked up, and the texts keep their spans. The parcel starts
+ * with the version and the length of the rest, so a spec written by a newer version can still be
+ * read, the unknown fields at the end are skipped
+ */
+public final class DialogContentSpec implements Parcelable {
+
+    /**
+     * Increase it when fields are added, new fields are always written after the old ones
+     */
+    static final int VERSION = 1;
+
+    CharSequence mTitle;
+    CharSequence mMessage;
+
+    CharSequence mPositiveText;
+    CharSequence mNegativeText;
+    CharSequence mNeutralText;
+
+    CharSequence[] mSingleChoiceOptions;
+    int mSingleChoiceSelectedOption;
+
+    CharSequence[] mMultiChoiceOptions;
+    ChoiceSelection mMultiChoiceSelection;
+
+    CharSequence[] mPlainChoiceOptions;
+
+    String mSingleChoiceSourceKey;
+    String mMultiChoiceSourceKey;
+    String mPlainChoiceSourceKey;
+
+    DialogContentSpec() {
+    }
+
+    /**
+     * Copy the spec, the texts and option arrays are shared
+     *
+     * @return The copy
+     */
+    DialogContentSpec copy() {
+        DialogContentSpec spec = new DialogContentSpec();
+        spec.mTitle = mTitle;
+        spec.mMessage = mMessage;
+        spec.mPositiveText = mPositiveText;
+        spec.mNegativeText = mNegativeText;
+        spec.mNeutralText = mNeutralText;
+        spec.mSingleChoiceOptions = mSingleChoiceOptions;
+        spec.mSingleChoiceSelectedOption = mSingleChoiceSelectedOption;
+        spec.mMultiChoiceOptions = mMultiChoiceOptions;
+        spec.mMultiChoiceSelection = mMultiChoiceSelection != null ? mMultiChoiceSelection.copy() : null;
+        spec.mPlainChoiceOptions = mPlainChoiceOptions;
+        spec.mSingleChoiceSourceKey = mSingleChoiceSourceKey;
+        spec.mMultiChoiceSourceKey = mMultiChoiceSourceKey;
+        spec.mPlainChoiceSourceKey = mPlainChoiceSourceKey;
+        return spec;
+    }
+
+    private DialogContentSpec(Parcel in) {
+        int version = in.readInt();
+        int length = in.readInt();
+        int start = in.dataPosition();
+
+        mTitle = readCharSequence(in);
+        mMessage = readCharSequence(in);
+        mPositiveText = readCharSequence(in);
+        mNegativeText = readCharSequence(in);
+        mNeutralText = readCharSequence(in);
+        mSingleChoiceOptions = readCharSequenceArray(in);
+        mSingleChoiceSelectedOption = in.readInt();
+        mMultiChoiceOptions = readCharSequenceArray(in);
+        if (in.readInt() != 0) {
+            mMultiChoiceSelection = ChoiceSelection.CREATOR.createFromParcel(in);
+        }
+        mPlainChoiceOptions = readCharSequenceArray(in);
+        mSingleChoiceSourceKey = in.readString();
+        mMultiChoiceSourceKey = in.readString();
+        mPlainChoiceSourceKey = in.readString();
+
+        /*
+         * Skip the fields of the newer versions
+         */
+        if (version > VERSION) {
+            in.setDataPosition(start + length);
+        }
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(VERSION);
+
+        /*
+         * Reserve the length, it's written once the fields are in
+         */
+        int lengthPosition = dest.dataPosition();
+        dest.writeInt(0);
+        int start = dest.dataPosition();
+
+        TextUtils.writeToParcel(mTitle, dest, flags);
+        TextUtils.writeToParcel(mMessage, dest, flags);
+        TextUtils.writeToParcel(mPositiveText, dest, flags);
+        TextUtils.writeToParcel(mNegativeText, dest, flags);
+        TextUtils.writeToParcel(mNeutralText, dest, flags);
+        writeCharSequenceArray(dest, mSingleChoiceOptions, flags);
+        dest.writeInt(mSingleChoiceSelectedOption);
+        writeCharSequenceArray(dest, mMultiChoiceOptions, flags);
+        if (mMultiChoiceSelection != null) {
+            dest.writeInt(1);
+            mMultiChoiceSelection.writeToParcel(dest, flags);
+        } else {
+            dest.writeInt(0);
+        }
+        writeCharSequenceArray(dest, mPlainChoiceOptions, flags);
+        dest.writeString(mSingleChoiceSourceKey);
+        dest.writeString(mMultiChoiceSourceKey);
+        dest.writeString(mPlainChoiceSourceKey);
+
+        int end = dest.dataPosition();
+        dest.setDataPosition(lengthPosition);
+        dest.writeInt(end - start);
+        dest.setDataPosition(end);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    private static void writeCharSequenceArray(Parcel dest, CharSequence[] array, int flags) {
+        if (array == null) {
+            dest.writeInt(-1);
+            return;
+        }
+        dest.writeInt(array.length);
+        for (CharSequence item : array) {
+            TextUtils.writeToParcel(item, dest, flags);
+        }
+    }
+
+    private static CharSequence readCharSequence(Parcel in) {
+        return TextUtils.CHAR_SEQUENCE_CREATOR.createFromParcel(in);
+    }
+
+    private static CharSequence[] readCharSequenceArray(Parcel in) {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        CharSequence[] array = new CharSequence[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = readCharSequence(in);
+        }
+        return array;
+    }
+
+    public static final Creator<DialogContentSpec> CREATOR = new Creator<DialogContentSpec>() {
+        @Override
+        public DialogContentSpec createFromParcel(Parcel in) {
+            return new DialogContentSpec(in);
+        }
+
+        @Override
+        public DialogContentSpec[] newArray(int size) {
+            return new DialogContentSpec[size];
+        }
+    };
+}
@@ -0,0 +1,158 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Immutable dialog wrapper arguments that are built once and shared, for dialogs shown over and
+ * over with the same content, like a delete confirmation. Making a wrapper only makes a shallow
+ * copy of the prepared arguments, the texts and option arrays are shared instead of put again,
+ * and only the per-show fields like the message or the selected option are written on top of
+ * the copy. The template can be used from any thread, keep it in DialogTemplateRegistry
+ *
+ * <pre>
+ * DialogTemplate&lt;BasicDialogWrapper&gt; template = DialogTemplate.of(BasicDialogWrapper.newBuilder()
+ *         .title("Delete")
+ *         .positiveText("Delete")
+ *         .negativeText("Cancel"));
+ *
+ * template.with().message("Delete " + name + "?").build();
+ * </pre>
+ *
+ * @param <T> The dialog wrapper type
+ */
+public final class DialogTemplate<T extends DialogWrapper> {
+
+    private final Class<? extends DialogWrapper> mWrapperClass;
+
+    /**
+     * Never changed nor passed outside after the template is made
+     */
+    private final Bundle mArguments;
+
+    private DialogTemplate(Class<? extends DialogWrapper> wrapperClass, Bundle arguments) {
+        this.mWrapperClass = wrapperClass;
+        this.mArguments = arguments;
+
+        /*
+         * Make sure the bundle is not parceled, so copying it later only reads it
+         */
+        this.mArguments.size();
+    }
+
+    /**
+     * Make the template from the builder, the builder can be changed or dropped afterwards
+     *
+     * @param builder The builder of the dialog wrapper
+     * @return The template
+     */
+    @NonNull
+    public static <T extends DialogWrapper> DialogTemplate<T> of(@NonNull DialogWrapper.Builder<T> builder) {
+        Bundle arguments = new Bundle(builder.getArguments());
+
+        /*
+         * The builder keeps filling its spec, so keep a copy of it
+         */
+        DialogContentSpec spec = arguments.getParcelable(BasicDialogWrapper.CONTENT_SPEC_LABEL);
+        if (spec != null) {
+            arguments.putParcelable(BasicDialogWrapper.CONTENT_SPEC_LABEL, spec.copy());
+        }
+        return new DialogTemplate<>(builder.build().getClass(), arguments);
+    }
+
+    /**
+     * Make a new dialog wrapper with the template arguments
+     *
+     * @return The dialog wrapper
+     */
+    @NonNull
+    public T newWrapper() {
+        return newWrapper(null);
+    }
+
+    /**
+     * Make a new dialog wrapper with the template arguments and the overrides on top of them
+     *
+     * @param overrides The per-show arguments, like BasicDialogWrapper.MESSAGE_LABEL
+     * @return The dialog wrapper
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public T newWrapper(@Nullable Bundle overrides) {
+        Bundle arguments = new Bundle(mArguments);
+        if (overrides != null) {
+            arguments.putAll(overrides);
+        }
+
+        DialogWrapper dialogWrapper;
+        try {
+            dialogWrapper = mWrapperClass.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Dialog wrapper " + mWrapperClass.getName() + " must have a public empty constructor!", e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Dialog wrapper " + mWrapperClass.getName() + " must have a public empty constructor!", e);
+        }
+        dialogWrapper.setArguments(arguments);
+        return (T) dialogWrapper;
+    }
+
+    /**
+     * Start the per-show overrides of BasicDialogWrapper fields
+     *
+     * @return The overrides
+     */
+    @NonNull
+    public Overrides<T> with() {
+        return new Overrides<>(this);
+    }
+
+    /**
+     * The per-show fields written on top of the template arguments
+     */
+    public static class Overrides<T extends DialogWrapper> {
+
+        private final DialogTemplate<T> mTemplate;
+        private final Bundle mOverrides = new Bundle();
+
+        Overrides(DialogTemplate<T> template) {
+            this.mTemplate = template;
+        }
+
+        public Overrides<T> title(CharSequence title) {
+            mOverrides.putCharSequence(BasicDialogWrapper.TITLE_LABEL, title);
+            return this;
+        }
+
+        public Overrides<T> message(CharSequence message) {
+            mOverrides.putCharSequence(BasicDialogWrapper.MESSAGE_LABEL, message);
+            return this;
+        }
+
+        public Overrides<T> singleChoiceSelectedOption(int singleChoiceSelectedOption) {
+            mOverrides.putInt(BasicDialogWrapper.SINGLE_CHOICE_SELECTED_OPTION_LABEL, singleChoiceSelectedOption);
+            return this;
+        }
+
+        public Overrides<T> multiChoiceSelection(ChoiceSelection multiChoiceSelection) {
+            mOverrides.putParcelable(BasicDialogWrapper.MULTI_CHOICE_SELECTION_LABEL, multiChoiceSelection);
+            return this;
+        }
+
+        /**
+         * Get the overrides bundle, for the arguments of other dialog wrappers
+         *
+         * @return The overrides bundle
+         */
+        @NonNull
+        public Bundle getArguments() {
+            return mOverrides;
+        }
+
+        @NonNull
+        public T build() {
+            return mTemplate.newWrapper(mOverrides);
+        }
+    }
+}
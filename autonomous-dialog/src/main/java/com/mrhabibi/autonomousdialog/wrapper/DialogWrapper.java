@@ -1,14 +1,20 @@
 package com.mrhabibi.autonomousdialog.wrapper;
 
+import android.content.Context;
 import android.content.DialogInterface;
+import android.content.MutableContextWrapper;
 import android.os.Bundle;
+import android.view.LayoutInflater;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 
 import com.mrhabibi.autonomousdialog.DialogBuilder;
+import com.mrhabibi.autonomousdialog.DialogActivity;
 import com.mrhabibi.autonomousdialog.DialogCallback;
+import com.mrhabibi.autonomousdialog.DialogUpdate;
 
 /**
  * Created by mrhabibi on 12/2/16.
@@ -18,8 +24,15 @@ import com.mrhabibi.autonomousdialog.DialogCallback;
 public abstract class DialogWrapper extends Fragment implements DialogInterface, DialogCallback {
 
     public static final String RESULT_CODE_STATE = "resultCode";
+    public static final String APPLIED_UPDATE_STATE = "appliedUpdate";
 
     protected int mResultCode;
+
+    /**
+     * All updates applied to the live dialog by AutonomousDialog.update, applied again when the
+     * dialog is built after config changes
+     */
+    private DialogUpdate mAppliedUpdate;
     /**
      * This saves the built dialog, the final version, and combined with interface DialogInterface
      * to access the dialog function. Used for custom view that needs to interact with built dialog
@@ -27,11 +40,43 @@ public abstract class DialogWrapper extends Fragment implements DialogInterface,
      */
     private DialogInterface mDialogInterface;
 
+    /**
+     * The context of the views kept across config changes, it follows the current host
+     */
+    private RetainableContext mRetainableContext;
+
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        if (mRetainableContext != null) {
+            mRetainableContext.setBaseContext(context);
+        }
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+
+        /*
+         * Don't keep the gone host until the next one attaches
+         */
+        if (mRetainableContext != null) {
+            mRetainableContext.setBaseContext(mRetainableContext.getApplicationContext());
+        }
+    }
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (isRetainedAcrossConfigChanges()) {
+            setRetainInstance(true);
+        }
         if (savedInstanceState != null) {
             mResultCode = savedInstanceState.getInt(RESULT_CODE_STATE);
+            Bundle appliedUpdate = savedInstanceState.getBundle(APPLIED_UPDATE_STATE);
+            if (appliedUpdate != null) {
+                mAppliedUpdate = DialogUpdate.fromBundle(appliedUpdate);
+            }
         }
     }
 
@@ -44,6 +89,17 @@ public abstract class DialogWrapper extends Fragment implements DialogInterface,
         this.mDialogInterface = dialog;
     }
 
+    /**
+     * Called when DialogUpdate replaced the items of the live dialog, keep them so the dialog
+     * is built with them after config changes
+     *
+     * @param items        The new items
+     * @param checkedItems The checked states held by the alert dialog if it's multi choice,
+     *                     all cleared, otherwise null
+     */
+    public void onChoiceItemsReplaced(@NonNull CharSequence[] items, @Nullable boolean[] checkedItems) {
+    }
+
     /**
      * Used to dismiss built dialog
      */
@@ -72,6 +128,72 @@ public abstract class DialogWrapper extends Fragment implements DialogInterface,
     public void onBundleResponses(Bundle responses) {
     }
 
+    /**
+     * Called when the next step replaces this dialog in the same host, keep whatever is needed to
+     * build the dialog again when going back to this step
+     */
+    public void onStepHidden() {
+    }
+
+    /**
+     * Replace this dialog with the next one in the same host, without launching another activity
+     *
+     * @param next The next dialog wrapper
+     * @return True if the next step is shown, false if the host doesn't support steps
+     */
+    protected boolean showNextStep(@NonNull DialogWrapper next) {
+        return getActivity() instanceof DialogActivity && ((DialogActivity) getActivity()).showNextStep(next);
+    }
+
+    /**
+     * Go back to the previous dialog in the same host, this dialog is discarded without result
+     *
+     * @return True if the previous step is shown, false if this is the first step
+     */
+    protected boolean showPreviousStep() {
+        return getActivity() instanceof DialogActivity && ((DialogActivity) getActivity()).showPreviousStep();
+    }
+
+    /**
+     * Get the updates applied to the live dialog
+     *
+     * @return The applied updates
+     */
+    @NonNull
+    public DialogUpdate getAppliedUpdate() {
+        if (mAppliedUpdate == null) {
+            mAppliedUpdate = new DialogUpdate();
+        }
+        return mAppliedUpdate;
+    }
+
+    /**
+     * Override this to keep this dialog wrapper, the dialog it built and its views in memory across
+     * config changes, so the new host only builds the alert dialog from them instead of calling
+     * onBuildDialog again. Only for content that doesn't depend on the configuration, like
+     * landscape layouts, and the views have to be made with getRetainableContext so they don't
+     * keep the destroyed activity
+     *
+     * @return True to be retained, the default is false
+     */
+    public boolean isRetainedAcrossConfigChanges() {
+        return false;
+    }
+
+    /**
+     * Get the context for the views that are kept across config changes, it has the resources and
+     * theme of the current host, and the views inflated with it use it as their context too
+     *
+     * @return The retainable context
+     */
+    @NonNull
+    public Context getRetainableContext() {
+        if (mRetainableContext == null) {
+            mRetainableContext = new RetainableContext(requireContext());
+        }
+        return mRetainableContext;
+    }
+
     public void setResultCode(int resultCode) {
         mResultCode = resultCode;
     }
@@ -85,6 +207,39 @@ public abstract class DialogWrapper extends Fragment implements DialogInterface,
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
         outState.putInt(RESULT_CODE_STATE, mResultCode);
+        if (mAppliedUpdate != null) {
+            outState.putBundle(APPLIED_UPDATE_STATE, mAppliedUpdate.toBundle());
+        }
+    }
+
+    /**
+     * Context wrapper that can be moved to the new host, its inflater is cloned for itself so
+     * the inflated views don't get the host as their context
+     */
+    private static class RetainableContext extends MutableContextWrapper {
+
+        private LayoutInflater mInflater;
+
+        RetainableContext(Context base) {
+            super(base);
+        }
+
+        @Override
+        public void setBaseContext(Context base) {
+            super.setBaseContext(base);
+            mInflater = null;
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if (LAYOUT_INFLATER_SERVICE.equals(name)) {
+                if (mInflater == null) {
+                    mInflater = LayoutInflater.from(getBaseContext()).cloneInContext(this);
+                }
+                return mInflater;
+            }
+            return super.getSystemService(name);
+        }
     }
 
     public abstract static class Builder<T extends DialogWrapper> {
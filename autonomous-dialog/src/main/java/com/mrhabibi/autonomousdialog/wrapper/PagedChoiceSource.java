@@ -0,0 +1,158 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.database.DataSetObservable;
+import android.database.DataSetObserver;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mrhabibi.autonomousdialog.utils.DialogLogger;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Choice source that loads the items page by page on a background thread, only the pages of the
+ * visible items and the page next to them are requested and a limited number of pages are kept in
+ * memory, like for contacts cursor, paged API or indexed file
+ */
+public abstract class PagedChoiceSource implements ChoiceSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 8;
+
+    private static final Executor loadExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final int mPageSize;
+    private final int mMaxPages;
+
+    private final DataSetObservable mObservable = new DataSetObservable();
+    private final HashSet<Integer> mLoadingPages = new HashSet<>();
+    private final LinkedHashMap<Integer, CharSequence[]> mPages;
+
+    /**
+     * Bumped by invalidate, pages loaded for an older generation are dropped
+     */
+    private int mGeneration;
+
+    public PagedChoiceSource() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public PagedChoiceSource(int pageSize, final int maxPages) {
+        this.mPageSize = pageSize;
+        this.mMaxPages = maxPages;
+        this.mPages = new LinkedHashMap<Integer, CharSequence[]>(maxPages, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CharSequence[]> eldest) {
+                return size() > mMaxPages;
+            }
+        };
+    }
+
+    /**
+     * Load the items, called on a background thread
+     *
+     * @param offset The position of the first item
+     * @param count  The count of items, can be less at the end of the list
+     * @return The items
+     */
+    @NonNull
+    protected abstract CharSequence[] loadPage(int offset, int count);
+
+    @Nullable
+    @Override
+    public CharSequence getItem(int position) {
+        int page = position / mPageSize;
+        CharSequence[] items = mPages.get(page);
+        if (items == null) {
+            requestPage(page);
+            return null;
+        }
+
+        int index = position - page * mPageSize;
+
+        /*
+         * Load the page the list is scrolling to before its items are bound
+         */
+        if (index >= mPageSize / 2) {
+            prefetchPage(page + 1);
+        } else if (page > 0) {
+            prefetchPage(page - 1);
+        }
+        return index < items.length ? items[index] : null;
+    }
+
+    @Override
+    public void registerDataSetObserver(@NonNull DataSetObserver observer) {
+        mObservable.registerObserver(observer);
+    }
+
+    @Override
+    public void unregisterDataSetObserver(@NonNull DataSetObserver observer) {
+        mObservable.unregisterObserver(observer);
+    }
+
+    /**
+     * Drop the loaded pages and load them again, like when the underlying data changes
+     */
+    public void invalidate() {
+        mGeneration++;
+        mPages.clear();
+        mLoadingPages.clear();
+        mObservable.notifyChanged();
+    }
+
+    private void prefetchPage(int page) {
+        if (page * mPageSize < getCount() && !mPages.containsKey(page)) {
+            requestPage(page);
+        }
+    }
+
+    private void requestPage(final int page) {
+        if (!mLoadingPages.add(page)) {
+            return;
+        }
+
+        final int generation = mGeneration;
+        final int offset = page * mPageSize;
+        final int count = Math.min(mPageSize, getCount() - offset);
+        loadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                CharSequence[] loaded;
+                try {
+                    loaded = loadPage(offset, count);
+                } catch (RuntimeException e) {
+                    DialogLogger.w("Failed Loading Page", null, e);
+                    loaded = null;
+                }
+
+                final CharSequence[] items = loaded;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mLoadingPages.remove(page);
+
+                        /*
+                         * A failed page is requested again when its items are bound again
+                         */
+                        if (items != null) {
+                            mPages.put(page, items);
+                            mObservable.notifyChanged();
+                        }
+                    }
+                });
+            }
+        });
+    }
+}
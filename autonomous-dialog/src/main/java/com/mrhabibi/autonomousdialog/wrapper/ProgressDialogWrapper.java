@@ -0,0 +1,277 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.Gravity;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+
+import com.mrhabibi.autonomousdialog.DialogBuilder;
+import com.mrhabibi.autonomousdialog.utils.DialogUtils;
+import com.mrhabibi.autonomousdialog.utils.FrameCoalescer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extension of BasicDialogWrapper that shows a progress bar, the progress can be set from any
+ * thread as often as needed, it only writes atomics and the view is refreshed at most once per
+ * frame with the latest values, the values in between are dropped. The wrapper instance and its
+ * views are retained across config changes, so workers can keep the reference they got when
+ * showing it, and rotation doesn't build the views again
+ */
+public class ProgressDialogWrapper extends BasicDialogWrapper {
+
+    public static final String PROGRESS_LABEL = "progress";
+    public static final String MAX_LABEL = "max";
+    public static final String INDETERMINATE_LABEL = "indeterminate";
+
+    public static final int DEFAULT_MAX = 100;
+
+    private final AtomicInteger mProgress = new AtomicInteger();
+    private final AtomicInteger mMax = new AtomicInteger(DEFAULT_MAX);
+    private volatile boolean mIndeterminate;
+
+    private final FrameCoalescer mRefresher = new FrameCoalescer(new Runnable() {
+        @Override
+        public void run() {
+            refresh();
+        }
+    });
+
+    /**
+     * The views of the dialog, only touched on the main thread
+     */
+    private ProgressBar mProgressBar;
+    private TextView mPercentView;
+    private int mShownPercent = -1;
+
+    @Override
+    public void setArguments(@Nullable Bundle args) {
+        super.setArguments(args);
+
+        /*
+         * Take the initial values here instead of onCreate, workers may set the progress before
+         * the wrapper is created
+         */
+        extractBundleStates(args);
+    }
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        extractBundleStates(savedInstanceState);
+    }
+
+    private void extractBundleStates(Bundle bundle) {
+        if (bundle != null) {
+            if (bundle.containsKey(PROGRESS_LABEL)) {
+                mProgress.set(bundle.getInt(PROGRESS_LABEL));
+            }
+            if (bundle.containsKey(MAX_LABEL)) {
+                mMax.set(bundle.getInt(MAX_LABEL));
+            }
+            if (bundle.containsKey(INDETERMINATE_LABEL)) {
+                mIndeterminate = bundle.getBoolean(INDETERMINATE_LABEL);
+            }
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(PROGRESS_LABEL, mProgress.get());
+        outState.putInt(MAX_LABEL, mMax.get());
+        outState.putBoolean(INDETERMINATE_LABEL, mIndeterminate);
+    }
+
+    @Override
+    public boolean isRetainedAcrossConfigChanges() {
+        return true;
+    }
+
+    @Override
+    public void onBuildDialog(DialogBuilder dialogBuilder) {
+        Context context = getRetainableContext();
+
+        LinearLayout container = new LinearLayout(context);
+        container.setOrientation(LinearLayout.VERTICAL);
+        container.setPadding(
+                DialogUtils.dpToPx(context, 24),
+                DialogUtils.dpToPx(context, 16),
+                DialogUtils.dpToPx(context, 24),
+                DialogUtils.dpToPx(context, 8));
+
+        mProgressBar = new ProgressBar(context, null, android.R.attr.progressBarStyleHorizontal);
+        container.addView(mProgressBar, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+
+        mPercentView = new TextView(context);
+        mPercentView.setGravity(Gravity.END);
+        container.addView(mPercentView, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+
+        mShownPercent = -1;
+        refresh();
+
+        dialogBuilder.setView(container);
+        super.onBuildDialog(dialogBuilder);
+    }
+
+    @Override
+    public void onDialogShown(AlertDialog dialog) {
+        super.onDialogShown(dialog);
+
+        /*
+         * Show the progress made while the host was being recreated
+         */
+        mRefresher.request();
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        mRefresher.cancel();
+    }
+
+    /**
+     * Set the progress, safe to be called from any thread as often as needed
+     *
+     * @param progress The progress, between 0 and max
+     */
+    public void setProgress(int progress) {
+        mProgress.set(progress);
+        mRefresher.request();
+    }
+
+    /**
+     * Add to the progress, safe to be called from any thread as often as needed
+     *
+     * @param diff The added progress
+     */
+    public void incrementProgressBy(int diff) {
+        mProgress.addAndGet(diff);
+        mRefresher.request();
+    }
+
+    public void setMax(int max) {
+        mMax.set(max);
+        mRefresher.request();
+    }
+
+    public void setIndeterminate(boolean indeterminate) {
+        mIndeterminate = indeterminate;
+        mRefresher.request();
+    }
+
+    public int getProgress() {
+        return mProgress.get();
+    }
+
+    public int getMax() {
+        return mMax.get();
+    }
+
+    public boolean isIndeterminate() {
+        return mIndeterminate;
+    }
+
+    /**
+     * Show the latest values, called on the main thread
+     */
+    private void refresh() {
+        ProgressBar progressBar = mProgressBar;
+        if (progressBar == null) {
+            return;
+        }
+
+        boolean indeterminate = mIndeterminate;
+        if (progressBar.isIndeterminate() != indeterminate) {
+            progressBar.setIndeterminate(indeterminate);
+        }
+
+        if (indeterminate) {
+            if (mShownPercent != -1) {
+                mShownPercent = -1;
+                mPercentView.setText(null);
+            }
+            return;
+        }
+
+        int max = Math.max(1, mMax.get());
+        int progress = Math.max(0, Math.min(max, mProgress.get()));
+        progressBar.setMax(max);
+        progressBar.setProgress(progress);
+
+        /*
+         * Only make the text when the shown percent changes
+         */
+        int percent = (int) (progress * 100L / max);
+        if (percent != mShownPercent) {
+            mShownPercent = percent;
+            mPercentView.setText(percent + "%");
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder extends BasicDialogWrapper.Builder {
+
+        @Override
+        public Builder title(CharSequence title) {
+            super.title(title);
+            return this;
+        }
+
+        @Override
+        public Builder message(CharSequence message) {
+            super.message(message);
+            return this;
+        }
+
+        @Override
+        public Builder positiveText(CharSequence positiveText) {
+            super.positiveText(positiveText);
+            return this;
+        }
+
+        @Override
+        public Builder negativeText(CharSequence negativeText) {
+            super.negativeText(negativeText);
+            return this;
+        }
+
+        @Override
+        public Builder neutralText(CharSequence neutralText) {
+            super.neutralText(neutralText);
+            return this;
+        }
+
+        public Builder progress(int progress) {
+            arguments.putInt(PROGRESS_LABEL, progress);
+            return this;
+        }
+
+        public Builder max(int max) {
+            arguments.putInt(MAX_LABEL, max);
+            return this;
+        }
+
+        public Builder indeterminate(boolean indeterminate) {
+            arguments.putBoolean(INDETERMINATE_LABEL, indeterminate);
+            return this;
+        }
+
+        @Override
+        public ProgressDialogWrapper build() {
+            ProgressDialogWrapper dialogWrapper = new ProgressDialogWrapper();
+            dialogWrapper.setArguments(arguments);
+            return dialogWrapper;
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.mrhabibi.autonomousdialog.wrapper;
+
+import android.content.Context;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.core.widget.TextViewCompat;
+
+import com.mrhabibi.autonomousdialog.DialogBuilder;
+import com.mrhabibi.autonomousdialog.DialogResult;
+import com.mrhabibi.autonomousdialog.utils.ChoiceIndex;
+import com.mrhabibi.autonomousdialog.utils.DialogUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extension of BasicDialogWrapper for single or multi choice of very long option lists, with a
+ * search field above the list. The options are indexed once by ChoiceIndex on a background
+ * thread, and every keystroke is searched there too, narrowing the previous result when the user
+ * keeps typing. The list only shows the matching options, but the which of the result and the
+ * selection always use the original indices
+ */
+public class SearchableDialogWrapper extends BasicDialogWrapper {
+
+    public static final String SEARCH_OPTIONS_LABEL = "searchOptions";
+    public static final String SEARCH_HINT_LABEL = "searchHint";
+    public static final String SEARCH_MULTI_CHOICE_LABEL = "searchMultiChoice";
+    public static final String SEARCH_QUERY_LABEL = "searchQuery";
+
+    private static final Executor searchExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    protected CharSequence[] mSearchOptions;
+    protected CharSequence mSearchHint;
+    protected boolean mSearchMultiChoice;
+    protected String mQuery = "";
+
+    /**
+     * Only the latest query is searched and shown, the older ones are dropped
+     */
+    private final AtomicInteger mQueryGeneration = new AtomicInteger();
+
+    /**
+     * The index and the last searched result, only touched on the search thread
+     */
+    private ChoiceIndex mIndex;
+    private String mSearchedQuery;
+    private int[] mSearchedIndices;
+
+    private FilteredChoiceAdapter mAdapter;
+    private ListView mListView;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+
+        /*
+         * The options are only kept in the arguments, they can be too large to be saved twice
+         */
+        Bundle arguments = getArguments();
+        if (arguments != null) {
+            mSearchOptions = arguments.getCharSequenceArray(SEARCH_OPTIONS_LABEL);
+            mSearchHint = arguments.getCharSequence(SEARCH_HINT_LABEL);
+            mSearchMultiChoice = arguments.getBoolean(SEARCH_MULTI_CHOICE_LABEL);
+        }
+        if (mSearchOptions == null) {
+            mSearchOptions = new CharSequence[0];
+        }
+        if (savedInstanceState != null && savedInstanceState.containsKey(SEARCH_QUERY_LABEL)) {
+            mQuery = savedInstanceState.getString(SEARCH_QUERY_LABEL);
+        }
+        super.onCreate(savedInstanceState);
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(SEARCH_QUERY_LABEL, mQuery);
+    }
+
+    @Override
+    public void onBuildDialog(DialogBuilder dialogBuilder) {
+        super.onBuildDialog(dialogBuilder);
+        Context context = getContext();
+
+        /*
+         * Show all options until the first search result comes
+         */
+        mListView = null;
+        mAdapter = new FilteredChoiceAdapter(context, mSearchOptions, DialogUtils.getAlertDialogItemLayout(context,
+                mSearchMultiChoice ? AbsListView.CHOICE_MODE_MULTIPLE : AbsListView.CHOICE_MODE_SINGLE));
+
+        dialogBuilder.setCustomTitle(makeSearchHeader(context));
+
+        if (mSearchMultiChoice) {
+            if (mMultiChoiceSelection == null) {
+                mMultiChoiceSelection = new ChoiceSelection(mSearchOptions.length);
+            } else if (mMultiChoiceSelection.size() != mSearchOptions.length) {
+                mMultiChoiceSelection = mMultiChoiceSelection.resize(mSearchOptions.length);
+            }
+            dialogBuilder.setView(makeMultiChoiceListView(context, dialogBuilder));
+        } else {
+            dialogBuilder.setSingleChoiceItems(mAdapter, mSingleChoiceSelectedOption);
+            dialogBuilder.setSingleChoiceOverridingListener(new OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialogInterface, int which) {
+                    /*
+                     * The which is already the original index of the filtered adapter
+                     */
+                    mSingleChoiceSelectedOption = which;
+
+                    if (mPositiveText == null || mPositiveText.length() == 0) {
+                        dialogInterface.dismiss();
+                    }
+                }
+            });
+        }
+
+        requestSearch();
+    }
+
+    @Override
+    public void onDialogShown(AlertDialog dialog) {
+        super.onDialogShown(dialog);
+        if (!mSearchMultiChoice) {
+            mListView = dialog.getListView();
+        }
+    }
+
+    @Override
+    public void onBundleResponses(Bundle responses) {
+        super.onBundleResponses(responses);
+        if (mSearchMultiChoice) {
+            responses.putParcelable(MULTI_CHOICE_SELECTION, mMultiChoiceSelection);
+        } else {
+            responses.putInt(SINGLE_CHOICE_SELECTED_OPTION, mSingleChoiceSelectedOption);
+        }
+    }
+
+    /**
+     * Get the current query
+     *
+     * @return The query
+     */
+    @NonNull
+    public String getQuery() {
+        return mQuery;
+    }
+
+    private View makeSearchHeader(Context context) {
+        LinearLayout header = new LinearLayout(context);
+        header.setOrientation(LinearLayout.VERTICAL);
+        header.setPadding(
+                DialogUtils.dpToPx(context, 24),
+                DialogUtils.dpToPx(context, 20),
+                DialogUtils.dpToPx(context, 24),
+                0);
+
+        /*
+         * The custom title replaces the title, so show it here
+         */
+        if (mTitle != null && mTitle.length() > 0) {
+            TextView titleView = new TextView(context);
+            TextViewCompat.setTextAppearance(titleView, androidx.appcompat.R.style.TextAppearance_AppCompat_Title);
+            titleView.setText(mTitle);
+            header.addView(titleView);
+        }
+
+        EditText searchView = new EditText(context);
+        searchView.setSingleLine(true);
+        searchView.setHint(mSearchHint);
+        searchView.setText(mQuery);
+        searchView.setSelection(mQuery.length());
+        searchView.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String query = s.toString();
+                if (!query.equals(mQuery)) {
+                    mQuery = query;
+                    requestSearch();
+                }
+            }
+        });
+        header.addView(searchView, new LinearLayout.LayoutParams(
+                LinearLayout.LayoutParams.MATCH_PARENT, LinearLayout.LayoutParams.WRAP_CONTENT));
+        return header;
+    }
+
+    /**
+     * The alert dialog can't make multi choice list from adapter, so make the list ourselves
+     */
+    private ListView makeMultiChoiceListView(Context context, final DialogBuilder dialogBuilder) {
+        final ListView listView = new ListView(context);
+        listView.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        listView.setAdapter(mAdapter);
+        listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                boolean checked = listView.isItemChecked(position);
+                mMultiChoiceSelection.set((int) id, checked);
+                setResultCode(DialogResult.RESULT_DIALOG_MULTI_CHOICES);
+
+                /*
+                 * The id is the original index, the position is only in the filtered list
+                 */
+                dialogBuilder.dispatchMultiChoiceClick(SearchableDialogWrapper.this, (int) id, checked);
+            }
+        });
+        mListView = listView;
+        syncCheckedItems();
+        return listView;
+    }
+
+    /**
+     * Search the current query on the search thread, the index is built there by the first search
+     */
+    private void requestSearch() {
+        final int generation = mQueryGeneration.incrementAndGet();
+        final String query = mQuery;
+        final CharSequence[] options = mSearchOptions;
+        searchExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mQueryGeneration.get()) {
+                    return;
+                }
+                if (mIndex == null) {
+                    mIndex = new ChoiceIndex(options);
+                }
+
+                /*
+                 * A longer query can only match less, so only check the previous result
+                 */
+                final int[] indices;
+                if (mSearchedIndices != null && query.startsWith(mSearchedQuery)) {
+                    indices = mIndex.narrow(mSearchedIndices, query);
+                } else {
+                    indices = mIndex.search(query);
+                }
+                mSearchedQuery = query;
+                mSearchedIndices = indices;
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mQueryGeneration.get() && mAdapter != null) {
+                            mAdapter.setIndices(indices);
+                            syncCheckedItems();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * The list checks positions, so check again the shown positions of the selected options
+     */
+    private void syncCheckedItems() {
+        if (mListView == null) {
+            return;
+        }
+        mListView.clearChoices();
+        if (mSearchMultiChoice) {
+            for (int i = mMultiChoiceSelection.nextSelected(0); i >= 0; i = mMultiChoiceSelection.nextSelected(i + 1)) {
+                int position = mAdapter.getPosition(i);
+                if (position >= 0) {
+                    mListView.setItemChecked(position, true);
+                }
+            }
+        } else if (mSingleChoiceSelectedOption >= 0) {
+            int position = mAdapter.getPosition(mSingleChoiceSelectedOption);
+            if (position >= 0) {
+                mListView.setItemChecked(position, true);
+            }
+        }
+    }
+
+    /**
+     * List adapter of the matching options, the item id is the original index
+     */
+    private static class FilteredChoiceAdapter extends BaseAdapter {
+
+        private final LayoutInflater mInflater;
+        private final CharSequence[] mOptions;
+        @LayoutRes
+        private final int mItemLayout;
+
+        /**
+         * The original indices of the shown options in ascending order, null to show all
+         */
+        private int[] mIndices;
+
+        FilteredChoiceAdapter(Context context, CharSequence[] options, @LayoutRes int itemLayout) {
+            this.mInflater = LayoutInflater.from(context);
+            this.mOptions = options;
+            this.mItemLayout = itemLayout;
+        }
+
+        void setIndices(int[] indices) {
+            mIndices = indices;
+            notifyDataSetChanged();
+        }
+
+        /**
+         * Find the shown position of the original index
+         *
+         * @return The position, or negative if it's not shown
+         */
+        int getPosition(int index) {
+            if (mIndices == null) {
+                return index < mOptions.length ? index : -1;
+            }
+            return Arrays.binarySearch(mIndices, index);
+        }
+
+        @Override
+        public int getCount() {
+            return mIndices != null ? mIndices.length : mOptions.length;
+        }
+
+        @Override
+        public CharSequence getItem(int position) {
+            return mOptions[(int) getItemId(position)];
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mIndices != null ? mIndices[position] : position;
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            View view = convertView != null ? convertView : mInflater.inflate(mItemLayout, parent, false);
+            ((TextView) view.findViewById(android.R.id.text1)).setText(getItem(position));
+            return view;
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder extends BasicDialogWrapper.Builder {
+
+        public Builder() {
+            super();
+
+            /*
+             * Nothing is selected by default
+             */
+            spec.mSingleChoiceSelectedOption = -1;
+        }
+
+        @Override
+        public Builder title(CharSequence title) {
+            super.title(title);
+            return this;
+        }
+
+        @Override
+        public Builder message(CharSequence message) {
+            super.message(message);
+            return this;
+        }
+
+        @Override
+        public Builder positiveText(CharSequence positiveText) {
+            super.positiveText(positiveText);
+            return this;
+        }
+
+        @Override
+        public Builder negativeText(CharSequence negativeText) {
+            super.negativeText(negativeText);
+            return this;
+        }
+
+        @Override
+        public Builder neutralText(CharSequence neutralText) {
+            super.neutralText(neutralText);
+            return this;
+        }
+
+        @Override
+        public Builder singleChoiceSelectedOption(int singleChoiceSelectedOption) {
+            super.singleChoiceSelectedOption(singleChoiceSelectedOption);
+            return this;
+        }
+
+        @Override
+        public Builder multiChoiceSelectedOptions(boolean[] multiChoiceSelectedOptions) {
+            super.multiChoiceSelectedOptions(multiChoiceSelectedOptions);
+            return this;
+        }
+
+        @Override
+        public Builder multiChoiceSelection(ChoiceSelection multiChoiceSelection) {
+            super.multiChoiceSelection(multiChoiceSelection);
+            return this;
+        }
+
+        public Builder searchOptions(CharSequence[] searchOptions) {
+            arguments.putCharSequenceArray(SEARCH_OPTIONS_LABEL, searchOptions);
+            return this;
+        }
+
+        public Builder searchHint(CharSequence searchHint) {
+            arguments.putCharSequence(SEARCH_HINT_LABEL, searchHint);
+            return this;
+        }
+
+        /**
+         * Use multi choice instead of single choice, the selection is passed in the responses as
+         * MULTI_CHOICE_SELECTION
+         *
+         * @param multiChoice Is multi choice
+         * @return The builder
+         */
+        public Builder searchMultiChoice(boolean multiChoice) {
+            arguments.putBoolean(SEARCH_MULTI_CHOICE_LABEL, multiChoice);
+            return this;
+        }
+
+        @Override
+        public SearchableDialogWrapper build() {
+            SearchableDialogWrapper dialogWrapper = new SearchableDialogWrapper();
+            dialogWrapper.setArguments(arguments);
+            return dialogWrapper;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mrhabibi.autonomousdialog.wrapper;
 
+import android.content.Context;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.FrameLayout;
@@ -9,8 +10,17 @@ import androidx.annotation.Nullable;
 
 import com.mrhabibi.autonomousdialog.DialogBuilder;
 import com.mrhabibi.autonomousdialog.DialogCallback;
+import com.mrhabibi.autonomousdialog.utils.DialogLogger;
+import com.mrhabibi.autonomousdialog.utils.DialogTrace;
 import com.mrhabibi.autonomousdialog.utils.DialogUtils;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
 /**
  * Created by mrhabibi on 12/13/16.
  * Extension of BasicDialogWrapper, same like BasicDialogWrapper but with extra view, if you want
@@ -20,9 +30,17 @@ import com.mrhabibi.autonomousdialog.utils.DialogUtils;
 public abstract class ViewDialogWrapper extends BasicDialogWrapper {
 
     public static final String SAVED_VIEW_LABEL = "savedViewState";
+
+    private static final Executor prepareExecutor = Executors.newSingleThreadExecutor();
+
     Bundle mSavedViewState;
     View mView;
 
+    /**
+     * The view built ahead by prepare, only used by the first build
+     */
+    private volatile FutureTask<View> mPreparedView;
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -40,7 +58,15 @@ public abstract class ViewDialogWrapper extends BasicDialogWrapper {
         /*
          * Create the view first
          */
-        mView = getView();
+        mView = takePreparedView();
+        if (mView == null) {
+            DialogTrace.begin(DialogTrace.GET_VIEW);
+            try {
+                mView = getView();
+            } finally {
+                DialogTrace.end();
+            }
+        }
 
         /*
          * Check if is having saved state, and restore it immediately after view created
@@ -60,6 +86,14 @@ public abstract class ViewDialogWrapper extends BasicDialogWrapper {
     @Override
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
+
+        /*
+         * The retained view is reused as it is after config changes, no need to save its state
+         */
+        if (isRetainedAcrossConfigChanges() && getActivity() != null && getActivity().isChangingConfigurations()) {
+            return;
+        }
+
         /*
          * Save all the view states
          */
@@ -68,9 +102,86 @@ public abstract class ViewDialogWrapper extends BasicDialogWrapper {
         outState.putBundle(SAVED_VIEW_LABEL, savedViewState);
     }
 
+    /**
+     * Keep the view state in memory, the view is restored from it when going back to this step
+     */
+    @Override
+    public void onStepHidden() {
+        super.onStepHidden();
+        if (mView != null) {
+            mSavedViewState = new Bundle();
+            onSaveViewState(mSavedViewState);
+        }
+    }
+
     @NonNull
     public abstract View getView();
 
+    /**
+     * Override this to build the view before the dialog is shown, it's called on a background
+     * thread by AutonomousDialog.Builder.prepare, so the fragment is not attached yet, use the
+     * passed context instead of getContext. The context is not the activity, so it doesn't keep the
+     * caller alive while the view is built. Only build views that are safe to inflate off the main
+     * thread, the view is still restored and bundled the same way as the one from getView
+     *
+     * @param context The application context themed with the dialog theme
+     * @return The view, or null to build it with getView when the dialog is built
+     */
+    @Nullable
+    protected View onPrepareView(@NonNull Context context) {
+        return null;
+    }
+
+    /**
+     * Start building the view on a background thread, used by AutonomousDialog.Builder.prepare
+     *
+     * @param context The application context themed with the dialog theme
+     */
+    public void prepare(@NonNull final Context context) {
+        if (mPreparedView != null || mView != null) {
+            return;
+        }
+        FutureTask<View> preparedView = new FutureTask<>(new Callable<View>() {
+            @Override
+            public View call() {
+                DialogTrace.begin(DialogTrace.PREPARE_VIEW);
+                try {
+                    return onPrepareView(context);
+                } finally {
+                    DialogTrace.end();
+                }
+            }
+        });
+        mPreparedView = preparedView;
+        prepareExecutor.execute(preparedView);
+    }
+
+    /**
+     * Take the view built by prepare, waiting for it if it's being built, that is not longer than
+     * building it here
+     *
+     * @return The view, or null if it's not prepared or not started yet
+     */
+    @Nullable
+    private View takePreparedView() {
+        FutureTask<View> preparedView = mPreparedView;
+        mPreparedView = null;
+        if (preparedView == null || preparedView.cancel(false)) {
+            return null;
+        }
+        try {
+            return preparedView.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            DialogLogger.w("Failed Preparing View", null, e.getCause());
+            return null;
+        }
+    }
+
     @Override
     public void onBundleResponses(Bundle responses) {
         if (mView != null && mView instanceof DialogCallback) {
@@ -147,7 +258,7 @@ public abstract class ViewDialogWrapper extends BasicDialogWrapper {
      * @return The Container
      */
     private FrameLayout makeContainer(View view) {
-        FrameLayout container = new FrameLayout(getContext());
+        FrameLayout container = new FrameLayout(isRetainedAcrossConfigChanges() ? getRetainableContext() : getContext());
         /*
          * Give padding as much as the title's
          */
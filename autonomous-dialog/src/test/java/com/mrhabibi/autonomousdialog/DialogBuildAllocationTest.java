@@ -0,0 +1,212 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.content.DialogInterface;
+import android.content.Intent;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.FragmentActivity;
+
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Bytes allocated by DialogController.build and DialogBuilder.create per dialog, for a spec built
+ * by the dialog wrapper and for the spec retained across config changes. The AlertDialog itself
+ * is measured alone with the same content, what the library adds on top of it must stay within a
+ * small fixed budget and must not grow with the builds
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DialogBuildAllocationTest {
+
+    private static final int WARMUP_BUILDS = 200;
+    private static final int BUILDS = 1000;
+
+    /**
+     * What the library may allocate per build on top of the AlertDialog, the spec, the listeners
+     * of the dialog wrapper and the checked items of the multi choice
+     */
+    private static final long FRESH_BUILD_BUDGET_BYTES = 2 * 1024;
+
+    /**
+     * The retained spec is only wired again, the controller dispatches every listener itself
+     */
+    private static final long RETAINED_BUILD_BUDGET_BYTES = 512;
+
+    /**
+     * Noise allowed between the earlier and the later builds
+     */
+    private static final long DRIFT_BYTES = 256;
+
+    private static final CharSequence TITLE = "Delete the selected files?";
+    private static final CharSequence MESSAGE = "The files can't be brought back once they're deleted";
+    private static final CharSequence[] OPTIONS = {"Photos", "Videos", "Documents", "Downloads", "Music", "Backups"};
+    private static final boolean[] SELECTED = {true, false, true, false, false, true};
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private ActivityController<FragmentActivity> mActivityController;
+    private FragmentActivity mActivity;
+    private DialogController mController;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Allocations aren't counted per thread on this JVM", allocatedBytes() >= 0);
+
+        mActivityController = Robolectric.buildActivity(FragmentActivity.class).setup();
+        mActivity = mActivityController.get();
+
+        BasicDialogWrapper dialogWrapper = BasicDialogWrapper.newBuilder()
+                .title(TITLE)
+                .message(MESSAGE)
+                .positiveText("Delete")
+                .negativeText("Cancel")
+                .multiChoiceOptions(OPTIONS)
+                .multiChoiceSelectedOptions(SELECTED)
+                .build();
+        mActivity.getSupportFragmentManager().beginTransaction()
+                .add(dialogWrapper, "content")
+                .commitNow();
+
+        mController = new DialogController(new DialogController.Host() {
+            @Override
+            public void onDialogDismissed(DialogInterface dialogInterface, DialogBuilder builder) {
+            }
+
+            @Nullable
+            @Override
+            public DialogController getDialogController() {
+                return mController;
+            }
+        }, dialogWrapper, new Intent(), "allocation", true);
+    }
+
+    @After
+    public void tearDown() {
+        if (mActivityController != null) {
+            mActivityController.pause().stop().destroy();
+        }
+    }
+
+    @Test
+    public void buildsAllocateAFixedAmountOverTheAlertDialog() {
+        Build plain = new Build() {
+            @Override
+            AlertDialog run() {
+                return new AlertDialog.Builder(mActivity, R.style.AutonomousAlertDialog)
+                        .setTitle(TITLE)
+                        .setMessage(MESSAGE)
+                        .setPositiveButton("Delete", null)
+                        .setNegativeButton("Cancel", null)
+                        .setMultiChoiceItems(OPTIONS, SELECTED, null)
+                        .create();
+            }
+        };
+        Build fresh = new Build() {
+            @Override
+            AlertDialog run() {
+                return mController.build(mActivity, 0, true, null);
+            }
+        };
+
+        assertNotNull(fresh.run());
+        final DialogBuilder spec = mController.getSpec();
+        Build retained = new Build() {
+            @Override
+            AlertDialog run() {
+                return mController.build(mActivity, 0, true, spec);
+            }
+        };
+
+        Measurement plainMeasurement = measure("AlertDialog", plain);
+        Measurement freshMeasurement = measure("Fresh spec", fresh);
+        Measurement retainedMeasurement = measure("Retained spec", retained);
+        assertSame(spec, mController.getSpec());
+
+        long freshOverhead = freshMeasurement.getBytesPerBuild() - plainMeasurement.getBytesPerBuild();
+        long retainedOverhead = retainedMeasurement.getBytesPerBuild() - plainMeasurement.getBytesPerBuild();
+        System.out.println(String.format(Locale.US, "Overhead: fresh %d bytes, retained %d bytes per build", freshOverhead, retainedOverhead));
+
+        assertTrue("Fresh build allocates " + freshOverhead + " bytes over the AlertDialog", freshOverhead <= FRESH_BUILD_BUDGET_BYTES);
+        assertTrue("Retained build allocates " + retainedOverhead + " bytes over the AlertDialog", retainedOverhead <= RETAINED_BUILD_BUDGET_BYTES);
+        assertTrue("Retained build allocates more than fresh build", retainedMeasurement.getBytesPerBuild() <= freshMeasurement.getBytesPerBuild() + DRIFT_BYTES);
+
+        /*
+         * Near-constant, the later builds allocate the same as the earlier ones
+         */
+        for (Measurement measurement : new Measurement[]{plainMeasurement, freshMeasurement, retainedMeasurement}) {
+            assertTrue(measurement.name + " allocations grow", measurement.laterBytes <= measurement.earlierBytes + DRIFT_BYTES * BUILDS / 2);
+        }
+    }
+
+    /**
+     * Run the warmup builds, then count the bytes of the earlier and the later half of the builds
+     */
+    private static Measurement measure(String name, Build build) {
+        for (int i = 0; i < WARMUP_BUILDS; i++) {
+            build.run();
+        }
+
+        Measurement measurement = new Measurement(name);
+        long start = allocatedBytes();
+        for (int i = 0; i < BUILDS / 2; i++) {
+            build.run();
+        }
+        long middle = allocatedBytes();
+        for (int i = 0; i < BUILDS / 2; i++) {
+            build.run();
+        }
+        long end = allocatedBytes();
+
+        measurement.earlierBytes = middle - start;
+        measurement.laterBytes = end - middle;
+        System.out.println(String.format(Locale.US, "%-14s %8d bytes per build", name, measurement.getBytesPerBuild()));
+        return measurement;
+    }
+
+    private static long allocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private abstract static class Build {
+        abstract AlertDialog run();
+    }
+
+    private static class Measurement {
+        final String name;
+        long earlierBytes;
+        long laterBytes;
+
+        Measurement(String name) {
+            this.name = name;
+        }
+
+        long getBytesPerBuild() {
+            return (earlierBytes + laterBytes) / BUILDS;
+        }
+    }
+}
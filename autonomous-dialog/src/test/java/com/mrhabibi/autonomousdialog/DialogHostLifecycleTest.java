@@ -0,0 +1,284 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.content.DialogInterface;
+import android.content.Intent;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.FragmentActivity;
+
+import com.mrhabibi.autonomousdialog.utils.DialogRegistry;
+import com.mrhabibi.autonomousdialog.utils.FragmentPasser;
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowActivity;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Runs thousands of show, rotate, dismiss and result cycles of an alert dialog hosted by
+ * DialogActivity, printing the time and allocations of every phase, and fails when the passed
+ * fragments, the registry or the live DialogActivity instances grow with the cycles
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DialogHostLifecycleTest {
+
+    private static final String IDENTIFIER = "lifecycle";
+
+    private static final int WARMUP_CYCLES = 100;
+    private static final int CYCLES = 2000;
+    private static final int CHECK_INTERVAL = 250;
+
+    /**
+     * The destroyed activities Robolectric and the last cycle may still hold
+     */
+    private static final int LIVE_ACTIVITY_LIMIT = 4;
+
+    private final Phase mShow = new Phase("show");
+    private final Phase mCreate = new Phase("create");
+    private final Phase mRotate = new Phase("rotate");
+    private final Phase mDismiss = new Phase("dismiss");
+    private final Phase mResult = new Phase("result");
+    private final Phase[] mPhases = {mShow, mCreate, mRotate, mDismiss, mResult};
+
+    private final List<WeakReference<DialogActivity>> mDialogActivities = new ArrayList<>();
+
+    private ActivityController<CallerActivity> mCallerController;
+    private CallerActivity mCaller;
+    private int mDelivered;
+
+    @Before
+    public void setUp() {
+        mCallerController = Robolectric.buildActivity(CallerActivity.class).setup();
+        mCaller = mCallerController.get();
+        mCaller.router.on(IDENTIFIER, DialogOutcome.POSITIVE, new DialogResultRouter.OnResultListener() {
+            @Override
+            public void onResult(DialogResponse response) {
+                mDelivered++;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mCallerController.pause().stop().destroy();
+    }
+
+    @Test
+    public void showRotateDismissCyclesDontLeak() {
+        for (int cycle = 0; cycle < WARMUP_CYCLES; cycle++) {
+            runCycle(cycle);
+        }
+        for (Phase phase : mPhases) {
+            phase.nextWindow();
+        }
+
+        int passedFragments = FragmentPasser.getStore().size();
+        int registrySize = DialogRegistry.size();
+        int liveHosts = DialogRegistry.getLiveHostCount();
+
+        for (int cycle = WARMUP_CYCLES; cycle < CYCLES; cycle++) {
+            runCycle(cycle);
+
+            if (cycle % CHECK_INTERVAL == 0) {
+                assertEquals("Passed fragments grow", passedFragments, FragmentPasser.getStore().size());
+                assertEquals("Registry grows", registrySize, DialogRegistry.size());
+                assertEquals("Live hosts grow", liveHosts, DialogRegistry.getLiveHostCount());
+                assertTrue("DialogActivity instances grow", countLiveActivities() <= LIVE_ACTIVITY_LIMIT);
+            }
+            if (cycle == (WARMUP_CYCLES + CYCLES) / 2) {
+                for (Phase phase : mPhases) {
+                    phase.nextWindow();
+                }
+            }
+        }
+
+        assertEquals(CYCLES, mDelivered);
+        assertEquals(passedFragments, FragmentPasser.getStore().size());
+        assertEquals(registrySize, DialogRegistry.size());
+        assertEquals(liveHosts, DialogRegistry.getLiveHostCount());
+        assertTrue(countLiveActivities() <= LIVE_ACTIVITY_LIMIT);
+
+        for (Phase phase : mPhases) {
+            System.out.println(phase.report());
+
+            /*
+             * The allocations per cycle stay about the same, the later half doesn't allocate
+             * much more than the earlier half
+             */
+            if (phase.isAllocationMeasured()) {
+                assertTrue(phase.name + " allocations grow", phase.getLaterWindowBytes() <= phase.getEarlierWindowBytes() * 2 + 64 * 1024);
+            }
+        }
+    }
+
+    /**
+     * Show the dialog, create its host, rotate it, press the positive button and pass the result
+     * back to the caller
+     */
+    private void runCycle(int cycle) {
+        mShow.begin();
+        AutonomousDialog.builder(mCaller, IDENTIFIER)
+                .setContent(BasicDialogWrapper.newBuilder()
+                        .title("Cycle " + cycle)
+                        .message("Rotate and dismiss")
+                        .positiveText("OK")
+                        .negativeText("Cancel")
+                        .build())
+                .show();
+        ShadowActivity.IntentForResult started = shadowOf(mCaller).getNextStartedActivityForResult();
+        mShow.end();
+        assertNotNull(started);
+
+        mCreate.begin();
+        ActivityController<DialogActivity> controller = Robolectric.buildActivity(DialogActivity.class, started.intent).setup();
+        mCreate.end();
+        mDialogActivities.add(new WeakReference<>(controller.get()));
+
+        /*
+         * Config changes, the host is made again and the dialog is rebuilt
+         */
+        mRotate.begin();
+        controller.recreate();
+        ShadowLooper.idleMainLooper();
+        mRotate.end();
+        DialogActivity dialogActivity = controller.get();
+        mDialogActivities.add(new WeakReference<>(dialogActivity));
+
+        mDismiss.begin();
+        AlertDialog dialog = dialogActivity.mCurrentDialog;
+        dialog.getButton(DialogInterface.BUTTON_POSITIVE).performClick();
+        ShadowLooper.idleMainLooper();
+        assertTrue(dialogActivity.isFinishing());
+        ShadowActivity shadowDialogActivity = shadowOf(dialogActivity);
+        int resultCode = shadowDialogActivity.getResultCode();
+        Intent resultIntent = shadowDialogActivity.getResultIntent();
+        controller.pause().stop().destroy();
+        ShadowLooper.idleMainLooper();
+        mDismiss.end();
+
+        mResult.begin();
+        shadowOf(mCaller).receiveResult(started.intent, resultCode, resultIntent);
+        mResult.end();
+    }
+
+    private int countLiveActivities() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        int live = 0;
+        for (Iterator<WeakReference<DialogActivity>> iterator = mDialogActivities.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().get() == null) {
+                iterator.remove();
+            } else {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Time and allocations of a phase of the cycle in the warmup, the earlier half and the later
+     * half of the cycles, the allocations are counted only on the JVMs that count them per thread
+     */
+    private static class Phase {
+
+        private static final int WARMUP = 0;
+        private static final int EARLIER = 1;
+        private static final int LATER = 2;
+
+        private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        final String name;
+
+        private final long[] mNanos = new long[3];
+        private final long[] mBytes = new long[3];
+        private final int[] mCounts = new int[3];
+        private int mWindow = WARMUP;
+
+        private long mStartNanos;
+        private long mStartBytes;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void begin() {
+            mStartBytes = allocatedBytes();
+            mStartNanos = System.nanoTime();
+        }
+
+        void end() {
+            mNanos[mWindow] += System.nanoTime() - mStartNanos;
+            mBytes[mWindow] += allocatedBytes() - mStartBytes;
+            mCounts[mWindow]++;
+        }
+
+        void nextWindow() {
+            mWindow++;
+        }
+
+        boolean isAllocationMeasured() {
+            return allocatedBytes() >= 0;
+        }
+
+        long getEarlierWindowBytes() {
+            return mCounts[EARLIER] > 0 ? mBytes[EARLIER] / mCounts[EARLIER] : 0;
+        }
+
+        long getLaterWindowBytes() {
+            return mCounts[LATER] > 0 ? mBytes[LATER] / mCounts[LATER] : 0;
+        }
+
+        String report() {
+            int count = mCounts[EARLIER] + mCounts[LATER];
+            long nanos = mNanos[EARLIER] + mNanos[LATER];
+            long bytes = mBytes[EARLIER] + mBytes[LATER];
+            return String.format(Locale.US, "%-8s %8d us %10d bytes per cycle", name,
+                    count > 0 ? nanos / count / 1000 : 0,
+                    count > 0 && isAllocationMeasured() ? bytes / count : -1);
+        }
+
+        private static long allocatedBytes() {
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+                if (sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+                    return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+            return -1;
+        }
+    }
+
+    public static class CallerActivity extends FragmentActivity {
+
+        final DialogResultRouter router = new DialogResultRouter();
+
+        @Override
+        protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+            super.onActivityResult(requestCode, resultCode, data);
+            router.route(requestCode, resultCode, data);
+        }
+    }
+}
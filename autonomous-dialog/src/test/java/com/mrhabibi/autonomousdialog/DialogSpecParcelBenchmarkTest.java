@@ -0,0 +1,139 @@
+package com.mrhabibi.autonomousdialog;
+
+import android.os.Bundle;
+import android.os.Parcel;
+
+import com.mrhabibi.autonomousdialog.utils.DialogScheduler;
+import com.mrhabibi.autonomousdialog.wrapper.BasicDialogWrapper;
+import com.mrhabibi.autonomousdialog.wrapper.DialogContentSpec;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parcel size and parcel & unparcel time of DialogContentSpec and DialogLaunchSpec against the
+ * string-keyed bundles they replaced. The sizes are checked, the times are only printed since the
+ * parcel of Robolectric is not the native one, run it on a device for the real times:
+ * gradle :autonomous-dialog:testDebugUnitTest --tests *DialogSpecParcelBenchmarkTest -i
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class DialogSpecParcelBenchmarkTest {
+
+    private static final int WARMUP_ROUNDS = 500;
+    private static final int ROUNDS = 2000;
+
+    private static final CharSequence TITLE = "Delete the selected files?";
+    private static final CharSequence MESSAGE = "The files can't be brought back once they're deleted";
+    private static final CharSequence[] OPTIONS = {"Photos", "Videos", "Documents", "Downloads", "Music", "Backups"};
+    private static final boolean[] SELECTED = {true, false, true, false, false, true};
+
+    @Test
+    public void contentSpecIsSmallerThanBundle() {
+        Bundle spec = BasicDialogWrapper.newBuilder()
+                .title(TITLE)
+                .message(MESSAGE)
+                .positiveText("Delete")
+                .negativeText("Cancel")
+                .multiChoiceOptions(OPTIONS)
+                .multiChoiceSelectedOptions(SELECTED)
+                .getArguments();
+
+        Bundle legacy = new Bundle();
+        legacy.putCharSequence(BasicDialogWrapper.TITLE_LABEL, TITLE);
+        legacy.putCharSequence(BasicDialogWrapper.MESSAGE_LABEL, MESSAGE);
+        legacy.putCharSequence(BasicDialogWrapper.POSITIVE_TEXT_LABEL, "Delete");
+        legacy.putCharSequence(BasicDialogWrapper.NEGATIVE_TEXT_LABEL, "Cancel");
+        legacy.putCharSequenceArray(BasicDialogWrapper.MULTI_CHOICE_OPTIONS_LABEL, OPTIONS);
+        legacy.putBooleanArray(BasicDialogWrapper.MULTI_CHOICE_SELECTED_OPTIONS_LABEL, SELECTED);
+
+        Measurement specMeasurement = measure("DialogContentSpec", spec);
+        Measurement legacyMeasurement = measure("Content bundle", legacy);
+
+        assertTrue(specMeasurement.read.getParcelable(BasicDialogWrapper.CONTENT_SPEC_LABEL) instanceof DialogContentSpec);
+        assertTrue(specMeasurement.bytes < legacyMeasurement.bytes);
+    }
+
+    @Test
+    public void launchSpecIsNotLargerThanBundle() {
+        Bundle params = new Bundle();
+        params.putLong("fileCount", 3);
+
+        Bundle spec = new Bundle();
+        spec.putParcelable(DialogActivity.LAUNCH_SPEC_LABEL, new DialogLaunchSpec("AlertDialog_1", true, "delete", 0, params, null, DialogScheduler.NO_TICKET, null, null));
+
+        Bundle legacy = new Bundle();
+        legacy.putString(DialogActivity.FRAGMENT_GETTER_ID_LABEL, "AlertDialog_1");
+        legacy.putBoolean(DialogActivity.CANCELABLE_LABEL, true);
+        legacy.putString(DialogActivity.IDENTIFIER_LABEL, "delete");
+        legacy.putInt(DialogActivity.THEME_RES_LABEL, 0);
+        legacy.putBundle(DialogActivity.PARAMS_LABEL, params);
+
+        Measurement specMeasurement = measure("DialogLaunchSpec", spec);
+        Measurement legacyMeasurement = measure("Launch bundle", legacy);
+
+        DialogLaunchSpec read = specMeasurement.read.getParcelable(DialogActivity.LAUNCH_SPEC_LABEL);
+        assertEquals("delete", read.mIdentifier);
+        assertEquals(3, read.mParams.getLong("fileCount"));
+
+        /*
+         * The class name costs about as much as the keys, what's saved is the lookup of every key
+         */
+        assertTrue(specMeasurement.bytes <= legacyMeasurement.bytes);
+    }
+
+    /**
+     * Write the bundle to a parcel and read it back with all of its values, like when the
+     * arguments or the intent go through the binder
+     */
+    private static Measurement measure(String name, Bundle bundle) {
+        Measurement measurement = new Measurement();
+        Parcel parcel = Parcel.obtain();
+        try {
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                parcel.setDataSize(0);
+                parcel.setDataPosition(0);
+
+                long start = System.nanoTime();
+                parcel.writeBundle(bundle);
+                long written = System.nanoTime();
+
+                parcel.setDataPosition(0);
+                Bundle read = parcel.readBundle(DialogSpecParcelBenchmarkTest.class.getClassLoader());
+
+                /*
+                 * The bundle is read lazily, touching it reads all the values
+                 */
+                read.size();
+                long end = System.nanoTime();
+
+                if (round >= WARMUP_ROUNDS) {
+                    measurement.parcelNanos += written - start;
+                    measurement.unparcelNanos += end - written;
+                }
+                measurement.bytes = parcel.dataSize();
+                measurement.read = read;
+            }
+        } finally {
+            parcel.recycle();
+        }
+
+        System.out.println(String.format(Locale.US, "%s: %d bytes, parcel %d ns, unparcel %d ns", name,
+                measurement.bytes, measurement.parcelNanos / ROUNDS, measurement.unparcelNanos / ROUNDS));
+        return measurement;
+    }
+
+    private static class Measurement {
+        int bytes;
+        long parcelNanos;
+        long unparcelNanos;
+        Bundle read;
+    }
+}